@@ -0,0 +1,64 @@
+package com.kidtask.benchmarks;
+
+import com.kidtask.data.DataManager;
+import com.kidtask.data.StorageOptions;
+import com.kidtask.models.Child;
+import com.kidtask.models.Task;
+import com.kidtask.models.Teacher;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A teacher assigning one task to a whole class in one batch. Each iteration
+ * starts from an empty data directory, so the stores only hold the tasks
+ * assigned during that iteration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkAssignBenchmark {
+    @Param({"30", "1000"})
+    public int children;
+
+    @Param({"false", "true"})
+    public boolean journaled;
+
+    private TempDataDir dataDir;
+    private DataManager dataManager;
+    private List<String> childNames;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        dataDir = new TempDataDir();
+        dataManager = new DataManager(new StorageOptions()
+                .setDataDir(dataDir.getPath())
+                .setJournaled(journaled));
+        dataManager.loadData();
+        dataManager.addUser(new Teacher("teacher", "secret"));
+        childNames = new ArrayList<>();
+        for (int i = 0; i < children; i++) {
+            Child child = new Child("pupil" + i, "secret");
+            dataManager.addUser(child);
+            childNames.add(child.getUsername());
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        dataManager.close();
+        dataDir.delete();
+    }
+
+    @Benchmark
+    public List<Task> assignTask() {
+        return dataManager.assignTask("Read chapter 3", "Pages 40 to 52", "2025-03-14",
+                10, "teacher", childNames);
+    }
+}
@@ -0,0 +1,45 @@
+package com.kidtask.benchmarks;
+
+import com.kidtask.models.Child;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of recording a rating for children with short and long rating histories.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChildRatingBenchmark {
+    @Param({"10", "1000", "10000"})
+    public int existingRatings;
+
+    private Child child;
+    private double rating;
+
+    // Start every iteration from the same history so it does not keep growing
+    @Setup(Level.Iteration)
+    public void setUp() {
+        HouseholdGenerator generator = new HouseholdGenerator(42);
+        child = new Child("child", "secret");
+        for (int i = 0; i < existingRatings; i++) {
+            child.addRating(generator.nextRating());
+        }
+        rating = generator.nextRating();
+    }
+
+    @Benchmark
+    public int addRating() {
+        child.addRating(rating);
+        return child.getLevel();
+    }
+
+    @Benchmark
+    public double averageRating() {
+        return child.getAverageRating();
+    }
+}
@@ -0,0 +1,57 @@
+package com.kidtask.benchmarks;
+
+import com.google.gson.Gson;
+import com.kidtask.models.Task;
+import com.kidtask.models.Wish;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reflective Gson round trips of single tasks and wishes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GsonBenchmark {
+    private Gson gson;
+    private Task task;
+    private Wish wish;
+    private String taskJson;
+    private String wishJson;
+
+    @Setup
+    public void setUp() {
+        HouseholdGenerator generator = new HouseholdGenerator(42);
+        gson = new Gson();
+        task = generator.newTask("child0_0", "parent0");
+        task.markCompleted();
+        task.approve(generator.nextRating());
+        wish = generator.newWish("child0_0");
+        taskJson = gson.toJson(task);
+        wishJson = gson.toJson(wish);
+    }
+
+    @Benchmark
+    public String serializeTask() {
+        return gson.toJson(task);
+    }
+
+    @Benchmark
+    public Task deserializeTask() {
+        return gson.fromJson(taskJson, Task.class);
+    }
+
+    @Benchmark
+    public String serializeWish() {
+        return gson.toJson(wish);
+    }
+
+    @Benchmark
+    public Wish deserializeWish() {
+        return gson.fromJson(wishJson, Wish.class);
+    }
+}
@@ -0,0 +1,92 @@
+package com.kidtask.benchmarks;
+
+import com.kidtask.data.DataManager;
+import com.kidtask.data.StorageFormat;
+import com.kidtask.data.StorageOptions;
+import com.kidtask.models.Task;
+import com.kidtask.models.Wish;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Heap retained by a DataManager after loading generated households from
+ * disk, and how many separate username string instances the loaded tasks
+ * and wishes hold.
+ *
+ * Run it with a fixed heap and a single collector so numbers are comparable
+ * between builds, e.g. -Xms2g -Xmx2g -XX:+UseSerialGC.
+ *
+ * Usage: HeapFootprint [--households N] [--format JSON|BINARY]
+ */
+public class HeapFootprint {
+
+    public static void main(String[] args) throws Exception {
+        int households = 2000;
+        StorageFormat format = StorageFormat.JSON;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--households": households = Integer.parseInt(args[++i]); break;
+                case "--format": format = StorageFormat.valueOf(args[++i]); break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+
+        TempDataDir dataDir = new TempDataDir();
+        StorageOptions options = new StorageOptions()
+                .setDataDir(dataDir.getPath())
+                .setFormat(format);
+        try {
+            DataManager generated = new DataManager(options);
+            generated.loadData();
+            new HouseholdGenerator(42).populate(generated, households);
+            generated.saveData();
+            generated.close();
+            generated = null;
+
+            long before = usedHeap();
+            DataManager loaded = new DataManager(options);
+            loaded.loadData();
+            long after = usedHeap();
+
+            List<Task> tasks = loaded.getAllTasks();
+            List<Wish> wishes = loaded.getAllWishes();
+            Set<String> usernames = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Task task : tasks) {
+                usernames.add(task.getAssignedTo());
+                usernames.add(task.getCreatedBy());
+            }
+            for (Wish wish : wishes) {
+                usernames.add(wish.getRequestedBy());
+                usernames.add(wish.getApprovedBy());
+            }
+            usernames.remove(null);
+
+            long retained = after - before;
+            System.out.printf("%d tasks, %d wishes, %d users (%s)%n",
+                    tasks.size(), wishes.size(), loaded.getAllUsers().size(), format);
+            System.out.printf("retained heap: %.1f MB, %d bytes per task or wish%n",
+                    retained / 1e6, retained / Math.max(1, tasks.size() + wishes.size()));
+            System.out.printf("username instances: %d%n", usernames.size());
+            loaded.close();
+        } finally {
+            dataDir.delete();
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
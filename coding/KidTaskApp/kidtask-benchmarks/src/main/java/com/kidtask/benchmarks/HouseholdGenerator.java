@@ -0,0 +1,138 @@
+package com.kidtask.benchmarks;
+
+import com.kidtask.data.DataManager;
+import com.kidtask.models.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Generates reproducible synthetic households for benchmarks.
+ *
+ * Each household has a parent and one to four children. Every child gets a
+ * few weeks of chores in all task states (most of them already approved and
+ * rated) and a wish list spread over all levels. Every twenty households
+ * share a teacher who assigns some of the homework.
+ */
+public class HouseholdGenerator {
+    private static final String[] CHORES = {
+        "Make the bed", "Tidy up the room", "Do math homework", "Read for 30 minutes",
+        "Feed the cat", "Water the plants", "Set the table", "Practice piano",
+        "Take out the trash", "Fold the laundry", "Write a story", "Help with the dishes"
+    };
+    private static final String[] WISHES = {
+        "New bicycle", "Trip to the zoo", "Lego set", "Movie night",
+        "Extra hour of games", "Picnic in the park", "New book", "Sleepover with friends"
+    };
+    private static final LocalDate START_DATE = LocalDate.of(2025, 1, 1);
+
+    /**
+     * Usernames and ids of a generated dataset, for picking lookup keys.
+     */
+    public static class Dataset {
+        public final List<String> childNames = new ArrayList<>();
+        public final List<String> taskIds = new ArrayList<>();
+        public final List<String> wishIds = new ArrayList<>();
+    }
+
+    private final Random random;
+
+    public HouseholdGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Add the given number of households to a DataManager.
+     */
+    public Dataset populate(DataManager dataManager, int households) {
+        Dataset dataset = new Dataset();
+        String teacher = null;
+
+        for (int h = 0; h < households; h++) {
+            if (h % 20 == 0) {
+                teacher = "teacher" + (h / 20);
+                dataManager.addUser(new Teacher(teacher, "secret"));
+            }
+            String parent = "parent" + h;
+            dataManager.addUser(new Parent(parent, "secret"));
+
+            int children = 1 + random.nextInt(4);
+            for (int c = 0; c < children; c++) {
+                String childName = "child" + h + "_" + c;
+                Child child = new Child(childName, "secret");
+                dataManager.addUser(child);
+                dataset.childNames.add(childName);
+
+                int taskCount = 20 + random.nextInt(41);
+                for (int t = 0; t < taskCount; t++) {
+                    String creator = random.nextInt(5) == 0 ? teacher : parent;
+                    dataset.taskIds.add(addTask(dataManager, childName, creator));
+                }
+
+                int wishCount = 3 + random.nextInt(8);
+                for (int w = 0; w < wishCount; w++) {
+                    dataset.wishIds.add(addWish(dataManager, childName, parent));
+                }
+            }
+        }
+        return dataset;
+    }
+
+    public Task newTask(String assignedTo, String createdBy) {
+        String dueDate = START_DATE.plusDays(random.nextInt(60)).toString();
+        return new Task(newId(), pick(CHORES), "Generated chore for " + assignedTo, dueDate,
+                5 * (1 + random.nextInt(10)), assignedTo, createdBy);
+    }
+
+    public Wish newWish(String requestedBy) {
+        String wishType = random.nextBoolean() ? "product" : "activity";
+        return new Wish(newId(), pick(WISHES), "Generated wish for " + requestedBy, wishType,
+                1 + random.nextInt(5), requestedBy);
+    }
+
+    public double nextRating() {
+        // Mostly good ratings, in half steps
+        return Math.min(5.0, 2.0 + random.nextInt(7) * 0.5);
+    }
+
+    private String addTask(DataManager dataManager, String childName, String creator) {
+        Task task = newTask(childName, creator);
+        dataManager.addTask(task);
+
+        // 30% pending, 20% completed, 40% approved, 10% rejected
+        int state = random.nextInt(10);
+        if (state >= 3) {
+            dataManager.completeTask(task);
+        }
+        if (state >= 5 && state < 9) {
+            dataManager.approveTask(task, nextRating());
+        } else if (state == 9) {
+            dataManager.rejectTask(task);
+        }
+        return task.getTaskId();
+    }
+
+    private String addWish(DataManager dataManager, String childName, String parent) {
+        Wish wish = newWish(childName);
+        dataManager.addWish(wish);
+
+        int state = random.nextInt(10);
+        if (state < 3) {
+            dataManager.approveWish(wish, parent);
+        } else if (state == 3) {
+            dataManager.rejectWish(wish);
+        }
+        return wish.getWishId();
+    }
+
+    private String newId() {
+        return new UUID(random.nextLong(), random.nextLong()).toString();
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,59 @@
+package com.kidtask.benchmarks;
+
+import com.kidtask.data.DataManager;
+import com.kidtask.data.StorageFormat;
+import com.kidtask.data.StorageOptions;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full snapshot load and save at several dataset sizes and in both formats.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+    @Param({"10", "100", "1000"})
+    public int households;
+
+    @Param({"JSON", "BINARY"})
+    public StorageFormat format;
+
+    private TempDataDir dataDir;
+    private StorageOptions options;
+    private DataManager dataManager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = new TempDataDir();
+        options = new StorageOptions().setDataDir(dataDir.getPath()).setFormat(format);
+        dataManager = new DataManager(options);
+        dataManager.loadData();
+        new HouseholdGenerator(42).populate(dataManager, households);
+        dataManager.saveData();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        dataManager.close();
+        dataDir.delete();
+    }
+
+    @Benchmark
+    public DataManager loadData() {
+        DataManager loaded = new DataManager(options);
+        loaded.loadData();
+        loaded.close();
+        return loaded;
+    }
+
+    @Benchmark
+    public void saveData() {
+        dataManager.saveData();
+    }
+}
@@ -0,0 +1,94 @@
+package com.kidtask.benchmarks;
+
+import com.kidtask.data.DataManager;
+import com.kidtask.data.StorageOptions;
+import com.kidtask.models.Child;
+import com.kidtask.models.Task;
+import com.kidtask.models.Wish;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups the panels make on every refresh, against a loaded DataManager.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryBenchmark {
+    @Param({"10", "100", "1000"})
+    public int households;
+
+    @Param({"false", "true"})
+    public boolean archiveEnabled;
+
+    private TempDataDir dataDir;
+    private DataManager dataManager;
+    private HouseholdGenerator.Dataset dataset;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = new TempDataDir();
+        dataManager = new DataManager(new StorageOptions()
+                .setDataDir(dataDir.getPath())
+                .setArchiveEnabled(archiveEnabled));
+        dataManager.loadData();
+        dataset = new HouseholdGenerator(42).populate(dataManager, households);
+        // Build the search indexes outside the measurement
+        dataManager.searchTasks("homework", null, 1);
+        dataManager.searchWishes("book", null, 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        dataManager.close();
+        dataDir.delete();
+    }
+
+    @Benchmark
+    public int getTasksForChild() {
+        List<Task> tasks = dataManager.getTasksForChild(pick(dataset.childNames));
+        // Touch every task, as the task table does
+        int points = 0;
+        for (Task task : tasks) {
+            points += task.getPoints();
+        }
+        return points;
+    }
+
+    @Benchmark
+    public List<Wish> getWishesForChild() {
+        Child child = (Child) dataManager.getUser(pick(dataset.childNames));
+        return dataManager.getWishesForChild(child.getUsername(), child.getLevel());
+    }
+
+    @Benchmark
+    public Task getTaskById() {
+        return dataManager.getTaskById(pick(dataset.taskIds));
+    }
+
+    @Benchmark
+    public List<Task> searchTasks() {
+        return dataManager.searchTasks("math homework", null, 50);
+    }
+
+    @Benchmark
+    public List<Task> searchTasksForChild() {
+        return dataManager.searchTasks("the", pick(dataset.childNames), 50);
+    }
+
+    @Benchmark
+    public List<Wish> searchWishesByPrefix() {
+        return dataManager.searchWishes("ne", null, 50);
+    }
+
+    private static String pick(List<String> keys) {
+        return keys.get(ThreadLocalRandom.current().nextInt(keys.size()));
+    }
+}
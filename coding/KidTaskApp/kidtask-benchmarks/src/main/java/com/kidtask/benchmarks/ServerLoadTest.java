@@ -0,0 +1,208 @@
+package com.kidtask.benchmarks;
+
+import com.kidtask.data.DataManager;
+import com.kidtask.data.StorageOptions;
+import com.kidtask.server.KidTaskServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Throughput and latency load test for the KidTask HTTP API.
+ *
+ * Starts a server in-process on generated households (or targets a running
+ * one with --url), then drives it from concurrent clients with a mix of
+ * reads and task workflows, and reports requests per second and latency
+ * percentiles per operation.
+ *
+ * Usage: ServerLoadTest [--households N] [--clients N] [--threads N]
+ *                       [--warmup SECONDS] [--duration SECONDS] [--url BASE_URL]
+ */
+public class ServerLoadTest {
+    private static final Pattern TASK_ID = Pattern.compile("\"taskId\":\"([^\"]+)\"");
+    private static final Pattern USERNAME = Pattern.compile("\"username\":\"([^\"]+)\"");
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final List<String> children;
+    private final Map<String, List<Long>> latencies = new ConcurrentHashMap<>();
+    private volatile boolean recording;
+
+    ServerLoadTest(String baseUrl, List<String> children) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.baseUrl = baseUrl;
+        this.children = children;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int households = 100;
+        int clients = 32;
+        int threads = Runtime.getRuntime().availableProcessors() * 2;
+        int warmupSeconds = 5;
+        int durationSeconds = 20;
+        String url = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--households": households = Integer.parseInt(args[++i]); break;
+                case "--clients": clients = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--warmup": warmupSeconds = Integer.parseInt(args[++i]); break;
+                case "--duration": durationSeconds = Integer.parseInt(args[++i]); break;
+                case "--url": url = args[++i]; break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+
+        TempDataDir dataDir = null;
+        DataManager dataManager = null;
+        KidTaskServer server = null;
+        if (url == null) {
+            dataDir = new TempDataDir();
+            dataManager = new DataManager(new StorageOptions()
+                    .setDataDir(dataDir.getPath())
+                    .setJournaled(true)
+                    .setArchiveEnabled(true));
+            dataManager.loadData();
+            new HouseholdGenerator(42).populate(dataManager, households);
+            server = new KidTaskServer(dataManager, new InetSocketAddress("127.0.0.1", 0), threads);
+            server.start();
+            url = "http://127.0.0.1:" + server.getPort() + "/api";
+            System.out.println("Started server with " + households + " households and " + threads + " threads");
+        }
+
+        try {
+            ServerLoadTest test = new ServerLoadTest(url, null);
+            List<String> children = test.fetchChildren();
+            if (children.isEmpty()) {
+                System.err.println("The server has no children to run against");
+                return;
+            }
+            new ServerLoadTest(url, children).run(clients, warmupSeconds, durationSeconds);
+        } finally {
+            if (server != null) {
+                server.stop();
+                dataManager.close();
+                dataDir.delete();
+            }
+        }
+    }
+
+    private List<String> fetchChildren() throws IOException, InterruptedException {
+        String body = send(HttpRequest.newBuilder(URI.create(baseUrl + "/users?role=CHILD")).GET().build(), null);
+        List<String> names = new ArrayList<>();
+        Matcher matcher = USERNAME.matcher(body);
+        while (matcher.find()) {
+            names.add(matcher.group(1));
+        }
+        return names;
+    }
+
+    void run(int clients, int warmupSeconds, int durationSeconds) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            futures.add(pool.submit(() -> {
+                while (System.nanoTime() < end) {
+                    recording = System.nanoTime() >= warmupEnd;
+                    runOperation();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        report(durationSeconds);
+    }
+
+    /**
+     * One step of the workload: mostly the reads a dashboard refresh makes,
+     * and sometimes a full task workflow.
+     */
+    private void runOperation() throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String child = children.get(random.nextInt(children.size()));
+        int choice = random.nextInt(100);
+
+        if (choice < 60) {
+            get("listTasks", "/tasks?assignedTo=" + child);
+        } else if (choice < 75) {
+            get("progress", "/progress/" + child);
+        } else if (choice < 90) {
+            get("listWishes", "/wishes?requestedBy=" + child + "&level=3");
+        } else {
+            String body = post("addTask", "/tasks", "{\"title\":\"Load test\",\"description\":\"Generated\","
+                    + "\"dueDate\":\"2025-06-01\",\"points\":10,\"assignedTo\":\"" + child
+                    + "\",\"createdBy\":\"loadtest\"}");
+            Matcher matcher = TASK_ID.matcher(body);
+            if (matcher.find()) {
+                String taskId = matcher.group(1);
+                post("completeTask", "/tasks/" + taskId + "/complete", "");
+                post("approveTask", "/tasks/" + taskId + "/approve", "{\"rating\":4.5}");
+            }
+        }
+    }
+
+    private String get(String operation, String path) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build(), operation);
+    }
+
+    private String post(String operation, String path, String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return send(request, operation);
+    }
+
+    private String send(HttpRequest request, String operation) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        long elapsed = System.nanoTime() - start;
+        if (response.statusCode() >= 400) {
+            throw new IOException(request.method() + " " + request.uri() + " returned "
+                    + response.statusCode() + ": " + response.body());
+        }
+        if (operation != null && recording) {
+            latencies.computeIfAbsent(operation, k -> Collections.synchronizedList(new ArrayList<>())).add(elapsed);
+        }
+        return response.body();
+    }
+
+    private void report(int durationSeconds) {
+        long total = 0;
+        System.out.printf("%-14s %10s %10s %10s %10s %10s%n", "operation", "count", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (Map.Entry<String, List<Long>> entry : new TreeMap<>(latencies).entrySet()) {
+            long[] sorted = entry.getValue().stream().mapToLong(Long::longValue).sorted().toArray();
+            total += sorted.length;
+            System.out.printf("%-14s %10d %10.2f %10.2f %10.2f %10.2f%n", entry.getKey(), sorted.length,
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    sorted[sorted.length - 1] / 1e6);
+        }
+        System.out.printf("Throughput: %.1f requests/s%n", (double) total / durationSeconds);
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
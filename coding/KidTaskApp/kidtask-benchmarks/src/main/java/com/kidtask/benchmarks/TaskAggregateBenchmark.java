@@ -0,0 +1,95 @@
+package com.kidtask.benchmarks;
+
+import com.kidtask.data.DataManager;
+import com.kidtask.data.StorageOptions;
+import com.kidtask.data.TaskStatistics;
+import com.kidtask.models.Task;
+import com.kidtask.models.TaskStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-child task statistics (counts by status, points, average rating)
+ * computed from the column arrays, against the same aggregates computed by
+ * walking the task objects.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskAggregateBenchmark {
+    private static final int STATUS_COUNT = TaskStatus.values().length;
+
+    @Param({"100", "1000"})
+    public int households;
+
+    private TempDataDir dataDir;
+    private DataManager dataManager;
+    private List<Task> tasks;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = new TempDataDir();
+        dataManager = new DataManager(new StorageOptions().setDataDir(dataDir.getPath()));
+        dataManager.loadData();
+        new HouseholdGenerator(42).populate(dataManager, households);
+        tasks = dataManager.getAllTasks();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        dataManager.close();
+        dataDir.delete();
+    }
+
+    @Benchmark
+    public List<TaskStatistics> columns() {
+        return dataManager.getTaskStatistics(null, null, null);
+    }
+
+    @Benchmark
+    public Map<String, double[]> objects() {
+        return scan(null);
+    }
+
+    @Benchmark
+    public List<TaskStatistics> columnsByCreator() {
+        return dataManager.getTaskStatistics("teacher0", null, null);
+    }
+
+    @Benchmark
+    public Map<String, double[]> objectsByCreator() {
+        return scan("teacher0");
+    }
+
+    /**
+     * Per assignee: task counts by status, points, earned points, rating count and rating sum.
+     */
+    private Map<String, double[]> scan(String createdBy) {
+        Map<String, double[]> byChild = new HashMap<>();
+        for (Task task : tasks) {
+            if (createdBy != null && !createdBy.equals(task.getCreatedBy())) {
+                continue;
+            }
+            double[] sums = byChild.computeIfAbsent(task.getAssignedTo(), k -> new double[STATUS_COUNT + 4]);
+            sums[task.getStatus().ordinal()]++;
+            sums[STATUS_COUNT] += task.getPoints();
+            if (task.getStatus() == TaskStatus.APPROVED) {
+                sums[STATUS_COUNT + 1] += task.getPoints();
+            }
+            Double rating = task.getRating();
+            if (rating != null) {
+                sums[STATUS_COUNT + 2]++;
+                sums[STATUS_COUNT + 3] += rating;
+            }
+        }
+        return byChild;
+    }
+}
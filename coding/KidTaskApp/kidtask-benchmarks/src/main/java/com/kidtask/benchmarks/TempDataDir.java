@@ -0,0 +1,28 @@
+package com.kidtask.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Scratch data directory for a benchmark trial.
+ */
+class TempDataDir {
+    private final Path path;
+
+    TempDataDir() throws IOException {
+        this.path = Files.createTempDirectory("kidtask-bench");
+    }
+
+    String getPath() {
+        return path.toString();
+    }
+
+    void delete() throws IOException {
+        try (Stream<Path> files = Files.walk(path)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+}
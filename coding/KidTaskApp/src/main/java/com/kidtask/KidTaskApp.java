@@ -1,16 +1,28 @@
 package com.kidtask;
 
 import com.kidtask.data.DataManager;
+import com.kidtask.data.DeadlineOptions;
+import com.kidtask.data.RecurringTaskGenerator;
+import com.kidtask.data.StorageOptions;
 import com.kidtask.gui.LoginFrame;
+import com.kidtask.server.KidTaskServer;
 
 import javax.swing.*;
+import java.util.Arrays;
 
 /**
  * Main application class for KidTask.
+ * Run with --server (followed by any KidTaskServer options) to start the
+ * headless HTTP API instead of the desktop interface.
  */
 public class KidTaskApp {
     
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--server")) {
+            KidTaskServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        
         // Set look and feel
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -19,8 +31,13 @@ public class KidTaskApp {
         }
         
         // Initialize data manager and load data
-        DataManager dataManager = new DataManager();
+        StorageOptions options = new StorageOptions()
+                .setJournaled(true)
+                .setArchiveEnabled(true);
+        DataManager dataManager = new DataManager(options);
         dataManager.loadData();
+        dataManager.startDeadlines(new DeadlineOptions());
+        new RecurringTaskGenerator(dataManager).start();
         
         // Create and show login frame
         SwingUtilities.invokeLater(() -> {
@@ -0,0 +1,390 @@
+package com.kidtask.data;
+
+import com.kidtask.models.EntityId;
+import com.kidtask.models.Task;
+import com.kidtask.models.TaskStatus;
+import com.kidtask.models.UserRole;
+import com.kidtask.models.Wish;
+import com.kidtask.models.WishStatus;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Compact, versioned binary encoding of the snapshot files.
+ *
+ * Each file starts with a magic number, a format version and a record kind,
+ * followed by records each prefixed with a marker byte and ending with an
+ * end marker. Strings are length-prefixed UTF-8, enums are stored as
+ * ordinals, UUID ids as two longs and dates as epoch values. Values that
+ * do not fit the compact encoding (e.g. a free-form due date) fall back to
+ * a tagged string, so converting from JSON is lossless.
+ */
+class BinarySnapshotFormat implements SnapshotFormat {
+    static final int MAGIC = 0x4B54534E;  // "KTSN"
+    static final int VERSION = 1;
+
+    private static final byte KIND_USERS = 'U';
+    private static final byte KIND_TASKS = 'T';
+    private static final byte KIND_WISHES = 'W';
+
+    private static final byte RECORD = 1;
+    private static final byte END = 0;
+
+    // Tags for values with a compact and a fallback encoding
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_COMPACT = 1;
+    private static final byte TAG_STRING = 2;
+
+    @Override
+    public String getFileExtension() {
+        return ".bin";
+    }
+
+    @Override
+    public void readUsers(InputStream in, Consumer<UserData> consumer) throws IOException {
+        DataInputStream data = openForRead(in, KIND_USERS);
+        if (data == null) {
+            return;
+        }
+        while (data.readByte() == RECORD) {
+            consumer.accept(readUser(data));
+        }
+    }
+
+    @Override
+    public void writeUsers(OutputStream out, Iterable<UserData> users) throws IOException {
+        DataOutputStream data = openForWrite(out, KIND_USERS);
+        for (UserData user : users) {
+            data.writeByte(RECORD);
+            writeUser(data, user);
+        }
+        data.writeByte(END);
+        data.flush();
+    }
+
+    @Override
+    public void readTasks(InputStream in, Consumer<Task> consumer) throws IOException {
+        DataInputStream data = openForRead(in, KIND_TASKS);
+        if (data == null) {
+            return;
+        }
+        while (data.readByte() == RECORD) {
+            consumer.accept(readTask(data));
+        }
+    }
+
+    @Override
+    public void writeTasks(OutputStream out, Iterable<Task> tasks) throws IOException {
+        DataOutputStream data = openForWrite(out, KIND_TASKS);
+        for (Task task : tasks) {
+            data.writeByte(RECORD);
+            writeTask(data, task);
+        }
+        data.writeByte(END);
+        data.flush();
+    }
+
+    @Override
+    public void readWishes(InputStream in, Consumer<Wish> consumer) throws IOException {
+        DataInputStream data = openForRead(in, KIND_WISHES);
+        if (data == null) {
+            return;
+        }
+        while (data.readByte() == RECORD) {
+            consumer.accept(readWish(data));
+        }
+    }
+
+    @Override
+    public void writeWishes(OutputStream out, Iterable<Wish> wishes) throws IOException {
+        DataOutputStream data = openForWrite(out, KIND_WISHES);
+        for (Wish wish : wishes) {
+            data.writeByte(RECORD);
+            writeWish(data, wish);
+        }
+        data.writeByte(END);
+        data.flush();
+    }
+
+    private DataOutputStream openForWrite(OutputStream out, byte kind) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeByte(kind);
+        return data;
+    }
+
+    /**
+     * Check the file header. Returns null for an empty file.
+     */
+    private DataInputStream openForRead(InputStream in, byte kind) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        int magic;
+        try {
+            magic = data.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (magic != MAGIC) {
+            throw new IOException("Not a KidTask binary snapshot");
+        }
+        int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary snapshot version " + version);
+        }
+        if (data.readByte() != kind) {
+            throw new IOException("Unexpected record kind in binary snapshot");
+        }
+        return data;
+    }
+
+    // Record encodings
+    static void writeUser(DataOutput out, UserData user) throws IOException {
+        writeString(out, user.getUsername());
+        writeString(out, user.getPassword());
+        writeEnum(out, parseRole(user.getRole()));
+        writeNullableInt(out, user.getPoints());
+        writeNullableInt(out, user.getLevel());
+
+        List<Double> ratings = user.getRatings();
+        if (ratings == null) {
+            writeVarInt(out, 0);
+        } else {
+            writeVarInt(out, ratings.size() + 1);
+            for (Double rating : ratings) {
+                out.writeDouble(rating);
+            }
+        }
+    }
+
+    static UserData readUser(DataInput in) throws IOException {
+        UserData user = new UserData();
+        user.setUsername(readSymbol(in));
+        user.setPassword(readString(in));
+        UserRole role = readEnum(in, UserRole.values());
+        user.setRole(role != null ? role.name() : null);
+        user.setPoints(readNullableInt(in));
+        user.setLevel(readNullableInt(in));
+
+        int ratingCount = readVarInt(in) - 1;
+        if (ratingCount >= 0) {
+            List<Double> ratings = new ArrayList<>(ratingCount);
+            for (int i = 0; i < ratingCount; i++) {
+                ratings.add(in.readDouble());
+            }
+            user.setRatings(ratings);
+        }
+        return user;
+    }
+
+    static void writeTask(DataOutput out, Task task) throws IOException {
+        writeId(out, task.getId());
+        writeString(out, task.getTitle());
+        writeString(out, task.getDescription());
+        if (task.getDueEpochDay() != Task.NO_DATE) {
+            out.writeByte(TAG_COMPACT);
+            out.writeLong(task.getDueEpochDay());
+        } else {
+            writeTaggedString(out, task.getDueDate());
+        }
+        out.writeInt(task.getPoints());
+        writeString(out, task.getAssignedTo());
+        writeString(out, task.getCreatedBy());
+        writeEnum(out, task.getStatus());
+        if (task.getRating() == null) {
+            out.writeByte(TAG_NULL);
+        } else {
+            out.writeByte(TAG_COMPACT);
+            out.writeDouble(task.getRating());
+        }
+        if (task.getCompletedMillis() != Task.NO_DATE) {
+            out.writeByte(TAG_COMPACT);
+            out.writeLong(Math.floorDiv(task.getCompletedMillis(), 1000L));
+        } else {
+            writeTaggedString(out, task.getCompletedDate());
+        }
+    }
+
+    static Task readTask(DataInput in) throws IOException {
+        EntityId taskId = readId(in);
+        String title = readString(in);
+        String description = readString(in);
+        byte dueTag = in.readByte();
+        long dueEpochDay = dueTag == TAG_COMPACT ? in.readLong() : Task.NO_DATE;
+        String dueDate = dueTag == TAG_COMPACT ? null : readTaggedString(in, dueTag);
+        int points = in.readInt();
+        String assignedTo = readSymbol(in);
+        String createdBy = readSymbol(in);
+        TaskStatus status = readEnum(in, TaskStatus.values());
+        Double rating = in.readByte() == TAG_NULL ? null : in.readDouble();
+        byte completedTag = in.readByte();
+
+        Task task = new Task(taskId, title, description, dueDate, points, assignedTo, createdBy);
+        if (dueEpochDay != Task.NO_DATE) {
+            task.setDueEpochDay(dueEpochDay);
+        }
+        task.setStatus(status);
+        task.setRating(rating);
+        if (completedTag == TAG_COMPACT) {
+            task.setCompletedMillis(in.readLong() * 1000L);
+        } else {
+            task.setCompletedDate(readTaggedString(in, completedTag));
+        }
+        return task;
+    }
+
+    static void writeWish(DataOutput out, Wish wish) throws IOException {
+        writeId(out, wish.getId());
+        writeString(out, wish.getTitle());
+        writeString(out, wish.getDescription());
+        writeString(out, wish.getWishType());
+        out.writeInt(wish.getRequiredLevel());
+        writeString(out, wish.getRequestedBy());
+        writeEnum(out, wish.getStatus());
+        writeString(out, wish.getApprovedBy());
+    }
+
+    static Wish readWish(DataInput in) throws IOException {
+        EntityId wishId = readId(in);
+        String title = readString(in);
+        String description = readString(in);
+        String wishType = readSymbol(in);
+        int requiredLevel = in.readInt();
+        String requestedBy = readSymbol(in);
+        WishStatus status = readEnum(in, WishStatus.values());
+        String approvedBy = readSymbol(in);
+
+        Wish wish = new Wish(wishId, title, description, wishType, requiredLevel, requestedBy);
+        wish.setStatus(status);
+        wish.setApprovedBy(approvedBy);
+        return wish;
+    }
+
+    // Value encodings
+    private static UserRole parseRole(String role) {
+        if (role == null) {
+            return null;
+        }
+        try {
+            return UserRole.valueOf(role.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Length-prefixed UTF-8 string; the stored length is byte count + 1, with 0 meaning null.
+     */
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = readVarInt(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeEnum(DataOutput out, Enum<?> value) throws IOException {
+        out.writeByte(value != null ? value.ordinal() : -1);
+    }
+
+    /**
+     * A string that repeats across records, such as a username, as its canonical instance.
+     */
+    private static String readSymbol(DataInput in) throws IOException {
+        return SymbolTable.SHARED.canonical(readString(in));
+    }
+
+    private static <E extends Enum<E>> E readEnum(DataInput in, E[] values) throws IOException {
+        int ordinal = in.readByte();
+        return ordinal >= 0 ? values[ordinal] : null;
+    }
+
+    private static void writeNullableInt(DataOutput out, Integer value) throws IOException {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else {
+            out.writeByte(TAG_COMPACT);
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readNullableInt(DataInput in) throws IOException {
+        return in.readByte() == TAG_NULL ? null : in.readInt();
+    }
+
+    /**
+     * Ids in canonical UUID form are packed into two longs.
+     */
+    static void writeId(DataOutput out, EntityId id) throws IOException {
+        if (id != null && id.isCompact()) {
+            out.writeByte(TAG_COMPACT);
+            out.writeLong(id.getHigh());
+            out.writeLong(id.getLow());
+        } else {
+            writeTaggedString(out, id != null ? id.toString() : null);
+        }
+    }
+
+    static EntityId readId(DataInput in) throws IOException {
+        byte tag = in.readByte();
+        if (tag == TAG_COMPACT) {
+            return EntityId.of(in.readLong(), in.readLong());
+        }
+        return EntityId.parse(readTaggedString(in, tag));
+    }
+
+    private static void writeTaggedString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else {
+            out.writeByte(TAG_STRING);
+            writeString(out, value);
+        }
+    }
+
+    private static String readTaggedString(DataInput in, byte tag) throws IOException {
+        if (tag == TAG_NULL) {
+            return null;
+        }
+        if (tag != TAG_STRING) {
+            throw new IOException("Corrupt binary snapshot: unknown value tag " + tag);
+        }
+        return readString(in);
+    }
+}
@@ -0,0 +1,42 @@
+package com.kidtask.data;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generation counter of one persisted collection. Every change bumps the
+ * generation; a save takes the change mark by remembering the generation it
+ * copied, so a collection that did not change since is not written again.
+ */
+class ChangeCounter {
+    private static final long NEVER_SAVED = -1;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong savedGeneration = new AtomicLong();
+
+    void changed() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Whether there were changes since the last call, marking them as saved.
+     * Changes must be held off between this call and copying the collection.
+     */
+    boolean takeChanged() {
+        long current = generation.get();
+        return savedGeneration.getAndSet(current) != current;
+    }
+
+    /**
+     * Treat the collection as matching its files, e.g. right after loading them.
+     */
+    void markSaved() {
+        savedGeneration.set(generation.get());
+    }
+
+    /**
+     * Undo {@link #takeChanged()} after the save it was taken for failed.
+     */
+    void restore() {
+        savedGeneration.set(NEVER_SAVED);
+    }
+}
@@ -0,0 +1,86 @@
+package com.kidtask.data;
+
+import com.kidtask.models.TaskStatus;
+
+/**
+ * Immutable snapshot of a child's progress: points, level, rating
+ * statistics and task counts by status, all taken at the same moment.
+ */
+public class ChildProgress {
+    private final String username;
+    private final int points;
+    private final int level;
+    private final int ratingCount;
+    private final double averageRating;
+    private final double minRating;
+    private final double maxRating;
+    private final double recentAverageRating;
+    private final int[] taskCounts;
+    private final int earnedPoints;
+
+    ChildProgress(String username, int points, int level, int ratingCount, double averageRating,
+                  double minRating, double maxRating, double recentAverageRating,
+                  int[] taskCounts, int earnedPoints) {
+        this.username = username;
+        this.points = points;
+        this.level = level;
+        this.ratingCount = ratingCount;
+        this.averageRating = averageRating;
+        this.minRating = minRating;
+        this.maxRating = maxRating;
+        this.recentAverageRating = recentAverageRating;
+        this.taskCounts = taskCounts;
+        this.earnedPoints = earnedPoints;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getRatingCount() {
+        return ratingCount;
+    }
+
+    public double getAverageRating() {
+        return averageRating;
+    }
+
+    public double getMinRating() {
+        return minRating;
+    }
+
+    public double getMaxRating() {
+        return maxRating;
+    }
+
+    public double getRecentAverageRating() {
+        return recentAverageRating;
+    }
+
+    public int getTaskCount(TaskStatus status) {
+        return taskCounts[status.ordinal()];
+    }
+
+    public int getTotalTasks() {
+        int total = 0;
+        for (int count : taskCounts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Points of the child's approved tasks.
+     */
+    public int getEarnedPoints() {
+        return earnedPoints;
+    }
+}
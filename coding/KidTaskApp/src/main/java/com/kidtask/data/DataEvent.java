@@ -0,0 +1,200 @@
+package com.kidtask.data;
+
+import com.kidtask.models.Task;
+import com.kidtask.models.TaskStatus;
+import com.kidtask.models.User;
+import com.kidtask.models.Wish;
+import com.kidtask.models.WishStatus;
+
+import java.util.List;
+
+/**
+ * A change made through the DataManager, delivered to DataEventListeners.
+ */
+public abstract class DataEvent {
+
+    private DataEvent() {
+    }
+
+    /**
+     * Base class of the events about a single task.
+     */
+    public abstract static class TaskEvent extends DataEvent {
+        private final Task task;
+
+        TaskEvent(Task task) {
+            this.task = task;
+        }
+
+        public Task getTask() {
+            return task;
+        }
+    }
+
+    public static final class TaskAdded extends TaskEvent {
+        TaskAdded(Task task) {
+            super(task);
+        }
+    }
+
+    /**
+     * Any change to a task recorded through updateTask.
+     */
+    public static final class TaskUpdated extends TaskEvent {
+        TaskUpdated(Task task) {
+            super(task);
+        }
+    }
+
+    public static final class TaskStatusChanged extends TaskEvent {
+        private final TaskStatus previousStatus;
+
+        TaskStatusChanged(Task task, TaskStatus previousStatus) {
+            super(task);
+            this.previousStatus = previousStatus;
+        }
+
+        public TaskStatus getPreviousStatus() {
+            return previousStatus;
+        }
+    }
+
+    /**
+     * A pending task's deadline is near (see {@link DeadlineOptions#getReminderLead()}).
+     */
+    public static final class TaskDueSoon extends TaskEvent {
+        TaskDueSoon(Task task) {
+            super(task);
+        }
+    }
+
+    /**
+     * A task is still pending at the end of its due day.
+     */
+    public static final class TaskOverdue extends TaskEvent {
+        TaskOverdue(Task task) {
+            super(task);
+        }
+    }
+
+    public static final class TaskRemoved extends TaskEvent {
+        TaskRemoved(Task task) {
+            super(task);
+        }
+    }
+
+    /**
+     * Base class of the events about a single wish.
+     */
+    public abstract static class WishEvent extends DataEvent {
+        private final Wish wish;
+
+        WishEvent(Wish wish) {
+            this.wish = wish;
+        }
+
+        public Wish getWish() {
+            return wish;
+        }
+    }
+
+    public static final class WishAdded extends WishEvent {
+        WishAdded(Wish wish) {
+            super(wish);
+        }
+    }
+
+    /**
+     * Any change to a wish recorded through updateWish.
+     */
+    public static final class WishUpdated extends WishEvent {
+        WishUpdated(Wish wish) {
+            super(wish);
+        }
+    }
+
+    public static final class WishStatusChanged extends WishEvent {
+        private final WishStatus previousStatus;
+
+        WishStatusChanged(Wish wish, WishStatus previousStatus) {
+            super(wish);
+            this.previousStatus = previousStatus;
+        }
+
+        public WishStatus getPreviousStatus() {
+            return previousStatus;
+        }
+    }
+
+    public static final class WishRemoved extends WishEvent {
+        WishRemoved(Wish wish) {
+            super(wish);
+        }
+    }
+
+    /**
+     * A child reached a higher level, making the listed wishes available.
+     * Only sent when the new level unlocks at least one wish.
+     */
+    public static final class WishesUnlocked extends DataEvent {
+        private final String username;
+        private final int previousLevel;
+        private final int level;
+        private final List<Wish> wishes;
+
+        WishesUnlocked(String username, int previousLevel, int level, List<Wish> wishes) {
+            this.username = username;
+            this.previousLevel = previousLevel;
+            this.level = level;
+            this.wishes = wishes;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public int getPreviousLevel() {
+            return previousLevel;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public List<Wish> getWishes() {
+            return wishes;
+        }
+    }
+
+    public static final class UserAdded extends DataEvent {
+        private final User user;
+
+        UserAdded(User user) {
+            this.user = user;
+        }
+
+        public User getUser() {
+            return user;
+        }
+    }
+
+    /**
+     * A child's points, level, ratings or task counts changed. Carries the
+     * child's progress as it was right after the change.
+     */
+    public static final class ChildProgressChanged extends DataEvent {
+        private final ChildProgress progress;
+
+        ChildProgressChanged(ChildProgress progress) {
+            this.progress = progress;
+        }
+
+        public String getUsername() {
+            return progress.getUsername();
+        }
+
+        public ChildProgress getProgress() {
+            return progress;
+        }
+    }
+}
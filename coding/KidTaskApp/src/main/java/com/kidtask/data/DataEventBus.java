@@ -0,0 +1,68 @@
+package com.kidtask.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers DataEvents to listeners on their own executor (e.g. the Swing
+ * event dispatch thread). Events published while a delivery is pending are
+ * batched into it, so a burst of changes costs the listener one call.
+ */
+class DataEventBus {
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    void addListener(DataEventListener listener, Executor executor) {
+        subscriptions.add(new Subscription(listener, executor));
+    }
+
+    void removeListener(DataEventListener listener) {
+        subscriptions.removeIf(subscription -> subscription.listener == listener);
+    }
+
+    boolean hasListeners() {
+        return !subscriptions.isEmpty();
+    }
+
+    void publish(DataEvent event) {
+        for (Subscription subscription : subscriptions) {
+            subscription.enqueue(event);
+        }
+    }
+
+    private static class Subscription {
+        private final DataEventListener listener;
+        private final Executor executor;
+        private final Queue<DataEvent> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Subscription(DataEventListener listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        void enqueue(DataEvent event) {
+            pending.add(event);
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this::deliver);
+            }
+        }
+
+        private void deliver() {
+            // Clear the flag first, so an event added while draining schedules another delivery
+            scheduled.set(false);
+            List<DataEvent> batch = new ArrayList<>();
+            DataEvent event;
+            while ((event = pending.poll()) != null) {
+                batch.add(event);
+            }
+            if (!batch.isEmpty()) {
+                listener.dataChanged(batch);
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.kidtask.data;
+
+import java.util.List;
+
+/**
+ * Receives batches of DataEvents, in the order the changes were made.
+ */
+public interface DataEventListener {
+    void dataChanged(List<DataEvent> events);
+}
@@ -2,74 +2,513 @@ package com.kidtask.data;
 
 import com.kidtask.models.*;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
 
 import java.io.*;
-import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Data manager for handling file persistence of users, tasks, and wishes.
- * Uses JSON format for data storage.
+ * Uses JSON format for data storage. Snapshot files are replaced as one
+ * crash-safe transaction (see {@link SnapshotWriter}).
+ * In journaled mode, mutations are appended to a journal and folded into
+ * the snapshot files by a periodic background compaction.
+ *
+ * In the sharded layout each child's tasks and wishes live in their own
+ * files, loaded the first time the child is accessed and rewritten only
+ * when they changed.
+ *
+ * {@link #startDeadlines} schedules the due dates of pending tasks, sending
+ * reminder and overdue events and optionally expiring tasks left pending.
+ *
+ * Safe for use from several threads. Mutations lock a stripe keyed by the
+ * child (or user) they belong to, so work on different children does not
+ * contend; reads go straight to concurrent indexes.
  */
 public class DataManager {
-    private static final String DATA_DIR = "data";
-    private static final String USERS_FILE = DATA_DIR + "/Users.txt";
-    private static final String TASKS_FILE = DATA_DIR + "/Tasks.txt";
-    private static final String WISHES_FILE = DATA_DIR + "/Wishes.txt";
+    static final String USERS_FILE_NAME = "Users";
+    static final String TASKS_FILE_NAME = "Tasks";
+    static final String WISHES_FILE_NAME = "Wishes";
+    // Templates are few, so they are always stored as JSON
+    static final String TEMPLATES_FILE_NAME = "Templates.txt";
+    private static final String JOURNAL_FILE_NAME = "journal";
+    private static final String ARCHIVE_FILE_NAME = "archive.dat";
+    private static final long COMPACTION_INTERVAL_SECONDS = 30;
+    private static final int COMPACTION_THRESHOLD = 500;
+    private static final int LOCK_STRIPES = 64;
+    private static final int OPTIMISTIC_SCANS = 3;
 
-    private Gson gson;
+    private Gson journalGson;
+    private SnapshotFormat snapshotFormat;
     private Map<String, User> users;
-    private List<Task> tasks;
-    private List<Wish> wishes;
+    private TaskStore tasks;
+    private WishStore wishes;
+    private Map<String, TaskTemplate> templates;
+
+    private final StorageOptions options;
+    private final File usersFile;
+    private final File tasksFile;
+    private final File wishesFile;
+    private final File templatesFile;
+    private final ShardSet shards;
+    private final SnapshotWriter snapshotWriter;
+    private Journal journal;
+    private TaskArchive archive;
+    private ScheduledExecutorService compactor;
+    private volatile TaskDeadlines deadlines;
+
+    // Mutations share the read lock; loading and compaction take the write lock
+    private final ReentrantReadWriteLock persistenceLock = new ReentrantReadWriteLock();
+    private final StripedLock childLocks = new StripedLock(LOCK_STRIPES);
+    // Moves between the active store and the archive, begun and ended, so scans of both can detect one
+    private final AtomicLong archiveMovesStarted = new AtomicLong();
+    private final AtomicLong archiveMovesFinished = new AtomicLong();
+    // Serializes snapshot writers, so an older copy never overwrites a newer one
+    private final Object snapshotLock = new Object();
+    // Serializes template instance generation, so concurrent runs do not both create an instance
+    private final Object generationLock = new Object();
+    private final PersistenceService persistence;
+    private final DataEventBus eventBus = new DataEventBus();
+    private final ProgressTracker progressTracker = new ProgressTracker();
+    // Changes not yet copied for a snapshot, so saves skip untouched files
+    private final ChangeCounter userChanges = new ChangeCounter();
+    private final ChangeCounter taskChanges = new ChangeCounter();
+    private final ChangeCounter wishChanges = new ChangeCounter();
+    private final ChangeCounter templateChanges = new ChangeCounter();
+    // User versions as last recorded, to recognise updates that change nothing
+    private final Map<String, Long> recordedUserVersions = new ConcurrentHashMap<>();
+    // User versions whose changes are marked for the next save, to find changes made through setters
+    private final Map<String, Long> markedUserVersions = new ConcurrentHashMap<>();
 
     public DataManager() {
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
-        this.users = new HashMap<>();
-        this.tasks = new ArrayList<>();
-        this.wishes = new ArrayList<>();
+        this(new StorageOptions());
+    }
+
+    public DataManager(StorageOptions options) {
+        this.options = options;
+        this.journalGson = JsonSnapshotFormat.gsonBuilder().create();
+        this.snapshotFormat = createSnapshotFormat(options.getFormat());
+        this.users = new ConcurrentHashMap<>();
+        this.tasks = new TaskStore();
+        this.wishes = new WishStore();
+        this.templates = new ConcurrentHashMap<>();
+        this.persistence = new PersistenceService(this::saveData);
 
         // Create data directory if it doesn't exist
-        File dataDir = new File(DATA_DIR);
+        File dataDir = new File(options.getDataDir());
         if (!dataDir.exists()) {
             dataDir.mkdirs();
         }
+        String extension = snapshotFormat.getFileExtension();
+        this.usersFile = new File(dataDir, USERS_FILE_NAME + extension);
+        this.tasksFile = new File(dataDir, TASKS_FILE_NAME + extension);
+        this.wishesFile = new File(dataDir, WISHES_FILE_NAME + extension);
+        this.templatesFile = new File(dataDir, TEMPLATES_FILE_NAME);
+        this.shards = options.getLayout() == StorageLayout.SHARDED
+                ? new ShardSet(dataDir, snapshotFormat) : null;
+        this.snapshotWriter = new SnapshotWriter(dataDir);
+
+        if (options.isJournaled()) {
+            this.journal = new Journal(new File(dataDir, JOURNAL_FILE_NAME), options.isJournalSynced());
+        }
+        if (options.isArchiveEnabled()) {
+            this.archive = new TaskArchive(new File(dataDir, ARCHIVE_FILE_NAME));
+        }
+    }
+
+    static SnapshotFormat createSnapshotFormat(StorageFormat format) {
+        switch (format) {
+            case BINARY:
+                return new BinarySnapshotFormat();
+            case JSON:
+            default:
+                return new JsonSnapshotFormat(
+                        JsonSnapshotFormat.gsonBuilder().setPrettyPrinting().create());
+        }
     }
 
     /**
      * Load all data from files.
+     * In journaled mode the journal tail is replayed on top of the snapshot
+     * and background compaction is started.
      */
     public void loadData() {
+        persistenceLock.writeLock().lock();
+        try {
+            loadAll();
+        } finally {
+            persistenceLock.writeLock().unlock();
+        }
+    }
+
+    private void loadAll() {
+        // Recovery also cuts appends no snapshot committed off the archive, so it comes first
+        try {
+            snapshotWriter.recover();
+        } catch (IOException e) {
+            System.err.println("Error recovering interrupted save: " + e.getMessage());
+        }
+
+        if (archive != null) {
+            try {
+                archive.open();
+            } catch (IOException e) {
+                System.err.println("Error opening task archive: " + e.getMessage());
+                archive = null;
+            }
+        }
+        if (archive != null && archive.isWorthCompacting()) {
+            compactArchive();
+        }
+
         loadUsers();
-        loadTasks();
-        loadWishes();
+        loadTemplates();
+        tasks.clear();
+        wishes.clear();
+        if (shards == null) {
+            loadTasks();
+            loadWishes();
+        } else {
+            shards.clear();
+            if (tasksFile.exists() && !shards.getChildrenDir().exists()) {
+                System.err.println("Found flat data files in a sharded data directory; run ShardMigrator to move them into shards");
+            }
+        }
+        userChanges.markSaved();
+        taskChanges.markSaved();
+        wishChanges.markSaved();
+        templateChanges.markSaved();
+
+        if (journal != null) {
+            try {
+                journal.replay(this::applyJournalRecord);
+            } catch (IOException e) {
+                System.err.println("Error replaying journal: " + e.getMessage());
+            }
+            startCompactor();
+        }
+
+        if (archive != null) {
+            archiveTerminalTasks(new ArrayList<>(tasks.all()));
+        }
+        rebuildProgress();
+        if (deadlines != null) {
+            deadlines.clear();
+            trackDeadlines(tasks.getByStatus(TaskStatus.PENDING));
+        }
     }
 
     /**
-     * Save all data to files.
+     * Save the files whose data changed since the last save; in the sharded
+     * layout only the changed shards. Does nothing when nothing changed.
+     * In journaled mode every mutation is already in the journal, so this
+     * only rewrites the snapshot once enough records have piled up.
+     *
+     * Changes made through the DataManager are always saved. Changes made
+     * directly through the setters of a stored task, wish or user (e.g.
+     * {@code Task.setStatus}, {@code Wish.approve}, {@code Child.addPoints})
+     * are found by comparing versions and saved as well, but they are not
+     * journaled, published as events or counted in the progress, and
+     * archived tasks are copies; call {@link #updateTask}, {@link #updateWish}
+     * or {@link #updateUser} after changing an object to record the change fully.
      */
     public void saveData() {
-        saveUsers();
-        saveTasks();
-        saveWishes();
+        if (journal != null) {
+            if (journal.getRecordCount() >= COMPACTION_THRESHOLD) {
+                compact();
+            }
+            return;
+        }
+        synchronized (snapshotLock) {
+            writeSnapshot(copySnapshot());
+        }
+    }
+
+    /**
+     * Save all data on the background writer thread. Back-to-back requests are
+     * coalesced into a single save.
+     */
+    public CompletableFuture<Void> saveDataAsync() {
+        return persistence.requestSave();
+    }
+
+    /**
+     * Block until every save requested with {@link #saveDataAsync()} has been written.
+     */
+    public void flush() {
+        persistence.flush();
+    }
+
+    /**
+     * Fold the journal into the snapshot files.
+     * Mutations are only held off while the data is copied and the journal
+     * set aside, not while the files are written.
+     */
+    public void compact() {
+        synchronized (snapshotLock) {
+            SnapshotCopy copy = null;
+            persistenceLock.writeLock().lock();
+            try {
+                copy = copySnapshot();
+                // Every record left in the live journal is now newer than the copy
+                if (journal != null) {
+                    journal.rotate();
+                }
+            } catch (IOException e) {
+                System.err.println("Error rotating journal: " + e.getMessage());
+                restoreDirty(copy);
+                return;
+            } finally {
+                persistenceLock.writeLock().unlock();
+            }
+
+            // Until the snapshot is written, the rotated journal still holds these changes
+            if (writeSnapshot(copy) && journal != null) {
+                try {
+                    journal.discardRotated();
+                } catch (IOException e) {
+                    System.err.println("Error discarding rotated journal: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop dead frames from the archive and commit its new length before anything is appended.
+     */
+    private void compactArchive() {
+        try {
+            archive.compact();
+            snapshotWriter.commit(Collections.emptyMap(), archiveLength(archive.length()));
+        } catch (IOException e) {
+            System.err.println("Error compacting task archive: " + e.getMessage());
+        }
+    }
+
+    private Map<File, Long> archiveLength(long length) {
+        return archive != null ? Collections.singletonMap(archive.getFile(), length) : Collections.emptyMap();
+    }
+
+    /**
+     * Finish pending saves, compact any outstanding journal records and stop background work.
+     */
+    public void close() {
+        if (deadlines != null) {
+            deadlines.shutdown();
+        }
+        persistence.shutdown();
+        if (compactor != null) {
+            compactor.shutdown();
+            compactor = null;
+        }
+        if (journal != null) {
+            compact();
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Error closing journal: " + e.getMessage());
+            }
+        }
+        snapshotWriter.shutdown();
+        if (archive != null) {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                System.err.println("Error closing task archive: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Data copied for a snapshot write. Only the collections, or in the
+     * sharded layout the shards, changed since the previous copy are included.
+     */
+    private static class SnapshotCopy {
+        private List<UserData> users;
+        private List<Task> tasks;
+        private List<Wish> wishes;
+        private List<TaskTemplate> templates;
+        // Archive frames up to here belong to the copied data
+        private long archiveLength;
+        private final Map<String, List<Task>> shardTasks = new HashMap<>();
+        private final Map<String, List<Wish>> shardWishes = new HashMap<>();
+    }
+
+    private SnapshotCopy copySnapshot() {
+        SnapshotCopy copy = new SnapshotCopy();
+        // Hold mutations off, so none falls between taking a change mark and the copy
+        persistenceLock.writeLock().lock();
+        try {
+            if (archive != null) {
+                copy.archiveLength = archive.length();
+            }
+            recordSetterChanges();
+            if (userChanges.takeChanged()) {
+                copy.users = copyUserData();
+            }
+            if (templateChanges.takeChanged()) {
+                copy.templates = new ArrayList<>(templates.values());
+            }
+            if (shards == null) {
+                if (taskChanges.takeChanged()) {
+                    copy.tasks = new ArrayList<>(tasks.all());
+                }
+                if (wishChanges.takeChanged()) {
+                    copy.wishes = new ArrayList<>(wishes.all());
+                }
+                return copy;
+            }
+            for (String username : shards.takeDirty()) {
+                copy.shardTasks.put(username, new ArrayList<>(tasks.getByAssignee(username)));
+                copy.shardWishes.put(username, wishes.getByRequester(username));
+            }
+        } finally {
+            persistenceLock.writeLock().unlock();
+        }
+        return copy;
+    }
+
+    /**
+     * Write the copied files as one transaction. Returns false, with the
+     * previous files left in place, if the write failed.
+     */
+    private boolean writeSnapshot(SnapshotCopy copy) {
+        Map<File, SnapshotWriter.Content> files = new LinkedHashMap<>();
+        if (copy.users != null) {
+            files.put(usersFile, out -> snapshotFormat.writeUsers(out, copy.users));
+        }
+        if (copy.tasks != null) {
+            files.put(tasksFile, out -> snapshotFormat.writeTasks(out, copy.tasks));
+        }
+        if (copy.wishes != null) {
+            files.put(wishesFile, out -> snapshotFormat.writeWishes(out, copy.wishes));
+        }
+        if (copy.templates != null) {
+            files.put(templatesFile, out -> writeTemplates(out, copy.templates));
+        }
+        if (shards != null) {
+            for (Map.Entry<String, List<Task>> shard : copy.shardTasks.entrySet()) {
+                String username = shard.getKey();
+                List<Wish> shardWishes = copy.shardWishes.get(username);
+                files.put(shards.tasksFile(username), out -> snapshotFormat.writeTasks(out, shard.getValue()));
+                files.put(shards.wishesFile(username), out -> snapshotFormat.writeWishes(out, shardWishes));
+            }
+        }
+
+        try {
+            snapshotWriter.commit(files, archiveLength(copy.archiveLength));
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error saving data: " + e.getMessage());
+            restoreDirty(copy);
+            return false;
+        }
+    }
+
+    // Let the next save retry what a failed one copied
+    private void restoreDirty(SnapshotCopy copy) {
+        if (copy.users != null) {
+            userChanges.restore();
+        }
+        if (copy.tasks != null) {
+            taskChanges.restore();
+        }
+        if (copy.wishes != null) {
+            wishChanges.restore();
+        }
+        if (copy.templates != null) {
+            templateChanges.restore();
+        }
+        for (String username : copy.shardTasks.keySet()) {
+            shards.markDirty(username);
+        }
+    }
+
+    private List<UserData> copyUserData() {
+        List<UserData> userDataList = new ArrayList<>();
+        for (User user : users.values()) {
+            userDataList.add(createUserDataFromUser(user));
+        }
+        return userDataList;
+    }
+
+    private void startCompactor() {
+        if (compactor != null) {
+            return;
+        }
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kidtask-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(() -> {
+            if (journal.getRecordCount() > 0) {
+                compact();
+            }
+        }, COMPACTION_INTERVAL_SECONDS, COMPACTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
     }
 
     // User management
     public void addUser(User user) {
-        users.put(user.getUsername(), user);
+        withLock(user.getUsername(), () -> {
+            users.put(user.getUsername(), user);
+            journalUser(user);
+        });
+        eventBus.publish(new DataEvent.UserAdded(user));
+    }
+
+    /**
+     * Record changes made to an existing user. Does nothing if the user did not change.
+     */
+    public void updateUser(User user) {
+        Long recorded = recordedUserVersions.get(user.getUsername());
+        if (recorded != null && recorded == user.getVersion()) {
+            return;
+        }
+        withLock(user.getUsername(), () -> journalUser(user));
+        publishProgress(user.getUsername());
     }
 
     public User getUser(String username) {
         return users.get(username);
     }
 
+    /**
+     * Check a user's password. A child's data is loaded here when it is not loaded yet.
+     */
     public User authenticateUser(String username, String password) {
         User user = users.get(username);
         if (user != null && user.authenticate(password)) {
+            if (user instanceof Child) {
+                loadShard(username);
+            }
             return user;
         }
         return null;
@@ -89,265 +528,1207 @@ public class DataManager {
         return children;
     }
 
+    /**
+     * Read a child's state while holding the child's lock, so that e.g. points
+     * and ratings are never seen half-way through an approval.
+     */
+    public <T> T readChild(Child child, Function<Child, T> reader) {
+        ReentrantLock stripe = childLocks.get(child.getUsername());
+        stripe.lock();
+        try {
+            return reader.apply(child);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Progress of a child, or null if there is no such child.
+     * Reads maintained counters, so the cost does not depend on the number of tasks.
+     */
+    public ChildProgress getChildProgress(String username) {
+        User user = users.get(username);
+        if (!(user instanceof Child)) {
+            return null;
+        }
+        loadShard(username);
+        return readChild((Child) user, progressTracker::snapshot);
+    }
+
+    public List<ChildProgress> getAllChildProgress() {
+        loadAllShards();
+        List<ChildProgress> progress = new ArrayList<>();
+        for (Child child : getAllChildren()) {
+            progress.add(readChild(child, progressTracker::snapshot));
+        }
+        return progress;
+    }
+
+    /**
+     * Task statistics per child, over the tasks (archived ones included)
+     * created by {@code createdBy}, or by anyone when null, and due from
+     * {@code fromEpochDay} (inclusive) to {@code toEpochDay} (exclusive);
+     * a null bound is open, and any bound leaves out tasks without a due date.
+     * Children without a matching task are left out.
+     *
+     * Scans column arrays rather than the tasks, so it is cheap even for
+     * filters the progress counters do not cover. The scans do not block
+     * writers: a task moving into or out of the archive in between would be
+     * counted twice or not at all, so a scan that overlaps a move is repeated,
+     * and only after {@value #OPTIMISTIC_SCANS} such scans does it run under
+     * the write lock.
+     */
+    public List<TaskStatistics> getTaskStatistics(String createdBy, Long fromEpochDay, Long toEpochDay) {
+        loadAllShards();
+        for (int attempt = 0; attempt < OPTIMISTIC_SCANS; attempt++) {
+            long moves = archiveMovesFinished.get();
+            if (archiveMovesStarted.get() != moves) {
+                Thread.yield();
+                continue;
+            }
+            Map<String, TaskStatistics> statistics = aggregateTasks(createdBy, fromEpochDay, toEpochDay);
+            if (archiveMovesStarted.get() == moves) {
+                return new ArrayList<>(statistics.values());
+            }
+        }
+        persistenceLock.writeLock().lock();
+        try {
+            return new ArrayList<>(aggregateTasks(createdBy, fromEpochDay, toEpochDay).values());
+        } finally {
+            persistenceLock.writeLock().unlock();
+        }
+    }
+
+    private Map<String, TaskStatistics> aggregateTasks(String createdBy, Long fromEpochDay, Long toEpochDay) {
+        Map<String, TaskStatistics> statistics = new TreeMap<>();
+        tasks.aggregate(createdBy, fromEpochDay, toEpochDay, statistics);
+        if (archive != null) {
+            archive.aggregate(createdBy, fromEpochDay, toEpochDay, statistics);
+        }
+        return statistics;
+    }
+
     // Task management
     public void addTask(Task task) {
-        tasks.add(task);
+        String previousAssignee = storeTask(task);
+        eventBus.publish(new DataEvent.TaskAdded(task));
+        publishProgress(task.getAssignedTo());
+        recountPreviousAssignee(task, previousAssignee);
+    }
+
+    /**
+     * Add many tasks at once. Each child's tasks are stored under a single
+     * acquisition of the child's lock, the journal records of the whole batch
+     * are written out together, and progress is published once per child.
+     * Save afterwards as usual; one save covers the whole batch.
+     */
+    public void addTasks(Collection<Task> newTasks) {
+        Map<String, List<Task>> tasksByAssignee = new LinkedHashMap<>();
+        for (Task task : newTasks) {
+            tasksByAssignee.computeIfAbsent(task.getAssignedTo(), k -> new ArrayList<>()).add(task);
+        }
+        if (journal != null) {
+            journal.beginBatch();
+        }
+        try {
+            for (Map.Entry<String, List<Task>> group : tasksByAssignee.entrySet()) {
+                List<String> previousAssignees = computeWithLock(group.getKey(), () -> {
+                    List<String> previous = new ArrayList<>();
+                    for (Task task : group.getValue()) {
+                        previous.add(storeTaskLocked(task));
+                    }
+                    return previous;
+                });
+                for (Task task : group.getValue()) {
+                    eventBus.publish(new DataEvent.TaskAdded(task));
+                }
+                publishProgress(group.getKey());
+                for (int i = 0; i < previousAssignees.size(); i++) {
+                    recountPreviousAssignee(group.getValue().get(i), previousAssignees.get(i));
+                }
+            }
+        } finally {
+            if (journal != null) {
+                try {
+                    journal.endBatch();
+                } catch (IOException e) {
+                    System.err.println("Error writing journal: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Assign the same task to each of the given children, such as a whole
+     * class, as one batch (see {@link #addTasks}). Each child gets its own
+     * task with a new id; duplicate usernames are assigned once. Returns the
+     * new tasks in the order of the usernames.
+     */
+    public List<Task> assignTask(String title, String description, String dueDate, int points,
+                                 String createdBy, Collection<String> childUsernames) {
+        List<Task> assigned = new ArrayList<>(childUsernames.size());
+        for (String child : new LinkedHashSet<>(childUsernames)) {
+            assigned.add(new Task(EntityId.generate(), title, description, dueDate,
+                    points, child, createdBy));
+        }
+        addTasks(assigned);
+        return assigned;
     }
 
     public void removeTask(Task task) {
-        tasks.remove(task);
+        removeTask(task.getId());
     }
 
     public void removeTask(String taskId) {
-        tasks.removeIf(task -> task.getTaskId().equals(taskId));
+        removeTask(EntityId.parse(taskId));
     }
 
-    public List<Task> getAllTasks() {
-        return new ArrayList<>(tasks);
+    public void removeTask(EntityId taskId) {
+        Task task = getTaskById(taskId);
+        if (task == null) {
+            return;
+        }
+        boolean removed = computeWithLock(task.getAssignedTo(), () -> {
+            if (tasks.remove(taskId) != null || removeArchivedTask(taskId)) {
+                if (deadlines != null) {
+                    deadlines.untrack(taskId);
+                }
+                journalRemoval(Journal.REMOVE_TASK, taskId, task.getAssignedTo());
+                progressTracker.count(task.getAssignedTo(), task.getStatus(), task.getPoints(), -1);
+                return true;
+            }
+            return false;
+        });
+        if (removed) {
+            eventBus.publish(new DataEvent.TaskRemoved(task));
+            publishProgress(task.getAssignedTo());
+        }
+    }
+
+    /**
+     * Record changes made to an existing task, re-indexing it.
+     * Does nothing if the task did not change since it was stored.
+     */
+    public void updateTask(Task task) {
+        if (tasks.isCurrent(task)) {
+            return;
+        }
+        String previousAssignee = storeTask(task);
+        eventBus.publish(new DataEvent.TaskUpdated(task));
+        publishProgress(task.getAssignedTo());
+        recountPreviousAssignee(task, previousAssignee);
     }
 
-    public List<Task> getTasksForChild(String childUsername) {
-        List<Task> childTasks = new ArrayList<>();
-        for (Task task : tasks) {
-            if (task.getAssignedTo().equals(childUsername)) {
-                childTasks.add(task);
+    /**
+     * Journal and file a new or changed task and update the progress counters.
+     * Returns the assignee the task was filed under before, or null if it is new.
+     */
+    private String storeTask(Task task) {
+        return computeWithLock(task.getAssignedTo(), () -> storeTaskLocked(task));
+    }
+
+    // Must be called under the assignee's lock
+    private String storeTaskLocked(Task task) {
+        String previousAssignee = filedAssignee(task.getId());
+        if (previousAssignee != null && !previousAssignee.equals(task.getAssignedTo())) {
+            // Take the task out of the old assignee's shard
+            journalRemoval(Journal.REMOVE_TASK, task.getId(), previousAssignee);
+        }
+        journalTask(task);
+        fileTask(task);
+        if (previousAssignee == null) {
+            progressTracker.count(task.getAssignedTo(), task.getStatus(), task.getPoints(), 1);
+        } else {
+            // The previous status and points of a changed task are not known
+            recountProgress(task.getAssignedTo());
+        }
+        return previousAssignee;
+    }
+
+    private void recountPreviousAssignee(Task task, String previousAssignee) {
+        if (previousAssignee != null && !previousAssignee.equals(task.getAssignedTo())) {
+            withLock(previousAssignee, () -> recountProgress(previousAssignee));
+            publishProgress(previousAssignee);
+        }
+    }
+
+    public boolean completeTask(Task task) {
+        boolean completed = computeWithLock(task.getAssignedTo(), () -> {
+            if (task.getStatus() != TaskStatus.PENDING) {
+                return false;
             }
+            task.markCompleted();
+            journalTask(task);
+            fileTask(task);
+            progressTracker.move(task.getAssignedTo(), TaskStatus.PENDING, task.getStatus(), task.getPoints());
+            return true;
+        });
+        if (completed) {
+            eventBus.publish(new DataEvent.TaskStatusChanged(task, TaskStatus.PENDING));
+            publishProgress(task.getAssignedTo());
         }
-        return childTasks;
+        return completed;
     }
 
-    public Task getTaskById(String taskId) {
-        for (Task task : tasks) {
-            if (task.getTaskId().equals(taskId)) {
-                return task;
+    /**
+     * Approve a completed task and credit its points and rating to the child.
+     * Runs under the child's lock, so the task status, points and ratings
+     * change together.
+     */
+    public boolean approveTask(Task task, double rating) {
+        // The child's level before and after the rating, if it changed
+        int[] levels = new int[2];
+        boolean approved = computeWithLock(task.getAssignedTo(), () -> {
+            if (task.getStatus() != TaskStatus.COMPLETED) {
+                return false;
+            }
+            task.approve(rating);
+            journalTask(task);
+            fileTask(task);
+            progressTracker.move(task.getAssignedTo(), TaskStatus.COMPLETED, task.getStatus(), task.getPoints());
+
+            User childUser = users.get(task.getAssignedTo());
+            if (childUser instanceof Child) {
+                Child child = (Child) childUser;
+                levels[0] = child.getLevel();
+                child.recordApproval(task.getPoints(), rating);
+                levels[1] = child.getLevel();
+                journalUser(child);
+            }
+            return true;
+        });
+        if (approved) {
+            eventBus.publish(new DataEvent.TaskStatusChanged(task, TaskStatus.COMPLETED));
+            publishProgress(task.getAssignedTo());
+            if (levels[1] > levels[0]) {
+                publishUnlockedWishes(task.getAssignedTo(), levels[0], levels[1]);
             }
         }
-        return null;
+        return approved;
     }
 
-    // Wish management
-    public void addWish(Wish wish) {
-        wishes.add(wish);
+    public boolean rejectTask(Task task) {
+        boolean rejected = computeWithLock(task.getAssignedTo(), () -> {
+            if (task.getStatus() != TaskStatus.COMPLETED) {
+                return false;
+            }
+            task.reject();
+            journalTask(task);
+            fileTask(task);
+            progressTracker.move(task.getAssignedTo(), TaskStatus.COMPLETED, task.getStatus(), task.getPoints());
+            return true;
+        });
+        if (rejected) {
+            eventBus.publish(new DataEvent.TaskStatusChanged(task, TaskStatus.COMPLETED));
+            publishProgress(task.getAssignedTo());
+        }
+        return rejected;
     }
 
-    public void removeWish(Wish wish) {
-        wishes.remove(wish);
+    /**
+     * Close a task that was never done. Normally called by the deadline
+     * scheduler when {@link DeadlineOptions#getExpireAfter()} is set.
+     */
+    public boolean expireTask(Task task) {
+        boolean expired = computeWithLock(task.getAssignedTo(), () -> {
+            if (task.getStatus() != TaskStatus.PENDING) {
+                return false;
+            }
+            task.expire();
+            journalTask(task);
+            fileTask(task);
+            progressTracker.move(task.getAssignedTo(), TaskStatus.PENDING, task.getStatus(), task.getPoints());
+            return true;
+        });
+        if (expired) {
+            eventBus.publish(new DataEvent.TaskStatusChanged(task, TaskStatus.PENDING));
+            publishProgress(task.getAssignedTo());
+        }
+        return expired;
     }
 
-    public void removeWish(String wishId) {
-        wishes.removeIf(wish -> wish.getWishId().equals(wishId));
+    /**
+     * All tasks. Archived tasks, if any, come last and are decoded as they are accessed.
+     */
+    public TaskList getAllTasks() {
+        loadAllShards();
+        List<Task> activeTasks = new ArrayList<>(tasks.all());
+        return new TaskList(activeTasks, archive != null ? archive.all() : null);
     }
 
-    public List<Wish> getAllWishes() {
-        return new ArrayList<>(wishes);
+    /**
+     * Tasks assigned to a child. Archived tasks, if any, come last and are decoded as they are accessed.
+     */
+    public TaskList getTasksForChild(String childUsername) {
+        loadShard(childUsername);
+        List<Task> activeTasks = new ArrayList<>(tasks.getByAssignee(childUsername));
+        return new TaskList(activeTasks, archive != null ? archive.getByAssignee(childUsername) : null);
     }
 
-    public List<Wish> getWishesForChild(String childUsername, int childLevel) {
-        List<Wish> availableWishes = new ArrayList<>();
-        for (Wish wish : wishes) {
-            if (wish.getRequestedBy().equals(childUsername) &&
-                wish.isAvailableForLevel(childLevel)) {
-                availableWishes.add(wish);
+    public List<Task> getTasksCreatedBy(String username) {
+        loadAllShards();
+        List<Task> createdTasks = new ArrayList<>(tasks.getByCreator(username));
+        if (archive != null) {
+            for (Task task : archive.all()) {
+                if (username.equals(task.getCreatedBy())) {
+                    createdTasks.add(task);
+                }
             }
         }
-        return availableWishes;
+        return createdTasks;
     }
 
-    public Wish getWishById(String wishId) {
-        for (Wish wish : wishes) {
-            if (wish.getWishId().equals(wishId)) {
-                return wish;
+    public TaskList getTasksByStatus(TaskStatus status) {
+        loadAllShards();
+        List<Task> statusTasks = new ArrayList<>(tasks.getByStatus(status));
+        return new TaskList(statusTasks, archive != null ? archive.getByStatus(status) : null);
+    }
+
+    /**
+     * Pending tasks due from {@code from} to {@code to}, both inclusive, by due date.
+     */
+    public List<Task> getTasksDueBetween(LocalDate from, LocalDate to) {
+        loadAllShards();
+        return tasks.getPendingDueBetween(from.toEpochDay(), to.toEpochDay() + 1);
+    }
+
+    public List<Task> getTasksDueToday() {
+        LocalDate today = LocalDate.now();
+        return getTasksDueBetween(today, today);
+    }
+
+    /**
+     * Pending tasks due from today through Sunday.
+     */
+    public List<Task> getTasksDueThisWeek() {
+        LocalDate today = LocalDate.now();
+        return getTasksDueBetween(today, today.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY)));
+    }
+
+    /**
+     * Pending tasks whose due date has passed, oldest first.
+     */
+    public List<Task> getOverdueTasks() {
+        loadAllShards();
+        return tasks.getPendingDueBetween(null, LocalDate.now().toEpochDay());
+    }
+
+    public Task getTaskById(String taskId) {
+        return getTaskById(EntityId.parse(taskId));
+    }
+
+    /**
+     * The task with the given id, or null if there is none or the id is null.
+     */
+    public Task getTaskById(EntityId taskId) {
+        if (taskId == null) {
+            return null;
+        }
+        Task task = tasks.get(taskId);
+        if (task == null && archive != null) {
+            task = archive.get(taskId);
+        }
+        if (task == null && shards != null && !shards.isAllLoaded()) {
+            loadAllShards();
+            task = tasks.get(taskId);
+        }
+        return task;
+    }
+
+    /**
+     * Search task titles and descriptions; with an assignee, only that
+     * child's tasks. A task matches when it contains every word of the
+     * query, and the last word also matches as the start of a word, so
+     * results can follow the user's typing. Case and accents are ignored,
+     * Turkish dotted and dotless i included. Returns at most {@code limit}
+     * tasks, best matches first.
+     *
+     * The first search builds the index; after that it is kept up to date
+     * as tasks change.
+     */
+    public List<Task> searchTasks(String query, String assignedTo, int limit) {
+        if (assignedTo != null) {
+            loadShard(assignedTo);
+        } else {
+            loadAllShards();
+        }
+        List<TextIndex.Hit<Task>> activeHits = tasks.search(query, assignedTo, limit);
+        List<TextIndex.Hit<EntityId>> archivedHits = archive != null
+                ? archive.search(query, assignedTo, limit) : Collections.emptyList();
+
+        // Merge the two ranked lists
+        List<Task> found = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (found.size() < limit && (i < activeHits.size() || j < archivedHits.size())) {
+            if (j == archivedHits.size()
+                    || (i < activeHits.size() && activeHits.get(i).getScore() >= archivedHits.get(j).getScore())) {
+                found.add(activeHits.get(i++).getValue());
+            } else {
+                Task task = archive.get(archivedHits.get(j++).getValue());
+                if (task != null) {
+                    found.add(task);
+                }
             }
         }
-        return null;
+        return found;
     }
 
-    // File I/O methods
-    private void loadUsers() {
+    /**
+     * Put a task in the active store, or in the archive once it reaches a terminal state.
+     */
+    private void fileTask(Task task) {
+        if (deadlines != null) {
+            deadlines.track(task);
+        }
+        if (archive == null) {
+            tasks.put(task);
+            return;
+        }
+
+        boolean archivable = TaskArchive.isArchivable(task);
+        if (!archivable && !archive.contains(task.getId())) {
+            tasks.put(task);
+            return;
+        }
+        archiveMovesStarted.incrementAndGet();
         try {
-            File file = new File(USERS_FILE);
-            if (!file.exists()) {
-                return;
+            if (archivable) {
+                archive.append(task);
+                tasks.remove(task.getId());
+            } else {
+                archive.remove(task.getId());
+                tasks.put(task);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing task archive: " + e.getMessage());
+            tasks.put(task);
+        } finally {
+            archiveMovesFinished.incrementAndGet();
+        }
+    }
+
+    private boolean removeArchivedTask(EntityId taskId) {
+        if (archive == null) {
+            return false;
+        }
+        try {
+            return archive.remove(taskId);
+        } catch (IOException e) {
+            System.err.println("Error writing task archive: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Move terminal tasks loaded from the snapshot or journal into the archive.
+     * The archive only ever receives terminal tasks, so where a task is in both
+     * the archived copy is the newer one.
+     */
+    private void archiveTerminalTasks(List<Task> loadedTasks) {
+        for (Task task : loadedTasks) {
+            if (archive.contains(task.getId())) {
+                tasks.remove(task.getId());
+                taskChanged(task.getAssignedTo());
+            } else if (TaskArchive.isArchivable(task)) {
+                fileTask(task);
+                taskChanged(task.getAssignedTo());
             }
+        }
+    }
+
+    // Recurring task templates
+    /**
+     * Add or replace a template. Its instances are created by
+     * {@link #generateRecurringTasks}, usually through a RecurringTaskGenerator.
+     */
+    public void addTemplate(TaskTemplate template) {
+        withLock(template.getCreatedBy(), () -> {
+            templates.put(template.getTemplateId(), template);
+            journalTemplate(template);
+        });
+    }
 
-            BufferedReader reader = new BufferedReader(new FileReader(file));
-            StringBuilder json = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                json.append(line);
+    /**
+     * Record changes made to a template. Instances already created are left as they are.
+     */
+    public void updateTemplate(TaskTemplate template) {
+        addTemplate(template);
+    }
+
+    /**
+     * Remove a template. Instances already created are left as they are.
+     */
+    public void removeTemplate(String templateId) {
+        TaskTemplate template = templates.get(templateId);
+        if (template == null) {
+            return;
+        }
+        withLock(template.getCreatedBy(), () -> {
+            if (templates.remove(templateId) != null) {
+                journalRecord(Journal.REMOVE_TEMPLATE, () -> new JsonPrimitive(templateId));
+                templateChanges.changed();
             }
-            reader.close();
+        });
+    }
 
-            if (json.length() > 0) {
-                Type userListType = new TypeToken<List<UserData>>(){}.getType();
-                List<UserData> userDataList = gson.fromJson(json.toString(), userListType);
+    public TaskTemplate getTemplateById(String templateId) {
+        return templates.get(templateId);
+    }
+
+    public List<TaskTemplate> getAllTemplates() {
+        return new ArrayList<>(templates.values());
+    }
+
+    public List<TaskTemplate> getTemplatesCreatedBy(String username) {
+        List<TaskTemplate> created = new ArrayList<>();
+        for (TaskTemplate template : templates.values()) {
+            if (username.equals(template.getCreatedBy())) {
+                created.add(template);
+            }
+        }
+        return created;
+    }
 
-                for (UserData userData : userDataList) {
-                    User user = createUserFromData(userData);
-                    if (user != null) {
-                        users.put(user.getUsername(), user);
+    /**
+     * Create the instances of every template that fall from {@code from}
+     * through {@code through} and were not created before, in one batch.
+     * Occurrences before {@code from} that were never created are skipped.
+     * Instance ids are derived from the template, child and date, so an
+     * instance is never created twice. Returns the new tasks.
+     */
+    public List<Task> generateRecurringTasks(LocalDate from, LocalDate through) {
+        synchronized (generationLock) {
+            List<Task> generated = new ArrayList<>();
+            List<TaskTemplate> advanced = new ArrayList<>();
+            for (TaskTemplate template : templates.values()) {
+                List<LocalDate> dates = template.pendingOccurrences(from, through);
+                for (String assignee : template.getAssignees()) {
+                    loadShard(assignee);
+                    for (LocalDate date : dates) {
+                        EntityId taskId = instanceId(template, assignee, date);
+                        if (filedAssignee(taskId) == null) {
+                            generated.add(new Task(taskId, template.getTitle(), template.getDescription(),
+                                    date.toString(), template.getPoints(), assignee, template.getCreatedBy()));
+                        }
                     }
                 }
+                String previousThrough = template.getGeneratedThrough();
+                if (previousThrough == null || LocalDate.parse(previousThrough).isBefore(through)) {
+                    advanced.add(template);
+                }
             }
-        } catch (IOException e) {
-            System.err.println("Error loading users: " + e.getMessage());
+
+            addTasks(generated);
+            // Only now, so a crash in between creates the same instances again
+            for (TaskTemplate template : advanced) {
+                withLock(template.getCreatedBy(), () -> {
+                    template.setGeneratedThrough(through.toString());
+                    journalTemplate(template);
+                });
+            }
+            return generated;
         }
     }
 
-    private void saveUsers() {
-        try {
-            List<UserData> userDataList = new ArrayList<>();
-            for (User user : users.values()) {
-                UserData userData = createUserDataFromUser(user);
-                userDataList.add(userData);
+    private static EntityId instanceId(TaskTemplate template, String assignee, LocalDate date) {
+        String name = template.getTemplateId() + "/" + assignee + "/" + date;
+        UUID uuid = UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+        return EntityId.of(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    // Wish management
+    public void addWish(Wish wish) {
+        storeWish(wish);
+        eventBus.publish(new DataEvent.WishAdded(wish));
+    }
+
+    public void removeWish(Wish wish) {
+        removeWish(wish.getId());
+    }
+
+    public void removeWish(String wishId) {
+        removeWish(EntityId.parse(wishId));
+    }
+
+    public void removeWish(EntityId wishId) {
+        Wish wish = getWishById(wishId);
+        if (wish == null) {
+            return;
+        }
+        boolean removed = computeWithLock(wish.getRequestedBy(), () -> {
+            if (wishes.remove(wishId) != null) {
+                journalRemoval(Journal.REMOVE_WISH, wishId, wish.getRequestedBy());
+                return true;
             }
+            return false;
+        });
+        if (removed) {
+            eventBus.publish(new DataEvent.WishRemoved(wish));
+        }
+    }
 
-            String json = gson.toJson(userDataList);
-            FileWriter writer = new FileWriter(USERS_FILE);
-            writer.write(json);
-            writer.close();
-        } catch (IOException e) {
-            System.err.println("Error saving users: " + e.getMessage());
+    /**
+     * Record changes made to an existing wish, re-indexing it.
+     * Does nothing if the wish did not change since it was stored.
+     */
+    public void updateWish(Wish wish) {
+        if (wishes.isCurrent(wish)) {
+            return;
         }
+        storeWish(wish);
+        eventBus.publish(new DataEvent.WishUpdated(wish));
     }
 
-    private void loadTasks() {
-        try {
-            File file = new File(TASKS_FILE);
-            if (!file.exists()) {
-                return;
+    private void storeWish(Wish wish) {
+        withLock(wish.getRequestedBy(), () -> {
+            String previousRequester = wishes.getIndexedRequester(wish.getId());
+            if (previousRequester != null && !previousRequester.equals(wish.getRequestedBy())) {
+                // Take the wish out of the old requester's shard
+                journalRemoval(Journal.REMOVE_WISH, wish.getId(), previousRequester);
             }
+            wishes.put(wish);
+            journalWish(wish);
+        });
+    }
 
-            BufferedReader reader = new BufferedReader(new FileReader(file));
-            StringBuilder json = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                json.append(line);
+    public boolean approveWish(Wish wish, String approvedBy) {
+        boolean approved = computeWithLock(wish.getRequestedBy(), () -> {
+            if (wish.getStatus() != WishStatus.PENDING) {
+                return false;
             }
-            reader.close();
+            wish.approve(approvedBy);
+            wishes.put(wish);
+            journalWish(wish);
+            return true;
+        });
+        if (approved) {
+            eventBus.publish(new DataEvent.WishStatusChanged(wish, WishStatus.PENDING));
+        }
+        return approved;
+    }
 
-            if (json.length() > 0) {
-                Type taskListType = new TypeToken<List<Task>>(){}.getType();
-                tasks = gson.fromJson(json.toString(), taskListType);
-                if (tasks == null) {
-                    tasks = new ArrayList<>();
-                }
+    public boolean rejectWish(Wish wish) {
+        boolean rejected = computeWithLock(wish.getRequestedBy(), () -> {
+            if (wish.getStatus() != WishStatus.PENDING) {
+                return false;
             }
-        } catch (IOException e) {
-            System.err.println("Error loading tasks: " + e.getMessage());
+            wish.reject();
+            wishes.put(wish);
+            journalWish(wish);
+            return true;
+        });
+        if (rejected) {
+            eventBus.publish(new DataEvent.WishStatusChanged(wish, WishStatus.PENDING));
         }
+        return rejected;
     }
 
-    private void saveTasks() {
-        try {
-            String json = gson.toJson(tasks);
-            FileWriter writer = new FileWriter(TASKS_FILE);
-            writer.write(json);
-            writer.close();
-        } catch (IOException e) {
-            System.err.println("Error saving tasks: " + e.getMessage());
+    public List<Wish> getAllWishes() {
+        loadAllShards();
+        return new ArrayList<>(wishes.all());
+    }
+
+    public List<Wish> getWishesForChild(String childUsername, int childLevel) {
+        return getWishesForChild(childUsername, childLevel, null);
+    }
+
+    /**
+     * A child's wishes available at a level, optionally only those with one status.
+     */
+    public List<Wish> getWishesForChild(String childUsername, int childLevel, WishStatus status) {
+        loadShard(childUsername);
+        return wishes.getAvailable(childUsername, childLevel, status);
+    }
+
+    public Wish getWishById(String wishId) {
+        return getWishById(EntityId.parse(wishId));
+    }
+
+    /**
+     * The wish with the given id, or null if there is none or the id is null.
+     */
+    public Wish getWishById(EntityId wishId) {
+        if (wishId == null) {
+            return null;
+        }
+        Wish wish = wishes.get(wishId);
+        if (wish == null && shards != null && !shards.isAllLoaded()) {
+            loadAllShards();
+            wish = wishes.get(wishId);
         }
+        return wish;
     }
 
-    private void loadWishes() {
+    /**
+     * Search wish titles and descriptions the way {@link #searchTasks} searches
+     * tasks; with a requester, only that child's wishes.
+     */
+    public List<Wish> searchWishes(String query, String requestedBy, int limit) {
+        if (requestedBy != null) {
+            loadShard(requestedBy);
+        } else {
+            loadAllShards();
+        }
+        List<Wish> found = new ArrayList<>();
+        for (TextIndex.Hit<Wish> hit : wishes.search(query, requestedBy, limit)) {
+            found.add(hit.getValue());
+        }
+        return found;
+    }
+
+    // Change notification
+    /**
+     * Register a listener for changes. Events are delivered in batches on the
+     * given executor, e.g. SwingUtilities::invokeLater for the event dispatch thread.
+     */
+    public void addDataEventListener(DataEventListener listener, Executor executor) {
+        eventBus.addListener(listener, executor);
+    }
+
+    public void removeDataEventListener(DataEventListener listener) {
+        eventBus.removeListener(listener);
+    }
+
+    private void publishProgress(String username) {
+        if (!eventBus.hasListeners()) {
+            return;
+        }
+        ChildProgress progress = getChildProgress(username);
+        if (progress != null) {
+            eventBus.publish(new DataEvent.ChildProgressChanged(progress));
+        }
+    }
+
+    private void publishUnlockedWishes(String username, int previousLevel, int level) {
+        if (!eventBus.hasListeners()) {
+            return;
+        }
+        List<Wish> unlocked = wishes.getUnlocked(username, previousLevel, level);
+        if (!unlocked.isEmpty()) {
+            eventBus.publish(new DataEvent.WishesUnlocked(username, previousLevel, level, unlocked));
+        }
+    }
+
+    // Deadlines
+    /**
+     * Start scheduling the due dates of pending tasks: those loaded now, added
+     * or changed later, and in the sharded layout those of each shard as it is
+     * loaded. Deadlines that passed before a task was scheduled are not
+     * announced, but expiry still applies.
+     */
+    public void startDeadlines(DeadlineOptions deadlineOptions) {
+        persistenceLock.writeLock().lock();
         try {
-            File file = new File(WISHES_FILE);
-            if (!file.exists()) {
-                return;
+            if (deadlines != null) {
+                deadlines.shutdown();
             }
+            deadlines = new TaskDeadlines(deadlineOptions, this::deadlinePassed);
+            trackDeadlines(tasks.getByStatus(TaskStatus.PENDING));
+        } finally {
+            persistenceLock.writeLock().unlock();
+        }
+        if (deadlineOptions.isTicking()) {
+            deadlines.start();
+        }
+    }
+
+    /**
+     * Handle every deadline the scheduler's clock has passed. The scheduler
+     * thread does this every tick unless ticking is turned off.
+     */
+    public void checkDeadlines() {
+        if (deadlines != null) {
+            deadlines.checkDeadlines();
+        }
+    }
 
-            BufferedReader reader = new BufferedReader(new FileReader(file));
-            StringBuilder json = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                json.append(line);
+    private void trackDeadlines(Iterable<Task> candidates) {
+        for (Task task : candidates) {
+            if (task.getStatus() == TaskStatus.PENDING) {
+                deadlines.track(task);
             }
-            reader.close();
+        }
+    }
 
-            if (json.length() > 0) {
-                Type wishListType = new TypeToken<List<Wish>>(){}.getType();
-                wishes = gson.fromJson(json.toString(), wishListType);
-                if (wishes == null) {
-                    wishes = new ArrayList<>();
-                }
+    private void deadlinePassed(EntityId taskId, TaskDeadlines.Stage stage) {
+        Task task = tasks.get(taskId);
+        if (task == null) {
+            return;
+        }
+        if (stage == TaskDeadlines.Stage.EXPIRY && deadlines.hasPassed(task, stage)) {
+            expireTask(task);
+            return;
+        }
+        boolean announce = computeWithLock(task.getAssignedTo(), () -> {
+            if (task.getStatus() != TaskStatus.PENDING) {
+                return false;
             }
-        } catch (IOException e) {
-            System.err.println("Error loading wishes: " + e.getMessage());
+            if (stage == TaskDeadlines.Stage.EXPIRY || !deadlines.hasPassed(task, stage)) {
+                // The due date moved since the stage was scheduled
+                deadlines.track(task);
+                return false;
+            }
+            deadlines.trackAfter(task, stage);
+            return true;
+        });
+        if (announce) {
+            eventBus.publish(stage == TaskDeadlines.Stage.REMINDER
+                    ? new DataEvent.TaskDueSoon(task) : new DataEvent.TaskOverdue(task));
         }
     }
 
-    private void saveWishes() {
-        try {
-            String json = gson.toJson(wishes);
-            FileWriter writer = new FileWriter(WISHES_FILE);
-            writer.write(json);
-            writer.close();
-        } catch (IOException e) {
-            System.err.println("Error saving wishes: " + e.getMessage());
+    // Progress counters
+    /**
+     * The assignee a stored task is filed under, or null if the task is not stored.
+     */
+    private String filedAssignee(EntityId taskId) {
+        String assignee = tasks.getIndexedAssignee(taskId);
+        if (assignee == null && archive != null && archive.contains(taskId)) {
+            assignee = archive.get(taskId).getAssignedTo();
         }
+        return assignee;
     }
 
-    // Helper classes for JSON serialization
-    private static class UserData {
-        private String username;
-        private String password;
-        private String role;
-        private Integer points;
-        private Integer level;
-        private List<Double> ratings;
+    // Must be called under the child's lock
+    private void recountProgress(String username) {
+        progressTracker.reset(username);
+        for (Task task : tasks.getByAssignee(username)) {
+            progressTracker.count(username, task.getStatus(), task.getPoints(), 1);
+        }
+        if (archive != null) {
+            archive.forEachHeader(username, (assignedTo, status, points) ->
+                    progressTracker.count(assignedTo, status, points, 1));
+        }
+    }
 
-        public UserData() {
+    private void rebuildProgress() {
+        progressTracker.clear();
+        for (Task task : tasks.all()) {
+            progressTracker.count(task.getAssignedTo(), task.getStatus(), task.getPoints(), 1);
         }
+        if (archive != null) {
+            archive.forEachHeader((assignedTo, status, points) ->
+                    progressTracker.count(assignedTo, status, points, 1));
+        }
+    }
 
-        public String getUsername() {
-            return username;
+    // Shards
+    /**
+     * Load a child's shard if the sharded layout is used and it is not loaded yet.
+     */
+    private void loadShard(String username) {
+        if (shards == null || username == null || shards.isLoaded(username)) {
+            return;
         }
+        persistenceLock.readLock().lock();
+        ReentrantLock stripe = childLocks.get(username);
+        stripe.lock();
+        try {
+            if (!shards.isLoaded(username)) {
+                readShard(username);
+            }
+        } finally {
+            stripe.unlock();
+            persistenceLock.readLock().unlock();
+        }
+    }
 
-        public void setUsername(String username) {
-            this.username = username;
+    /**
+     * Load every shard on disk, for queries that span all children.
+     */
+    private void loadAllShards() {
+        if (shards == null || shards.isAllLoaded()) {
+            return;
         }
+        for (String username : shards.listUsernames()) {
+            loadShard(username);
+        }
+        shards.markAllLoaded();
+    }
 
-        public String getPassword() {
-            return password;
+    // Must be called under the child's lock
+    private void readShard(String username) {
+        List<Task> shardTasks = new ArrayList<>();
+        try {
+            shards.read(username, task -> {
+                if (tasks.contains(task.getId())) {
+                    // Already loaded from the journal or a shard saved after this one
+                    markShardDirty(username);
+                } else {
+                    shardTasks.add(task);
+                    tasks.put(task);
+                }
+            }, wish -> {
+                if (wishes.get(wish.getId()) == null) {
+                    wishes.put(wish);
+                } else {
+                    markShardDirty(username);
+                }
+            });
+        } catch (IOException | JsonParseException e) {
+            System.err.println("Error loading data of " + username + ": " + e.getMessage());
+        }
+        if (archive != null) {
+            archiveTerminalTasks(shardTasks);
+        }
+        shards.markLoaded(username);
+        recountProgress(username);
+        if (deadlines != null) {
+            trackDeadlines(tasks.getByAssignee(username));
         }
+    }
 
-        public void setPassword(String password) {
-            this.password = password;
+    private void markShardDirty(String username) {
+        if (shards != null && username != null) {
+            shards.markDirty(username);
         }
+    }
 
-        public String getRole() {
-            return role;
+    // Change tracking for the next snapshot write
+    /**
+     * Mark the data changed through model setters rather than the DataManager
+     * as changed too. Call under the write lock.
+     */
+    private void recordSetterChanges() {
+        for (User user : users.values()) {
+            Long marked = markedUserVersions.put(user.getUsername(), user.getVersion());
+            if (marked == null || marked != user.getVersion()) {
+                userChanges.changed();
+            }
+        }
+        for (Task task : tasks.takeChangedSinceSaved()) {
+            taskChanged(tasks.getIndexedAssignee(task.getId()));
+        }
+        for (Wish wish : wishes.takeChangedSinceSaved()) {
+            wishChanged(wishes.getIndexedRequester(wish.getId()));
         }
+    }
+
+    private void userChanged(User user) {
+        recordedUserVersions.put(user.getUsername(), user.getVersion());
+        markedUserVersions.put(user.getUsername(), user.getVersion());
+        userChanges.changed();
+    }
 
-        public void setRole(String role) {
-            this.role = role;
+    private void taskChanged(String assignee) {
+        taskChanges.changed();
+        markShardDirty(assignee);
+    }
+
+    private void wishChanged(String requester) {
+        wishChanges.changed();
+        markShardDirty(requester);
+    }
+
+    // Locking
+    /**
+     * Run a mutation while holding the lock stripe of the child (or user) it
+     * belongs to. Mutations of different children proceed in parallel; the
+     * shared persistence lock only keeps them out of a running compaction.
+     */
+    private void withLock(String username, Runnable mutation) {
+        computeWithLock(username, () -> {
+            mutation.run();
+            return null;
+        });
+    }
+
+    private <T> T computeWithLock(String username, Supplier<T> mutation) {
+        persistenceLock.readLock().lock();
+        ReentrantLock stripe = childLocks.get(username);
+        stripe.lock();
+        try {
+            if (shards != null && !shards.isLoaded(username)) {
+                readShard(username);
+            }
+            return mutation.get();
+        } finally {
+            stripe.unlock();
+            persistenceLock.readLock().unlock();
         }
+    }
+
+    // Journal methods; these also mark what they record for the next snapshot write
+    private void journalUser(User user) {
+        journalRecord(Journal.PUT_USER, () -> journalGson.toJsonTree(createUserDataFromUser(user)));
+        userChanged(user);
+    }
+
+    private void journalTask(Task task) {
+        journalRecord(Journal.PUT_TASK, () -> journalGson.toJsonTree(task));
+        taskChanged(task.getAssignedTo());
+    }
 
-        public Integer getPoints() {
-            return points;
+    private void journalTemplate(TaskTemplate template) {
+        journalRecord(Journal.PUT_TEMPLATE, () -> journalGson.toJsonTree(template));
+        templateChanges.changed();
+    }
+
+    private void journalWish(Wish wish) {
+        journalRecord(Journal.PUT_WISH, () -> journalGson.toJsonTree(wish));
+        wishChanged(wish.getRequestedBy());
+    }
+
+    /**
+     * Record the removal of a task or wish from the given child's data.
+     */
+    private void journalRemoval(String op, EntityId id, String owner) {
+        journalRecord(op, () -> {
+            JsonObject data = new JsonObject();
+            data.addProperty("id", id.toString());
+            data.addProperty("owner", owner);
+            return data;
+        });
+        if (op.equals(Journal.REMOVE_TASK)) {
+            taskChanged(owner);
+        } else {
+            wishChanged(owner);
         }
+    }
 
-        public void setPoints(Integer points) {
-            this.points = points;
+    // The record is only built when there is a journal to write it to
+    private void journalRecord(String op, Supplier<JsonElement> data) {
+        if (journal == null) {
+            return;
         }
+        try {
+            journal.append(op, data.get());
+        } catch (IOException e) {
+            System.err.println("Error writing journal: " + e.getMessage());
+        }
+    }
 
-        public Integer getLevel() {
-            return level;
+    private void applyJournalRecord(String op, JsonElement data) {
+        switch (op) {
+            case Journal.PUT_USER:
+                User user = createUserFromData(journalGson.fromJson(data, UserData.class));
+                if (user != null) {
+                    users.put(user.getUsername(), user);
+                    userChanged(user);
+                }
+                break;
+            case Journal.PUT_TASK:
+                Task task = journalGson.fromJson(data, Task.class);
+                loadShard(task.getAssignedTo());
+                tasks.put(task);
+                taskChanged(task.getAssignedTo());
+                break;
+            case Journal.REMOVE_TASK:
+                EntityId taskId = loadRemovalOwner(data);
+                tasks.remove(taskId);
+                removeArchivedTask(taskId);
+                taskChanges.changed();
+                break;
+            case Journal.PUT_WISH:
+                Wish wish = journalGson.fromJson(data, Wish.class);
+                loadShard(wish.getRequestedBy());
+                wishes.put(wish);
+                wishChanged(wish.getRequestedBy());
+                break;
+            case Journal.PUT_TEMPLATE:
+                TaskTemplate template = journalGson.fromJson(data, TaskTemplate.class);
+                templates.put(template.getTemplateId(), template);
+                templateChanges.changed();
+                break;
+            case Journal.REMOVE_TEMPLATE:
+                templates.remove(data.getAsString());
+                templateChanges.changed();
+                break;
+            case Journal.REMOVE_WISH:
+                wishes.remove(loadRemovalOwner(data));
+                wishChanges.changed();
+                break;
+            default:
+                System.err.println("Unknown journal record: " + op);
         }
+    }
 
-        public void setLevel(Integer level) {
-            this.level = level;
+    /**
+     * Load and mark the shard a removal record applies to, and return the removed id.
+     * Removals journaled before the sharded layout existed carry only the id.
+     */
+    private EntityId loadRemovalOwner(JsonElement data) {
+        if (data.isJsonPrimitive()) {
+            loadAllShards();
+            return EntityId.parse(data.getAsString());
         }
+        JsonObject removal = data.getAsJsonObject();
+        String owner = removal.get("owner").getAsString();
+        loadShard(owner);
+        markShardDirty(owner);
+        return EntityId.parse(removal.get("id").getAsString());
+    }
 
-        public List<Double> getRatings() {
-            return ratings;
+    // File I/O methods
+    private void loadUsers() {
+        if (!usersFile.exists()) {
+            return;
         }
+        try (InputStream in = new BufferedInputStream(new FileInputStream(usersFile))) {
+            snapshotFormat.readUsers(in, userData -> {
+                User user = createUserFromData(userData);
+                if (user != null) {
+                    users.put(user.getUsername(), user);
+                    recordedUserVersions.put(user.getUsername(), user.getVersion());
+                    markedUserVersions.put(user.getUsername(), user.getVersion());
+                }
+            });
+        } catch (IOException | JsonParseException e) {
+            System.err.println("Error loading users: " + e.getMessage());
+        }
+    }
 
-        public void setRatings(List<Double> ratings) {
-            this.ratings = ratings;
+
+    private void loadTasks() {
+        if (!tasksFile.exists()) {
+            return;
+        }
+        try (InputStream in = new BufferedInputStream(new FileInputStream(tasksFile))) {
+            snapshotFormat.readTasks(in, tasks::put);
+        } catch (IOException | JsonParseException e) {
+            System.err.println("Error loading tasks: " + e.getMessage());
         }
     }
 
+
+    private void loadWishes() {
+        if (!wishesFile.exists()) {
+            return;
+        }
+        try (InputStream in = new BufferedInputStream(new FileInputStream(wishesFile))) {
+            snapshotFormat.readWishes(in, wishes::put);
+        } catch (IOException | JsonParseException e) {
+            System.err.println("Error loading wishes: " + e.getMessage());
+        }
+    }
+
+
+    private void loadTemplates() {
+        templates.clear();
+        if (!templatesFile.exists()) {
+            return;
+        }
+        try (Reader reader = new InputStreamReader(new FileInputStream(templatesFile), StandardCharsets.UTF_8)) {
+            TaskTemplate[] loaded = journalGson.fromJson(reader, TaskTemplate[].class);
+            if (loaded != null) {
+                for (TaskTemplate template : loaded) {
+                    templates.put(template.getTemplateId(), template);
+                }
+            }
+        } catch (IOException | JsonParseException e) {
+            System.err.println("Error loading task templates: " + e.getMessage());
+        }
+    }
+
+    private void writeTemplates(OutputStream out, List<TaskTemplate> templateList) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        journalGson.toJson(templateList, writer);
+        writer.flush();
+    }
+
+
+    // Conversion between users and their serialized form
     private User createUserFromData(UserData userData) {
         switch (userData.getRole().toUpperCase()) {
             case "CHILD":
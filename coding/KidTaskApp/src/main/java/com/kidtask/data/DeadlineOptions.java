@@ -0,0 +1,84 @@
+package com.kidtask.data;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Options for the due-date scheduler started by {@link DataManager#startDeadlines}.
+ * A task's deadline is the end of its due day in the clock's time zone.
+ */
+public class DeadlineOptions {
+    private Clock clock;
+    private long tickMillis;
+    private boolean ticking;
+    private Duration reminderLead;
+    private Duration expireAfter;
+
+    public DeadlineOptions() {
+        this.clock = Clock.systemDefaultZone();
+        this.tickMillis = 1000;
+        this.ticking = true;
+        this.reminderLead = Duration.ofDays(1);
+        this.expireAfter = null;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    public DeadlineOptions setClock(Clock clock) {
+        this.clock = clock;
+        return this;
+    }
+
+    /**
+     * Granularity of the scheduler; deadlines fire up to one tick late.
+     */
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    public DeadlineOptions setTickMillis(long tickMillis) {
+        this.tickMillis = tickMillis;
+        return this;
+    }
+
+    /**
+     * When ticking, a background thread checks the deadlines every tick.
+     * Turn it off to drive the scheduler with {@link DataManager#checkDeadlines()},
+     * e.g. in tests using a {@link com.kidtask.scheduler.ManualClock}.
+     */
+    public boolean isTicking() {
+        return ticking;
+    }
+
+    public DeadlineOptions setTicking(boolean ticking) {
+        this.ticking = ticking;
+        return this;
+    }
+
+    /**
+     * How long before the deadline a TaskDueSoon event is sent, or null for none.
+     */
+    public Duration getReminderLead() {
+        return reminderLead;
+    }
+
+    public DeadlineOptions setReminderLead(Duration reminderLead) {
+        this.reminderLead = reminderLead;
+        return this;
+    }
+
+    /**
+     * How long after the deadline a task still pending is moved to EXPIRED,
+     * or null to leave overdue tasks pending.
+     */
+    public Duration getExpireAfter() {
+        return expireAfter;
+    }
+
+    public DeadlineOptions setExpireAfter(Duration expireAfter) {
+        this.expireAfter = expireAfter;
+        return this;
+    }
+}
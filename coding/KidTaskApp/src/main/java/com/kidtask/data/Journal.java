@@ -0,0 +1,202 @@
+package com.kidtask.data;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Append-only log of data mutations.
+ * Each record is a single line of compact JSON: {"op": ..., "data": ...}.
+ *
+ * When synced, the file is forced to disk each time records are flushed,
+ * that is after every record outside a batch and at the end of a batch, so
+ * they survive a power loss and not just a crash of the process.
+ */
+public class Journal {
+    public static final String PUT_USER = "putUser";
+    public static final String PUT_TASK = "putTask";
+    public static final String REMOVE_TASK = "removeTask";
+    public static final String PUT_WISH = "putWish";
+    public static final String REMOVE_WISH = "removeWish";
+    public static final String PUT_TEMPLATE = "putTemplate";
+    public static final String REMOVE_TEMPLATE = "removeTemplate";
+
+    /**
+     * Callback used while replaying journal records.
+     */
+    public interface RecordHandler {
+        void apply(String op, JsonElement data);
+    }
+
+    private final File file;
+    private final File rotatedFile;
+    private final boolean sync;
+    private FileOutputStream out;
+    private Writer writer;
+    private int recordCount;
+    // Open batches; records are only flushed once none is open
+    private int batchDepth;
+
+    public Journal(File file) {
+        this(file, true);
+    }
+
+    public Journal(File file, boolean sync) {
+        this.file = file;
+        this.rotatedFile = new File(file.getPath() + ".old");
+        this.sync = sync;
+        this.recordCount = 0;
+    }
+
+    /**
+     * Replay all complete records in the journal, in the order they were written,
+     * starting with a rotated journal left behind by an unfinished compaction.
+     * A torn record (e.g. from a crash mid-write) or a malformed one is skipped.
+     */
+    public synchronized void replay(RecordHandler handler) throws IOException {
+        replayFile(rotatedFile, handler);
+        replayFile(file, handler);
+    }
+
+    private void replayFile(File file, RecordHandler handler) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty()) {
+                    continue;
+                }
+                JsonObject record;
+                try {
+                    record = JsonParser.parseString(line).getAsJsonObject();
+                } catch (JsonParseException | IllegalStateException e) {
+                    System.err.println("Ignoring incomplete journal record: " + e.getMessage());
+                    continue;
+                }
+                JsonElement op = record.get("op");
+                JsonElement data = record.get("data");
+                if (op == null || !op.isJsonPrimitive() || data == null) {
+                    System.err.println("Ignoring malformed journal record at " + file + ":" + lineNumber);
+                    continue;
+                }
+                try {
+                    handler.apply(op.getAsString(), data);
+                } catch (JsonParseException | IllegalStateException | UnsupportedOperationException e) {
+                    System.err.println("Ignoring malformed journal record at " + file + ":" + lineNumber
+                            + ": " + e.getMessage());
+                    continue;
+                }
+                recordCount++;
+            }
+        }
+    }
+
+    public synchronized void append(String op, JsonElement data) throws IOException {
+        if (writer == null) {
+            boolean created = !file.exists();
+            boolean tornTail = endsWithTornRecord();
+            out = new FileOutputStream(file, true);
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if (tornTail) {
+                // Keep the new record off the end of a torn one
+                writer.write('\n');
+            }
+            if (created && sync) {
+                SnapshotWriter.forceDirectory(file.getAbsoluteFile().getParentFile());
+            }
+        }
+
+        JsonObject record = new JsonObject();
+        record.addProperty("op", op);
+        record.add("data", data);
+        writer.write(record.toString());
+        writer.write('\n');
+        if (batchDepth == 0) {
+            flush();
+        }
+        recordCount++;
+    }
+
+    /**
+     * Hold back flushing appended records until the matching
+     * {@link #endBatch()}, so a batch of records reaches the file in one write.
+     * Batches may nest.
+     */
+    public synchronized void beginBatch() {
+        batchDepth++;
+    }
+
+    public synchronized void endBatch() throws IOException {
+        batchDepth--;
+        if (batchDepth == 0 && writer != null) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        writer.flush();
+        if (sync) {
+            out.getChannel().force(false);
+        }
+    }
+
+    /**
+     * Set the records written so far aside and start an empty journal.
+     * The set-aside records are still replayed until {@link #discardRotated()}
+     * is called, once their effects are part of a snapshot.
+     */
+    public synchronized void rotate() throws IOException {
+        close();
+        if (!file.exists()) {
+            return;
+        }
+        if (rotatedFile.exists()) {
+            // An earlier compaction did not finish; keep its records in front
+            try (OutputStream out = new FileOutputStream(rotatedFile, true)) {
+                Files.copy(file.toPath(), out);
+            }
+            Files.delete(file.toPath());
+        } else {
+            Files.move(file.toPath(), rotatedFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+        recordCount = 0;
+    }
+
+    public synchronized void discardRotated() throws IOException {
+        Files.deleteIfExists(rotatedFile.toPath());
+    }
+
+    private boolean endsWithTornRecord() throws IOException {
+        if (!file.exists() || file.length() == 0) {
+            return false;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(raf.length() - 1);
+            return raf.read() != '\n';
+        }
+    }
+
+    public synchronized int getRecordCount() {
+        return recordCount;
+    }
+
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+            out = null;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.kidtask.data;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.kidtask.models.Task;
+import com.kidtask.models.Wish;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Streaming reader/writer for the JSON snapshot files.
+ * Records are read and written one at a time, so memory use does not
+ * grow with the size of the file.
+ */
+class JsonSnapshotFormat implements SnapshotFormat {
+    private final Gson gson;
+
+    JsonSnapshotFormat(Gson gson) {
+        this.gson = gson;
+    }
+
+    /**
+     * Gson builder with the hand-written adapters for all persisted types registered.
+     */
+    static GsonBuilder gsonBuilder() {
+        return new GsonBuilder()
+                .registerTypeAdapter(Task.class, new TaskTypeAdapter().nullSafe())
+                .registerTypeAdapter(Wish.class, new WishTypeAdapter().nullSafe())
+                .registerTypeAdapter(UserData.class, new UserDataTypeAdapter().nullSafe());
+    }
+
+    @Override
+    public String getFileExtension() {
+        return ".txt";
+    }
+
+    @Override
+    public void readUsers(InputStream in, Consumer<UserData> consumer) throws IOException {
+        readArray(in, gson.getAdapter(UserData.class), consumer);
+    }
+
+    @Override
+    public void writeUsers(OutputStream out, Iterable<UserData> users) throws IOException {
+        writeArray(out, gson.getAdapter(UserData.class), users);
+    }
+
+    @Override
+    public void readTasks(InputStream in, Consumer<Task> consumer) throws IOException {
+        readArray(in, gson.getAdapter(Task.class), consumer);
+    }
+
+    @Override
+    public void writeTasks(OutputStream out, Iterable<Task> tasks) throws IOException {
+        writeArray(out, gson.getAdapter(Task.class), tasks);
+    }
+
+    @Override
+    public void readWishes(InputStream in, Consumer<Wish> consumer) throws IOException {
+        readArray(in, gson.getAdapter(Wish.class), consumer);
+    }
+
+    @Override
+    public void writeWishes(OutputStream out, Iterable<Wish> wishes) throws IOException {
+        writeArray(out, gson.getAdapter(Wish.class), wishes);
+    }
+
+    private <T> void readArray(InputStream in, TypeAdapter<T> adapter, Consumer<T> consumer)
+            throws IOException {
+        JsonReader reader = gson.newJsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        JsonToken token;
+        try {
+            token = reader.peek();
+        } catch (EOFException e) {
+            // Empty file
+            return;
+        }
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return;
+        }
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            T item = adapter.read(reader);
+            if (item != null) {
+                consumer.accept(item);
+            }
+        }
+        reader.endArray();
+    }
+
+    private <T> void writeArray(OutputStream out, TypeAdapter<T> adapter, Iterable<T> items)
+            throws IOException {
+        // JsonWriter emits one small write per token; batch them before the encoder
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        JsonWriter jsonWriter = gson.newJsonWriter(writer);
+        jsonWriter.beginArray();
+        for (T item : items) {
+            adapter.write(jsonWriter, item);
+        }
+        jsonWriter.endArray();
+        jsonWriter.flush();
+    }
+}
@@ -0,0 +1,62 @@
+package com.kidtask.data;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Thread-safe secondary index mapping a key to the entities filed under it.
+ * Entities are filed by their store sequence number, so each key's
+ * entities keep their insertion order.
+ */
+class MultiIndex<K, V> {
+    private final ConcurrentMap<K, ConcurrentSkipListMap<Long, V>> buckets;
+
+    MultiIndex() {
+        this(new ConcurrentHashMap<>());
+    }
+
+    MultiIndex(ConcurrentMap<K, ConcurrentSkipListMap<Long, V>> buckets) {
+        this.buckets = buckets;
+    }
+
+    public void put(K key, long sequence, V value) {
+        if (key == null) {
+            return;
+        }
+        buckets.compute(key, (k, bucket) -> {
+            if (bucket == null) {
+                bucket = new ConcurrentSkipListMap<>();
+            }
+            bucket.put(sequence, value);
+            return bucket;
+        });
+    }
+
+    public void remove(K key, long sequence) {
+        if (key == null) {
+            return;
+        }
+        buckets.computeIfPresent(key, (k, bucket) -> {
+            bucket.remove(sequence);
+            return bucket.isEmpty() ? null : bucket;
+        });
+    }
+
+    /**
+     * Weakly consistent view of the entities filed under a key.
+     */
+    public Collection<V> get(K key) {
+        ConcurrentSkipListMap<Long, V> bucket = buckets.get(key);
+        if (bucket == null) {
+            return Collections.emptyList();
+        }
+        return bucket.values();
+    }
+
+    public void clear() {
+        buckets.clear();
+    }
+}
@@ -0,0 +1,82 @@
+package com.kidtask.data;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs saves on a single background writer thread, so callers such as the
+ * Swing event dispatch thread never wait for file I/O.
+ * A save requested while another is still queued is coalesced into it.
+ */
+class PersistenceService {
+    private final Runnable save;
+    private final ExecutorService writer;
+    private CompletableFuture<Void> queued;
+    private CompletableFuture<Void> latest;
+
+    PersistenceService(Runnable save) {
+        this.save = save;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kidtask-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.latest = CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Request a save. Completes once a save started after this call has finished.
+     */
+    public synchronized CompletableFuture<Void> requestSave() {
+        if (queued != null) {
+            return queued;
+        }
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        queued = future;
+        latest = future;
+        writer.execute(() -> {
+            synchronized (this) {
+                // Later requests need a new save, since this one may miss their changes
+                if (queued == future) {
+                    queued = null;
+                }
+            }
+            try {
+                save.run();
+                future.complete(null);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Block until every save requested so far has been written.
+     */
+    public void flush() {
+        CompletableFuture<Void> pending;
+        synchronized (this) {
+            pending = latest;
+        }
+        try {
+            pending.join();
+        } catch (CompletionException e) {
+            System.err.println("Error saving data: " + e.getCause().getMessage());
+        }
+    }
+
+    public void shutdown() {
+        flush();
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.kidtask.data;
+
+import java.util.Arrays;
+
+/**
+ * The postings of one search term: (document, weight) pairs in increasing
+ * document order, packed as varint-encoded document gaps and weights, so a
+ * posting usually takes two bytes. Not thread-safe.
+ */
+final class PostingList {
+    private byte[] bytes = new byte[8];
+    private int length;
+    private int count;
+    private int lastDocument = -1;
+
+    /**
+     * Append a posting; documents must be added in increasing order.
+     */
+    void add(int document, int weight) {
+        if (document <= lastDocument) {
+            throw new IllegalArgumentException("Document " + document + " is not after " + lastDocument);
+        }
+        writeVarint(document - lastDocument);
+        writeVarint(weight);
+        lastDocument = document;
+        count++;
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * Decode every posting into the given arrays, which must hold {@link #size()} entries.
+     */
+    void decode(int[] documents, int[] weights) {
+        int position = 0;
+        int document = -1;
+        for (int i = 0; i < count; i++) {
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            int weight = 0;
+            shift = 0;
+            do {
+                b = bytes[position++];
+                weight |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            document += gap;
+            documents[i] = document;
+            weights[i] = weight;
+        }
+    }
+
+    private void writeVarint(int value) {
+        if (length + 5 > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + 5));
+        }
+        while ((value & ~0x7F) != 0) {
+            bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[length++] = (byte) value;
+    }
+}
@@ -0,0 +1,63 @@
+package com.kidtask.data;
+
+import com.kidtask.models.Child;
+import com.kidtask.models.TaskStatus;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-child task counters, kept up to date as tasks are added, change
+ * state and are removed, so progress is read without scanning any tasks.
+ * A child's counters must only be changed or read under that child's lock
+ * stripe, which DataManager holds for every task mutation.
+ */
+class ProgressTracker {
+    private static final int STATUS_COUNT = TaskStatus.values().length;
+
+    private final ConcurrentHashMap<String, Counters> byChild = new ConcurrentHashMap<>();
+
+    private static class Counters {
+        private final int[] taskCounts = new int[STATUS_COUNT];
+        private int earnedPoints;
+    }
+
+    /**
+     * Count a task in (delta 1) or out (delta -1).
+     */
+    void count(String username, TaskStatus status, int points, int delta) {
+        Counters counters = byChild.computeIfAbsent(username, k -> new Counters());
+        counters.taskCounts[status.ordinal()] += delta;
+        if (status == TaskStatus.APPROVED) {
+            counters.earnedPoints += points * delta;
+        }
+    }
+
+    void move(String username, TaskStatus from, TaskStatus to, int points) {
+        count(username, from, points, -1);
+        count(username, to, points, 1);
+    }
+
+    void reset(String username) {
+        byChild.remove(username);
+    }
+
+    void clear() {
+        byChild.clear();
+    }
+
+    /**
+     * Combine the child's counters with its points and rating statistics.
+     */
+    ChildProgress snapshot(Child child) {
+        Counters counters = byChild.get(child.getUsername());
+        int[] taskCounts = counters != null
+                ? Arrays.copyOf(counters.taskCounts, STATUS_COUNT)
+                : new int[STATUS_COUNT];
+        int earnedPoints = counters != null ? counters.earnedPoints : 0;
+        return new ChildProgress(child.getUsername(), child.getPoints(), child.getLevel(),
+                child.getRatingCount(), child.getAverageRating(),
+                child.getMinRating(), child.getMaxRating(), child.getRecentAverageRating(),
+                taskCounts, earnedPoints);
+    }
+}
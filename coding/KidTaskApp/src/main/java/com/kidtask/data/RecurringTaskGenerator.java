@@ -0,0 +1,78 @@
+package com.kidtask.data;
+
+import com.kidtask.models.Task;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the instances of recurring task templates created for a rolling
+ * window of days starting today, so children see what is coming up while
+ * far-future occurrences are never stored.
+ */
+public class RecurringTaskGenerator {
+    public static final int DEFAULT_WINDOW_DAYS = 7;
+    private static final long CHECK_INTERVAL_MINUTES = 60;
+
+    private final DataManager dataManager;
+    private final Clock clock;
+    private final int windowDays;
+    private ScheduledExecutorService timer;
+
+    public RecurringTaskGenerator(DataManager dataManager) {
+        this(dataManager, Clock.systemDefaultZone(), DEFAULT_WINDOW_DAYS);
+    }
+
+    public RecurringTaskGenerator(DataManager dataManager, Clock clock, int windowDays) {
+        if (windowDays < 1) {
+            throw new IllegalArgumentException("Window must be at least one day: " + windowDays);
+        }
+        this.dataManager = dataManager;
+        this.clock = clock;
+        this.windowDays = windowDays;
+    }
+
+    /**
+     * Create the instances that fall in the window and do not exist yet,
+     * as one batch followed by one save.
+     */
+    public List<Task> generate() {
+        LocalDate today = LocalDate.now(clock);
+        List<Task> generated = dataManager.generateRecurringTasks(today, today.plusDays(windowDays - 1));
+        dataManager.saveDataAsync();
+        return generated;
+    }
+
+    /**
+     * Generate now and then every hour on a background thread, so the window
+     * moves along with the date.
+     */
+    public synchronized void start() {
+        if (timer != null) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kidtask-recurrence");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(() -> {
+            try {
+                generate();
+            } catch (RuntimeException e) {
+                System.err.println("Error generating recurring tasks: " + e.getMessage());
+            }
+        }, 0, CHECK_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    public synchronized void shutdown() {
+        if (timer != null) {
+            timer.shutdown();
+            timer = null;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.kidtask.data;
+
+import com.kidtask.models.Task;
+import com.kidtask.models.Wish;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Moves the tasks and wishes of a flat data directory into per-child shards
+ * (see {@link StorageLayout#SHARDED}). Users stays where it is; the flat
+ * Tasks and Wishes files are renamed with a .migrated suffix afterwards.
+ * Run it while no DataManager is using the directory.
+ *
+ * Usage: ShardMigrator &lt;dataDir&gt; [JSON|BINARY]
+ */
+public class ShardMigrator {
+    private static final String MIGRATED_SUFFIX = ".migrated";
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: ShardMigrator <dataDir> [JSON|BINARY]");
+            System.exit(1);
+        }
+
+        try {
+            StorageFormat format = args.length > 1
+                    ? StorageFormat.valueOf(args[1].toUpperCase()) : StorageFormat.JSON;
+            migrate(new File(args[0]), format);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Migration failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Split the flat Tasks file by assignee and the flat Wishes file by requester.
+     * Fails if the directory already has shards.
+     */
+    public static void migrate(File dataDir, StorageFormat format) throws IOException {
+        SnapshotFormat snapshotFormat = DataManager.createSnapshotFormat(format);
+        String extension = snapshotFormat.getFileExtension();
+        File tasksFile = new File(dataDir, DataManager.TASKS_FILE_NAME + extension);
+        File wishesFile = new File(dataDir, DataManager.WISHES_FILE_NAME + extension);
+        ShardSet shards = new ShardSet(dataDir, snapshotFormat);
+        if (shards.getChildrenDir().exists()) {
+            throw new IOException(shards.getChildrenDir() + " already exists");
+        }
+
+        Map<String, List<Task>> tasksByChild = new TreeMap<>();
+        if (tasksFile.exists()) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(tasksFile))) {
+                snapshotFormat.readTasks(in, task ->
+                        tasksByChild.computeIfAbsent(task.getAssignedTo(), k -> new ArrayList<>()).add(task));
+            }
+        }
+        Map<String, List<Wish>> wishesByChild = new TreeMap<>();
+        if (wishesFile.exists()) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(wishesFile))) {
+                snapshotFormat.readWishes(in, wish ->
+                        wishesByChild.computeIfAbsent(wish.getRequestedBy(), k -> new ArrayList<>()).add(wish));
+            }
+        }
+
+        TreeSet<String> usernames = new TreeSet<>(tasksByChild.keySet());
+        usernames.addAll(wishesByChild.keySet());
+        Map<File, SnapshotWriter.Content> files = new LinkedHashMap<>();
+        for (String username : usernames) {
+            List<Task> tasks = tasksByChild.getOrDefault(username, Collections.emptyList());
+            List<Wish> wishes = wishesByChild.getOrDefault(username, Collections.emptyList());
+            files.put(shards.tasksFile(username), out -> snapshotFormat.writeTasks(out, tasks));
+            files.put(shards.wishesFile(username), out -> snapshotFormat.writeWishes(out, wishes));
+        }
+        SnapshotWriter writer = new SnapshotWriter(dataDir);
+        try {
+            writer.recover();
+            writer.commit(files);
+        } finally {
+            writer.shutdown();
+        }
+        System.out.println("Wrote " + usernames.size() + " shards to " + shards.getChildrenDir());
+
+        for (File flatFile : new File[] {tasksFile, wishesFile}) {
+            if (flatFile.exists()) {
+                Files.move(flatFile.toPath(), new File(flatFile.getPath() + MIGRATED_SUFFIX).toPath());
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.kidtask.data;
+
+import com.kidtask.models.Task;
+import com.kidtask.models.Wish;
+
+import java.io.*;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * The per-child shard files of the sharded storage layout, and which of them
+ * are loaded and which changed since they were last written.
+ * <pre>
+ *   Users.*                          all users
+ *   children/&lt;username&gt;/Tasks.*     tasks assigned to the child
+ *   children/&lt;username&gt;/Wishes.*    wishes requested by the child
+ * </pre>
+ * Shard directory names are the URL-encoded username.
+ */
+class ShardSet {
+    static final String CHILDREN_DIR_NAME = "children";
+
+    private final File childrenDir;
+    private final SnapshotFormat format;
+    private final Set<String> loaded = ConcurrentHashMap.newKeySet();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private volatile boolean allLoaded;
+
+    ShardSet(File dataDir, SnapshotFormat format) {
+        this.childrenDir = new File(dataDir, CHILDREN_DIR_NAME);
+        this.format = format;
+    }
+
+    File getChildrenDir() {
+        return childrenDir;
+    }
+
+    /**
+     * Usernames of all shards on disk.
+     */
+    List<String> listUsernames() {
+        List<String> usernames = new ArrayList<>();
+        File[] dirs = childrenDir.listFiles(File::isDirectory);
+        if (dirs != null) {
+            for (File dir : dirs) {
+                usernames.add(usernameOf(dir.getName()));
+            }
+        }
+        return usernames;
+    }
+
+    void read(String username, Consumer<Task> taskConsumer, Consumer<Wish> wishConsumer) throws IOException {
+        File tasksFile = tasksFile(username);
+        if (tasksFile.exists()) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(tasksFile))) {
+                format.readTasks(in, taskConsumer);
+            }
+        }
+        File wishesFile = wishesFile(username);
+        if (wishesFile.exists()) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(wishesFile))) {
+                format.readWishes(in, wishConsumer);
+            }
+        }
+    }
+
+    boolean isLoaded(String username) {
+        return loaded.contains(username);
+    }
+
+    void markLoaded(String username) {
+        loaded.add(username);
+    }
+
+    /**
+     * Whether every shard on disk has been loaded.
+     */
+    boolean isAllLoaded() {
+        return allLoaded;
+    }
+
+    void markAllLoaded() {
+        allLoaded = true;
+    }
+
+    void markDirty(String username) {
+        dirty.add(username);
+    }
+
+    /**
+     * The shards changed since the last call, clearing their dirty flags.
+     */
+    List<String> takeDirty() {
+        List<String> usernames = new ArrayList<>();
+        for (Iterator<String> it = dirty.iterator(); it.hasNext(); ) {
+            usernames.add(it.next());
+            it.remove();
+        }
+        return usernames;
+    }
+
+    void clear() {
+        loaded.clear();
+        dirty.clear();
+        allLoaded = false;
+    }
+
+    private File shardDir(String username) {
+        return new File(childrenDir, directoryName(username));
+    }
+
+    File tasksFile(String username) {
+        return new File(shardDir(username), DataManager.TASKS_FILE_NAME + format.getFileExtension());
+    }
+
+    File wishesFile(String username) {
+        return new File(shardDir(username), DataManager.WISHES_FILE_NAME + format.getFileExtension());
+    }
+
+    static String directoryName(String username) {
+        String encoded = URLEncoder.encode(username, StandardCharsets.UTF_8);
+        // URLEncoder keeps '.' and '*', which would allow names like ".." or ones Windows rejects
+        return encoded.replace(".", "%2E").replace("*", "%2A");
+    }
+
+    static String usernameOf(String directoryName) {
+        return URLDecoder.decode(directoryName, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,146 @@
+package com.kidtask.data;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.kidtask.models.Task;
+import com.kidtask.models.TaskTemplate;
+import com.kidtask.models.Wish;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts the snapshot files in a data directory between storage formats:
+ * the flat Users, Tasks and Wishes files and, in the sharded layout, each
+ * child's Tasks and Wishes files. Templates are always JSON; they are read
+ * and written again with the rest. All files are committed as one
+ * {@link SnapshotWriter} transaction, and the source files are left in place.
+ * The conversion is lossless in both directions.
+ * Run it while no DataManager is using the directory.
+ *
+ * Usage: SnapshotConverter &lt;dataDir&gt; &lt;JSON|BINARY&gt; &lt;JSON|BINARY&gt;
+ */
+public class SnapshotConverter {
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.err.println("Usage: SnapshotConverter <dataDir> <JSON|BINARY> <JSON|BINARY>");
+            System.exit(1);
+        }
+
+        try {
+            convert(new File(args[0]),
+                    StorageFormat.valueOf(args[1].toUpperCase()),
+                    StorageFormat.valueOf(args[2].toUpperCase()));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Conversion failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Read each snapshot file in the source format and write it next to it in the target format.
+     * Missing source files are skipped.
+     */
+    public static void convert(File dataDir, StorageFormat from, StorageFormat to) throws IOException {
+        SnapshotFormat source = DataManager.createSnapshotFormat(from);
+        SnapshotFormat target = DataManager.createSnapshotFormat(to);
+        if (source.getFileExtension().equals(target.getFileExtension())) {
+            return;
+        }
+
+        SnapshotWriter writer = new SnapshotWriter(dataDir);
+        try {
+            // Finish or discard an interrupted save before reading
+            writer.recover();
+
+            Map<File, SnapshotWriter.Content> files = new LinkedHashMap<>();
+            File usersFile = new File(dataDir, DataManager.USERS_FILE_NAME + source.getFileExtension());
+            if (usersFile.exists()) {
+                List<UserData> users = new ArrayList<>();
+                read(usersFile, in -> source.readUsers(in, users::add));
+                files.put(new File(dataDir, DataManager.USERS_FILE_NAME + target.getFileExtension()),
+                        out -> target.writeUsers(out, users));
+            }
+            convertTasks(new File(dataDir, DataManager.TASKS_FILE_NAME + source.getFileExtension()),
+                    new File(dataDir, DataManager.TASKS_FILE_NAME + target.getFileExtension()),
+                    source, target, files);
+            convertWishes(new File(dataDir, DataManager.WISHES_FILE_NAME + source.getFileExtension()),
+                    new File(dataDir, DataManager.WISHES_FILE_NAME + target.getFileExtension()),
+                    source, target, files);
+
+            ShardSet sourceShards = new ShardSet(dataDir, source);
+            ShardSet targetShards = new ShardSet(dataDir, target);
+            for (String username : sourceShards.listUsernames()) {
+                convertTasks(sourceShards.tasksFile(username), targetShards.tasksFile(username),
+                        source, target, files);
+                convertWishes(sourceShards.wishesFile(username), targetShards.wishesFile(username),
+                        source, target, files);
+            }
+
+            File templatesFile = new File(dataDir, DataManager.TEMPLATES_FILE_NAME);
+            if (templatesFile.exists()) {
+                Gson gson = JsonSnapshotFormat.gsonBuilder().create();
+                TaskTemplate[] templates;
+                try (Reader reader = new InputStreamReader(new FileInputStream(templatesFile),
+                        StandardCharsets.UTF_8)) {
+                    templates = gson.fromJson(reader, TaskTemplate[].class);
+                } catch (JsonParseException e) {
+                    throw new IOException("Unreadable " + templatesFile + ": " + e.getMessage());
+                }
+                List<TaskTemplate> templateList = templates != null
+                        ? Arrays.asList(templates) : Collections.emptyList();
+                files.put(templatesFile, out -> {
+                    Writer templateWriter = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                    gson.toJson(templateList, templateWriter);
+                    templateWriter.flush();
+                });
+            }
+
+            writer.commit(files);
+            for (File file : files.keySet()) {
+                System.out.println("Wrote " + file);
+            }
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    /**
+     * Reads one snapshot file.
+     */
+    private interface SnapshotReader {
+        void read(InputStream in) throws IOException;
+    }
+
+    private static void read(File file, SnapshotReader reader) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            reader.read(in);
+        }
+    }
+
+    private static void convertTasks(File sourceFile, File targetFile, SnapshotFormat source, SnapshotFormat target,
+                                     Map<File, SnapshotWriter.Content> files) throws IOException {
+        if (!sourceFile.exists()) {
+            return;
+        }
+        List<Task> tasks = new ArrayList<>();
+        read(sourceFile, in -> source.readTasks(in, tasks::add));
+        files.put(targetFile, out -> target.writeTasks(out, tasks));
+    }
+
+    private static void convertWishes(File sourceFile, File targetFile, SnapshotFormat source, SnapshotFormat target,
+                                      Map<File, SnapshotWriter.Content> files) throws IOException {
+        if (!sourceFile.exists()) {
+            return;
+        }
+        List<Wish> wishes = new ArrayList<>();
+        read(sourceFile, in -> source.readWishes(in, wishes::add));
+        files.put(targetFile, out -> target.writeWishes(out, wishes));
+    }
+}
@@ -0,0 +1,33 @@
+package com.kidtask.data;
+
+import com.kidtask.models.Task;
+import com.kidtask.models.Wish;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+/**
+ * On-disk encoding of the users, tasks and wishes snapshot files.
+ * Readers hand records to the consumer one at a time as they are decoded.
+ */
+interface SnapshotFormat {
+
+    /**
+     * File name extension, including the dot, used for snapshot files in this format.
+     */
+    String getFileExtension();
+
+    void readUsers(InputStream in, Consumer<UserData> consumer) throws IOException;
+
+    void writeUsers(OutputStream out, Iterable<UserData> users) throws IOException;
+
+    void readTasks(InputStream in, Consumer<Task> consumer) throws IOException;
+
+    void writeTasks(OutputStream out, Iterable<Task> tasks) throws IOException;
+
+    void readWishes(InputStream in, Consumer<Wish> consumer) throws IOException;
+
+    void writeWishes(OutputStream out, Iterable<Wish> wishes) throws IOException;
+}
@@ -0,0 +1,368 @@
+package com.kidtask.data;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Writes a set of snapshot files as one transaction.
+ * <ol>
+ *   <li>Each file is encoded into a reused buffer and written to a temporary
+ *       file next to it, which is forced to disk. Files are written in parallel.</li>
+ *   <li>A manifest with the next generation number and the size and checksum
+ *       of every file is written and forced; replacing it commits the set.</li>
+ *   <li>The temporary files are moved over the originals.</li>
+ * </ol>
+ * {@link #recover()} finishes a committed transaction interrupted by a crash
+ * and discards an uncommitted one, so the files always load as a consistent set.
+ *
+ * Append-only files, such as the task archive, are not rewritten but take
+ * part through their length: each is forced to disk before the manifest,
+ * which records the length it had when the snapshot was copied, and
+ * {@link #recover()} cuts off anything appended after the last commit.
+ */
+class SnapshotWriter {
+    static final String MANIFEST_FILE_NAME = "manifest";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int WRITER_THREADS = 3;
+    // Buffers that grew past this are not kept for the next save
+    private static final int MAX_RETAINED_BUFFER = 16 * 1024 * 1024;
+
+    /**
+     * Encodes the content of one file.
+     */
+    interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Byte array stream whose array can be written out without copying.
+     */
+    private static class Buffer extends ByteArrayOutputStream {
+        Buffer() {
+            super(64 * 1024);
+        }
+
+        ByteBuffer contents() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+
+        long checksum() {
+            CRC32 crc = new CRC32();
+            crc.update(buf, 0, count);
+            return crc.getValue();
+        }
+
+        boolean isOversized() {
+            return buf.length > MAX_RETAINED_BUFFER;
+        }
+    }
+
+    /**
+     * A file written in the current transaction.
+     */
+    private static class Entry {
+        private final String path;
+        private final long size;
+        private final long checksum;
+
+        Entry(String path, long size, long checksum) {
+            this.path = path;
+            this.size = size;
+            this.checksum = checksum;
+        }
+    }
+
+    private final File dataDir;
+    private final File manifestFile;
+    private final ExecutorService writers;
+    private final ThreadLocal<Buffer> buffers = ThreadLocal.withInitial(Buffer::new);
+    private long generation;
+    // Committed length of each append-only file, by path; carried into every manifest
+    private Map<String, Long> appendedLengths = new TreeMap<>();
+
+    SnapshotWriter(File dataDir) {
+        this.dataDir = dataDir;
+        this.manifestFile = new File(dataDir, MANIFEST_FILE_NAME);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(WRITER_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "kidtask-snapshot-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Bring the files in line with the last committed manifest. Call before reading them.
+     */
+    synchronized void recover() throws IOException {
+        if (manifestFile.exists()) {
+            recoverCommitted();
+        }
+        // Whatever temporary files are left belong to transactions that never committed,
+        // including files the last manifest does not list, such as a new shard
+        List<Path> leftOver;
+        try (Stream<Path> paths = Files.walk(dataDir.toPath())) {
+            leftOver = paths.filter(path -> path.getFileName().toString().endsWith(TEMP_SUFFIX)
+                    && Files.isRegularFile(path)).collect(Collectors.toList());
+        }
+        for (Path path : leftOver) {
+            System.err.println("Discarding uncommitted " + path);
+            Files.delete(path);
+        }
+    }
+
+    private void recoverCommitted() throws IOException {
+        JsonObject manifest;
+        try (Reader reader = new InputStreamReader(new FileInputStream(manifestFile), StandardCharsets.UTF_8)) {
+            manifest = JsonParser.parseReader(reader).getAsJsonObject();
+        } catch (JsonParseException | IllegalStateException e) {
+            throw new IOException("Unreadable snapshot manifest: " + e.getMessage());
+        }
+        generation = manifest.get("generation").getAsLong();
+
+        appendedLengths = new TreeMap<>();
+        if (manifest.has("appendOnly")) {
+            for (JsonElement element : manifest.getAsJsonArray("appendOnly")) {
+                JsonObject file = element.getAsJsonObject();
+                String path = file.get("path").getAsString();
+                long length = file.get("size").getAsLong();
+                appendedLengths.put(path, length);
+                truncate(new File(dataDir, path), length);
+            }
+        }
+
+        Set<File> dirs = new LinkedHashSet<>();
+        for (JsonElement element : manifest.getAsJsonArray("files")) {
+            JsonObject file = element.getAsJsonObject();
+            File target = new File(dataDir, file.get("path").getAsString());
+            File temp = tempFile(target);
+            if (!temp.exists()) {
+                continue;
+            }
+            if (temp.length() == file.get("size").getAsLong()
+                    && checksum(temp) == file.get("crc32").getAsLong()) {
+                // Committed, but the crash came before it was moved into place
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                dirs.add(target.getParentFile());
+            } else {
+                Files.delete(temp.toPath());
+            }
+        }
+        for (File dir : dirs) {
+            forceDirectory(dir);
+        }
+    }
+
+    /**
+     * Write the files as one transaction. On failure the previous files are
+     * left untouched and the exception is rethrown.
+     */
+    synchronized void commit(Map<File, Content> files) throws IOException {
+        commit(files, Collections.emptyMap());
+    }
+
+    /**
+     * Write the files and commit the given lengths of append-only files as one
+     * transaction. Appends past a committed length are cut off by the next
+     * {@link #recover()} unless a later transaction commits them.
+     */
+    synchronized void commit(Map<File, Content> files, Map<File, Long> appendOnly) throws IOException {
+        Map<String, Long> lengths = new TreeMap<>(appendedLengths);
+        for (Map.Entry<File, Long> file : appendOnly.entrySet()) {
+            lengths.put(relativePath(file.getKey()), file.getValue());
+        }
+        if (files.isEmpty() && lengths.equals(appendedLengths)) {
+            return;
+        }
+
+        List<Future<Entry>> pending = new ArrayList<>();
+        for (Map.Entry<File, Content> file : files.entrySet()) {
+            pending.add(writers.submit(() -> writeTemp(file.getKey(), file.getValue())));
+        }
+        List<Entry> entries = new ArrayList<>();
+        IOException failure = null;
+        for (Future<Entry> future : pending) {
+            try {
+                entries.add(future.get());
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof IOException
+                            ? (IOException) e.getCause() : new IOException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = new InterruptedIOException("Interrupted while saving");
+            }
+        }
+        if (failure != null) {
+            for (File target : files.keySet()) {
+                Files.deleteIfExists(tempFile(target).toPath());
+            }
+            throw failure;
+        }
+
+        Set<File> dirs = new LinkedHashSet<>();
+        for (File target : files.keySet()) {
+            dirs.add(target.getParentFile());
+        }
+        // The temporary files themselves must survive a crash once the manifest does
+        for (File dir : dirs) {
+            forceDirectory(dir);
+        }
+        for (File file : appendOnly.keySet()) {
+            forceFile(file);
+        }
+        writeManifest(generation + 1, entries, lengths);
+        generation++;
+        appendedLengths = lengths;
+
+        for (File target : files.keySet()) {
+            Files.move(tempFile(target).toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+        for (File dir : dirs) {
+            forceDirectory(dir);
+        }
+    }
+
+    void shutdown() {
+        writers.shutdown();
+    }
+
+    private Entry writeTemp(File target, Content content) throws IOException {
+        Buffer buffer = buffers.get();
+        buffer.reset();
+        try {
+            content.writeTo(buffer);
+            // Unlike mkdirs, this does not fail when another writer creates a parent concurrently
+            Files.createDirectories(target.getParentFile().toPath());
+            writeFully(tempFile(target).toPath(), buffer.contents());
+            return new Entry(relativePath(target), buffer.size(), buffer.checksum());
+        } finally {
+            if (buffer.isOversized()) {
+                buffers.remove();
+            }
+        }
+    }
+
+    private void writeManifest(long newGeneration, List<Entry> entries, Map<String, Long> lengths)
+            throws IOException {
+        JsonArray fileList = new JsonArray();
+        for (Entry entry : entries) {
+            JsonObject file = new JsonObject();
+            file.addProperty("path", entry.path);
+            file.addProperty("size", entry.size);
+            file.addProperty("crc32", entry.checksum);
+            fileList.add(file);
+        }
+        JsonArray appendedList = new JsonArray();
+        for (Map.Entry<String, Long> length : lengths.entrySet()) {
+            JsonObject file = new JsonObject();
+            file.addProperty("path", length.getKey());
+            file.addProperty("size", length.getValue());
+            appendedList.add(file);
+        }
+        JsonObject manifest = new JsonObject();
+        manifest.addProperty("generation", newGeneration);
+        manifest.add("files", fileList);
+        manifest.add("appendOnly", appendedList);
+
+        File temp = tempFile(manifestFile);
+        writeFully(temp.toPath(), ByteBuffer.wrap(manifest.toString().getBytes(StandardCharsets.UTF_8)));
+        Files.move(temp.toPath(), manifestFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(dataDir);
+    }
+
+    private static void writeFully(Path path, ByteBuffer contents) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (contents.hasRemaining()) {
+                channel.write(contents);
+            }
+            channel.force(true);
+        }
+    }
+
+    private static void forceFile(File file) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    private static void truncate(File file, long length) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        if (file.length() <= length) {
+            if (file.length() < length) {
+                System.err.println(file + " is shorter than its committed length " + length);
+            }
+            return;
+        }
+        System.err.println("Cutting uncommitted appends off " + file + " at " + length);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Make renames in a directory durable. Not supported on every platform, where it is skipped.
+     */
+    static void forceDirectory(File dir) {
+        try (FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // e.g. Windows cannot open a directory as a channel
+        }
+    }
+
+    private static long checksum(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] chunk = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(chunk)) > 0) {
+                crc.update(chunk, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private String relativePath(File file) {
+        return dataDir.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+    }
+
+    private static File tempFile(File target) {
+        return new File(target.getPath() + TEMP_SUFFIX);
+    }
+}
@@ -0,0 +1,47 @@
+package com.kidtask.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * {@link MultiIndex} with its keys kept in order, for range queries.
+ */
+class SortedMultiIndex<K extends Comparable<K>, V> extends MultiIndex<K, V> {
+    private final ConcurrentSkipListMap<K, ConcurrentSkipListMap<Long, V>> sortedBuckets;
+
+    SortedMultiIndex() {
+        this(new ConcurrentSkipListMap<>());
+    }
+
+    private SortedMultiIndex(ConcurrentSkipListMap<K, ConcurrentSkipListMap<Long, V>> buckets) {
+        super(buckets);
+        this.sortedBuckets = buckets;
+    }
+
+    /**
+     * The entities filed under keys from {@code from} (inclusive) to
+     * {@code to} (exclusive), ordered by key and then by insertion.
+     * A null bound leaves that end of the range open.
+     */
+    public List<V> getRange(K from, K to) {
+        ConcurrentNavigableMap<K, ConcurrentSkipListMap<Long, V>> range;
+        if (from == null && to == null) {
+            range = sortedBuckets;
+        } else if (from == null) {
+            range = sortedBuckets.headMap(to);
+        } else if (to == null) {
+            range = sortedBuckets.tailMap(from);
+        } else if (from.compareTo(to) >= 0) {
+            return new ArrayList<>();
+        } else {
+            range = sortedBuckets.subMap(from, to);
+        }
+        List<V> values = new ArrayList<>();
+        for (ConcurrentSkipListMap<Long, V> bucket : range.values()) {
+            values.addAll(bucket.values());
+        }
+        return values;
+    }
+}
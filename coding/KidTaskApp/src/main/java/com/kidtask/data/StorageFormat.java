@@ -0,0 +1,11 @@
+package com.kidtask.data;
+
+/**
+ * Encoding used for the snapshot files.
+ */
+public enum StorageFormat {
+    /** Pretty-printed JSON text (Users.txt, Tasks.txt, Wishes.txt). */
+    JSON,
+    /** Compact versioned binary encoding (Users.bin, Tasks.bin, Wishes.bin). */
+    BINARY
+}
@@ -0,0 +1,14 @@
+package com.kidtask.data;
+
+/**
+ * How tasks and wishes are split across snapshot files.
+ */
+public enum StorageLayout {
+    /** One Tasks and one Wishes file for the whole installation. */
+    FLAT,
+    /**
+     * One Tasks and one Wishes file per child under children/&lt;username&gt;/,
+     * loaded on first access and only rewritten when that child's data changed.
+     */
+    SHARDED
+}
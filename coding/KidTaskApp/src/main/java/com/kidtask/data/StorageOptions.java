@@ -0,0 +1,92 @@
+package com.kidtask.data;
+
+/**
+ * Options controlling where and how the DataManager persists its data.
+ */
+public class StorageOptions {
+    private String dataDir;
+    private boolean journaled;
+    private boolean journalSynced;
+    private StorageFormat format;
+    private boolean archiveEnabled;
+    private StorageLayout layout;
+
+    public StorageOptions() {
+        this.dataDir = "data";
+        this.journaled = false;
+        this.journalSynced = true;
+        this.format = StorageFormat.JSON;
+        this.archiveEnabled = false;
+        this.layout = StorageLayout.FLAT;
+    }
+
+    public String getDataDir() {
+        return dataDir;
+    }
+
+    public StorageOptions setDataDir(String dataDir) {
+        this.dataDir = dataDir;
+        return this;
+    }
+
+    /**
+     * When journaled, every mutation is appended to a journal file and the
+     * snapshot files are only rewritten by periodic background compaction.
+     */
+    public boolean isJournaled() {
+        return journaled;
+    }
+
+    public StorageOptions setJournaled(boolean journaled) {
+        this.journaled = journaled;
+        return this;
+    }
+
+    /**
+     * When synced (the default), the journal is forced to disk after every
+     * mutation or batch, so journaled changes survive a power loss. Without
+     * it they only survive a crash of the process, but mutations are faster.
+     */
+    public boolean isJournalSynced() {
+        return journalSynced;
+    }
+
+    public StorageOptions setJournalSynced(boolean journalSynced) {
+        this.journalSynced = journalSynced;
+        return this;
+    }
+
+    public StorageFormat getFormat() {
+        return format;
+    }
+
+    public StorageOptions setFormat(StorageFormat format) {
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * When enabled, approved, rejected and expired tasks are moved out of memory into
+     * a memory-mapped archive file instead of the tasks snapshot.
+     */
+    public boolean isArchiveEnabled() {
+        return archiveEnabled;
+    }
+
+    public StorageOptions setArchiveEnabled(boolean archiveEnabled) {
+        this.archiveEnabled = archiveEnabled;
+        return this;
+    }
+
+    /**
+     * Use {@link ShardMigrator} to move an existing flat data directory to the sharded layout.
+     */
+    public StorageLayout getLayout() {
+        return layout;
+    }
+
+    public StorageOptions setLayout(StorageLayout layout) {
+        this.layout = layout;
+        return this;
+    }
+}
@@ -0,0 +1,46 @@
+package com.kidtask.data;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical instances of the short strings that repeat across many records:
+ * usernames and wish types. Loading a snapshot otherwise creates a separate
+ * copy of "child1" for every task assigned to child1; with the copies
+ * replaced by one shared instance, each record only holds a reference.
+ *
+ * The table only grows, so it is capped; past the cap strings are returned
+ * as given. Thread-safe.
+ */
+final class SymbolTable {
+    /** The table shared by all readers of persisted and posted data. */
+    static final SymbolTable SHARED = new SymbolTable(1 << 16);
+
+    private final ConcurrentHashMap<String, String> symbols = new ConcurrentHashMap<>();
+    private final int capacity;
+
+    SymbolTable(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * The canonical instance equal to the given string, or null for null.
+     */
+    String canonical(String value) {
+        if (value == null) {
+            return null;
+        }
+        String symbol = symbols.get(value);
+        if (symbol != null) {
+            return symbol;
+        }
+        if (symbols.size() >= capacity) {
+            return value;
+        }
+        symbol = symbols.putIfAbsent(value, value);
+        return symbol != null ? symbol : value;
+    }
+
+    int size() {
+        return symbols.size();
+    }
+}
@@ -0,0 +1,559 @@
+package com.kidtask.data;
+
+import com.kidtask.models.EntityId;
+import com.kidtask.models.Task;
+import com.kidtask.models.TaskStatus;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only archive of tasks in a terminal state (APPROVED, REJECTED or EXPIRED).
+ *
+ * Archived tasks are never changed again, so they are kept out of the heap:
+ * records live in a file that is read through a MappedByteBuffer, and tasks
+ * are decoded on demand. What stays on the heap per archived task is an id
+ * to offset map entry, its offset in the assignee's offset array and a row
+ * of the aggregate columns (see {@link TaskColumns}); after the first
+ * search, also its postings in the full-text index. That comes to under
+ * 200 bytes per task, however long its title and description are.
+ * All methods are thread-safe.
+ *
+ * The file is mapped as a whole, so it is limited to 2 GB; appends that
+ * would grow it further fail. Replaced and removed tasks leave dead frames
+ * behind until {@link #compact()} rewrites the file, and the offsets they
+ * had stay on the heap until the archive is opened again. Appends are not forced
+ * to disk here: DataManager commits the archive length with each snapshot
+ * (see {@link SnapshotWriter}), and appends past it are cut off on recovery.
+ *
+ * Every frame has the same fixed header, followed by a binary-encoded task
+ * (or, for a tombstone, the id of a removed task):
+ * <pre>
+ *   int  length of the rest of the frame
+ *   byte frame type
+ *   byte status ordinal
+ *   int  points
+ *   ...  payload
+ * </pre>
+ */
+class TaskArchive {
+    private static final byte FRAME_TASK = 1;
+    private static final byte FRAME_TOMBSTONE = 2;
+    private static final int HEADER_SIZE = 4 + 1 + 1 + 4;
+    private static final String COMPACT_SUFFIX = ".compact";
+    // Compact only once dead frames take up more than this, and more than half the file
+    private static final long MIN_COMPACTION_BYTES = 1024 * 1024;
+
+    /**
+     * Receives the fixed header of archived frames; no task is decoded.
+     */
+    interface HeaderVisitor {
+        void visit(String assignedTo, TaskStatus status, int points);
+    }
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final File file;
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private int size;
+    // Bytes of tombstones and of frames of replaced or removed tasks
+    private long deadBytes;
+
+    // On-heap offset index
+    private final Map<EntityId, Integer> offsetById = new LinkedHashMap<>();
+    private final Map<String, OffsetList> offsetsByChild = new HashMap<>();
+    // Earlier offsets of tasks replaced or removed since the file was opened,
+    // so that views taken before can still find them (see TaskView#indexOfId)
+    private final Map<EntityId, int[]> retiredOffsets = new HashMap<>();
+    // Full-text index of task ids, built on the first search
+    private final TextIndex<EntityId> text = new TextIndex<>();
+    // Aggregate columns of the archived tasks
+    private final TaskColumns columns = new TaskColumns();
+
+    TaskArchive(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Terminal tasks are never modified again and belong in the archive.
+     */
+    static boolean isArchivable(Task task) {
+        return task.getStatus() == TaskStatus.APPROVED || task.getStatus() == TaskStatus.REJECTED
+                || task.getStatus() == TaskStatus.EXPIRED;
+    }
+
+    /**
+     * Open the archive file and rebuild the offset index.
+     * A torn frame at the end of the file (e.g. after a crash) is cut off.
+     */
+    public synchronized void open() throws IOException {
+        close();
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() > Integer.MAX_VALUE) {
+            close();
+            throw new IOException(file + " is larger than 2 GB and cannot be mapped");
+        }
+        size = (int) channel.size();
+        deadBytes = 0;
+        offsetById.clear();
+        offsetsByChild.clear();
+        text.clear();
+        columns.clear();
+
+        // Read through the channel: the file is only mapped once it is in its final shape
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(channel.position(0)), 64 * 1024));
+        int offset = 0;
+        while (offset + HEADER_SIZE <= size) {
+            int length = in.readInt();
+            if (length < HEADER_SIZE - 4 || offset + 4 + length > size) {
+                break;
+            }
+            byte type = in.readByte();
+            in.skipBytes(HEADER_SIZE - 4 - 1);
+            byte[] payload = new byte[length - (HEADER_SIZE - 4)];
+            in.readFully(payload);
+            DataInputStream payloadIn = new DataInputStream(new ByteArrayInputStream(payload));
+            if (type == FRAME_TASK) {
+                Task task = BinarySnapshotFormat.readTask(payloadIn);
+                index(task.getId(), task.getAssignedTo(), offset);
+                columns.put(task);
+            } else {
+                unindex(BinarySnapshotFormat.readId(payloadIn));
+                deadBytes += 4 + length;
+            }
+            offset += 4 + length;
+        }
+
+        if (offset != size) {
+            System.err.println("Truncating incomplete archive frame at offset " + offset);
+            channel.truncate(offset);
+            size = offset;
+        }
+        // No view was taken yet that could hold the frames retired while reading
+        retiredOffsets.clear();
+    }
+
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            mapped = null;
+        }
+    }
+
+    public synchronized boolean contains(EntityId taskId) {
+        return offsetById.containsKey(taskId);
+    }
+
+    public synchronized int size() {
+        return offsetById.size();
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Length of the archive file in bytes.
+     */
+    public synchronized long length() {
+        return size;
+    }
+
+    /**
+     * Whether enough of the file is dead frames for {@link #compact()} to be worth it.
+     */
+    public synchronized boolean isWorthCompacting() {
+        return deadBytes >= MIN_COMPACTION_BYTES && deadBytes > size / 2;
+    }
+
+    /**
+     * Rewrite the file with only the frames of archived tasks, in archive
+     * order, dropping tombstones and replaced frames. The compacted file
+     * replaces the old one in a single rename; the caller commits its new
+     * length (see {@link SnapshotWriter}) before appending anything else.
+     *
+     * Call it right after {@link #open()}, before anything is read: Windows
+     * cannot replace a file that is still mapped, and Java only releases a
+     * mapping when the garbage collector gets to it.
+     */
+    public synchronized void compact() throws IOException {
+        File temp = new File(file.getPath() + COMPACT_SUFFIX);
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+        try (FileChannel out = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int offset : offsetById.values()) {
+                lengthBuffer.clear();
+                readFully(lengthBuffer, offset);
+                long end = offset + 4 + lengthBuffer.getInt(0);
+                for (long position = offset; position < end; ) {
+                    position += channel.transferTo(position, end - position, out);
+                }
+            }
+            out.force(true);
+        }
+
+        close();
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            SnapshotWriter.forceDirectory(file.getAbsoluteFile().getParentFile());
+        } finally {
+            // The compacted file, or the old one if it could not be replaced
+            open();
+        }
+    }
+
+    /**
+     * Append a terminal task, replacing any archived task with the same id.
+     */
+    public synchronized void append(Task task) throws IOException {
+        if (contains(task.getId())) {
+            remove(task.getId());
+        }
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        BinarySnapshotFormat.writeTask(new DataOutputStream(payload), task);
+        int offset = writeFrame(FRAME_TASK, task.getStatus(), task.getPoints(), payload.toByteArray());
+        index(task.getId(), task.getAssignedTo(), offset);
+        columns.put(task);
+        text.put(task.getId(), task.getId(), task.getAssignedTo(), task.getTitle(), task.getDescription());
+    }
+
+    /**
+     * Remove an archived task by appending a tombstone for it.
+     */
+    public synchronized boolean remove(EntityId taskId) throws IOException {
+        if (!contains(taskId)) {
+            return false;
+        }
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        BinarySnapshotFormat.writeId(new DataOutputStream(payload), taskId);
+        int offset = writeFrame(FRAME_TOMBSTONE, null, 0, payload.toByteArray());
+        deadBytes += size - offset;
+        unindex(taskId);
+        text.remove(taskId);
+        return true;
+    }
+
+    public synchronized Task get(EntityId taskId) {
+        Integer offset = offsetById.get(taskId);
+        return offset != null ? decode(currentBuffer(), offset) : null;
+    }
+
+    /**
+     * Offsets the task had in views taken since the archive was opened: its
+     * current one, if it is still archived, and the ones it was replaced from.
+     */
+    private synchronized int[] offsetsOf(EntityId taskId) {
+        int[] retired = retiredOffsets.getOrDefault(taskId, new int[0]);
+        Integer offset = offsetById.get(taskId);
+        if (offset == null) {
+            return retired;
+        }
+        int[] offsets = Arrays.copyOf(retired, retired.length + 1);
+        offsets[retired.length] = offset;
+        return offsets;
+    }
+
+    /**
+     * Add the aggregates of the matching archived tasks to {@code into} (see {@link TaskColumns#aggregate}).
+     */
+    public void aggregate(String createdBy, Long fromEpochDay, Long toEpochDay, Map<String, TaskStatistics> into) {
+        columns.aggregate(createdBy, fromEpochDay, toEpochDay, into);
+    }
+
+    /**
+     * Ids of the archived tasks matching a full-text query, best first (see
+     * {@link TextIndex#search}), optionally only those assigned to one child.
+     * The first search decodes every archived task to build the index.
+     */
+    public synchronized List<TextIndex.Hit<EntityId>> search(String query, String assignedTo, int limit) {
+        if (!text.isBuilt()) {
+            text.build(index -> {
+                for (Task task : all()) {
+                    index.put(task.getId(), task.getId(), task.getAssignedTo(),
+                            task.getTitle(), task.getDescription());
+                }
+            });
+        }
+        return text.search(query, assignedTo, limit);
+    }
+
+    /**
+     * Lazily decoded view of all archived tasks, in archive order.
+     */
+    public synchronized TaskView all() {
+        int[] offsets = new int[offsetById.size()];
+        int i = 0;
+        for (int offset : offsetById.values()) {
+            offsets[i++] = offset;
+        }
+        return new TaskView(this, currentBuffer(), offsets);
+    }
+
+    /**
+     * Lazily decoded view of the archived tasks assigned to a child.
+     */
+    public synchronized TaskView getByAssignee(String username) {
+        OffsetList offsets = offsetsByChild.get(username);
+        if (offsets == null) {
+            return new TaskView(this, currentBuffer(), new int[0]);
+        }
+        return new TaskView(this, currentBuffer(), offsets.toArray());
+    }
+
+    /**
+     * Lazily decoded view of the archived tasks with a status.
+     * Only the fixed frame header is read to filter.
+     */
+    public synchronized TaskView getByStatus(TaskStatus status) {
+        MappedByteBuffer buffer = currentBuffer();
+        int[] offsets = new int[offsetById.size()];
+        int count = 0;
+        for (int offset : offsetById.values()) {
+            if (buffer.get(offset + 5) == status.ordinal()) {
+                offsets[count++] = offset;
+            }
+        }
+        return new TaskView(this, buffer, Arrays.copyOf(offsets, count));
+    }
+
+    /**
+     * Visit the status and points of every archived task.
+     */
+    public synchronized void forEachHeader(HeaderVisitor visitor) {
+        for (String assignedTo : offsetsByChild.keySet()) {
+            forEachHeader(assignedTo, visitor);
+        }
+    }
+
+    /**
+     * Visit the status and points of the archived tasks assigned to a child.
+     */
+    public synchronized void forEachHeader(String assignedTo, HeaderVisitor visitor) {
+        OffsetList offsets = offsetsByChild.get(assignedTo);
+        if (offsets == null) {
+            return;
+        }
+        MappedByteBuffer buffer = currentBuffer();
+        for (int i = 0; i < offsets.size(); i++) {
+            int offset = offsets.get(i);
+            visitor.visit(assignedTo, STATUSES[buffer.get(offset + 5)], buffer.getInt(offset + 6));
+        }
+    }
+
+    private int writeFrame(byte type, TaskStatus status, int points, byte[] payload) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        frame.putInt(HEADER_SIZE - 4 + payload.length);
+        frame.put(type);
+        frame.put((byte) (status != null ? status.ordinal() : -1));
+        frame.putInt(points);
+        frame.put(payload);
+        frame.flip();
+        if ((long) size + frame.limit() > Integer.MAX_VALUE) {
+            throw new IOException("Task archive " + file + " is full; it cannot grow past 2 GB");
+        }
+
+        int offset = size;
+        while (frame.hasRemaining()) {
+            channel.write(frame, size + frame.position());
+        }
+        size += frame.limit();
+        return offset;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Archive frame at " + position + " runs past the end of " + file);
+            }
+        }
+    }
+
+    private void index(EntityId taskId, String assignedTo, int offset) {
+        unindex(taskId);
+        offsetById.put(taskId, offset);
+        offsetsByChild.computeIfAbsent(assignedTo, k -> new OffsetList()).add(offset);
+    }
+
+    private void unindex(EntityId taskId) {
+        Integer offset = offsetById.remove(taskId);
+        if (offset == null) {
+            return;
+        }
+        // The columns hold the assignee, so the frame need not be read
+        String assignedTo = columns.getAssignee(taskId);
+        columns.remove(taskId);
+        retiredOffsets.merge(taskId, new int[] {offset}, (retired, added) -> {
+            int[] offsets = Arrays.copyOf(retired, retired.length + 1);
+            offsets[retired.length] = added[0];
+            return offsets;
+        });
+        deadBytes += frameSize(offset);
+        OffsetList offsets = offsetsByChild.get(assignedTo);
+        if (offsets != null) {
+            offsets.remove(offset);
+        }
+    }
+
+    /**
+     * Size of the frame at an offset, read through the channel so the file need not be mapped.
+     */
+    private int frameSize(int offset) {
+        ByteBuffer length = ByteBuffer.allocate(4);
+        try {
+            readFully(length, offset);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return 4 + length.getInt(0);
+    }
+
+    /**
+     * The mapping only covers the file as it was when mapped; remap after appends.
+     */
+    private MappedByteBuffer currentBuffer() {
+        if (mapped == null || mapped.capacity() < size) {
+            try {
+                remap();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return mapped;
+    }
+
+    private void remap() throws IOException {
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    private static Task decode(MappedByteBuffer buffer, int offset) {
+        try {
+            return BinarySnapshotFormat.readTask(payloadStream(buffer, offset));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt archive frame at offset " + offset, e);
+        }
+    }
+
+    private static DataInputStream payloadStream(MappedByteBuffer buffer, int offset) {
+        ByteBuffer frame = buffer.duplicate();
+        frame.limit(offset + 4 + buffer.getInt(offset));
+        frame.position(offset + HEADER_SIZE);
+        return new DataInputStream(new ByteBufferInputStream(frame.slice()));
+    }
+
+    /**
+     * Read-only list that decodes each archived task when it is accessed.
+     * Its offsets are in ascending order, like the frames were appended.
+     */
+    static class TaskView extends AbstractList<Task> {
+        private final TaskArchive archive;
+        private final MappedByteBuffer buffer;
+        private final int[] offsets;
+
+        TaskView(TaskArchive archive, MappedByteBuffer buffer, int[] offsets) {
+            this.archive = archive;
+            this.buffer = buffer;
+            this.offsets = offsets;
+        }
+
+        @Override
+        public Task get(int index) {
+            return decode(buffer, offsets[index]);
+        }
+
+        @Override
+        public int size() {
+            return offsets.length;
+        }
+
+        /**
+         * Index of the task with the given id, or -1, found without decoding
+         * any task. This also finds tasks replaced or removed since.
+         */
+        int indexOfId(EntityId taskId) {
+            for (int offset : archive.offsetsOf(taskId)) {
+                int index = Arrays.binarySearch(offsets, offset);
+                if (index >= 0) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Growable list of primitive offsets.
+     */
+    private static class OffsetList {
+        private int[] offsets = new int[4];
+        private int count;
+
+        void add(int offset) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = offset;
+        }
+
+        boolean remove(int offset) {
+            for (int i = 0; i < count; i++) {
+                if (offsets[i] == offset) {
+                    System.arraycopy(offsets, i + 1, offsets, i, count - i - 1);
+                    count--;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int size() {
+            return count;
+        }
+
+        int get(int index) {
+            return offsets[index];
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(offsets, count);
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(bytes, off, n);
+            return n;
+        }
+    }
+}
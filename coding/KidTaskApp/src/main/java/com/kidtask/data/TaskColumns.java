@@ -0,0 +1,216 @@
+package com.kidtask.data;
+
+import com.kidtask.models.EntityId;
+import com.kidtask.models.Task;
+import com.kidtask.models.TaskStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The fields of tasks that aggregates read, held column by column in
+ * parallel primitive arrays: points, status, rating, due day, and the
+ * assignee and creator as ids into a dictionary of usernames. An aggregate
+ * is then one pass over a few arrays, without following a pointer to each
+ * task or unboxing its rating.
+ *
+ * Each task has a slot; the slots of removed tasks are reused. Thread-safe;
+ * updates take a write lock, aggregates a read lock.
+ */
+class TaskColumns {
+    private static final int STATUS_COUNT = TaskStatus.values().length;
+    private static final byte EMPTY = -1;
+    private static final int APPROVED = TaskStatus.APPROVED.ordinal();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<EntityId, Integer> slotById = new HashMap<>();
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int size;  // Slots in use or free, all below this
+
+    private int[] points = new int[16];
+    private byte[] status = new byte[16];
+    private double[] rating = new double[16];  // NaN if not rated
+    private long[] dueEpochDay = new long[16];
+    private int[] assignee = new int[16];
+    private int[] creator = new int[16];
+
+    // Dictionary of the usernames in the assignee and creator columns
+    private final Map<String, Integer> userIds = new HashMap<>();
+    private final List<String> usernames = new ArrayList<>();
+
+    /**
+     * Add a task, or overwrite the columns of the task with the same id.
+     */
+    void put(Task task) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.get(task.getId());
+            if (slot == null) {
+                slot = allocate();
+                slotById.put(task.getId(), slot);
+            }
+            points[slot] = task.getPoints();
+            status[slot] = (byte) task.getStatus().ordinal();
+            rating[slot] = task.getRating() != null ? task.getRating() : Double.NaN;
+            dueEpochDay[slot] = task.getDueEpochDay();
+            assignee[slot] = userId(task.getAssignedTo());
+            creator[slot] = userId(task.getCreatedBy());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(EntityId taskId) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.remove(taskId);
+            if (slot != null) {
+                status[slot] = EMPTY;
+                if (freeCount == freeSlots.length) {
+                    freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+                }
+                freeSlots[freeCount++] = slot;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Assignee of a task, or null if the task is not here.
+     */
+    String getAssignee(EntityId taskId) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotById.get(taskId);
+            return slot != null ? usernames.get(assignee[slot]) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            slotById.clear();
+            freeCount = 0;
+            size = 0;
+            userIds.clear();
+            usernames.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add the aggregates of the matching tasks to each assignee's statistics
+     * in {@code into}, creating entries as needed. A null creator matches
+     * every task. With a due day bound, only tasks due from
+     * {@code fromEpochDay} (inclusive) to {@code toEpochDay} (exclusive)
+     * match; a null bound is open.
+     */
+    void aggregate(String createdBy, Long fromEpochDay, Long toEpochDay, Map<String, TaskStatistics> into) {
+        lock.readLock().lock();
+        try {
+            int creatorFilter = -1;
+            if (createdBy != null) {
+                Integer id = userIds.get(createdBy);
+                if (id == null) {
+                    return;
+                }
+                creatorFilter = id;
+            }
+            // Task.NO_DATE is Long.MIN_VALUE, so any bound leaves out tasks without a due day
+            long from = fromEpochDay != null ? fromEpochDay
+                    : toEpochDay != null ? Task.NO_DATE + 1 : Task.NO_DATE;
+            long to = toEpochDay != null ? toEpochDay : Long.MAX_VALUE;
+
+            int users = usernames.size();
+            int[] taskCounts = new int[users * STATUS_COUNT];
+            long[] pointSums = new long[users];
+            long[] earnedPoints = new long[users];
+            int[] ratingCounts = new int[users];
+            double[] ratingSums = new double[users];
+            for (int slot = 0; slot < size; slot++) {
+                int s = status[slot];
+                long due = dueEpochDay[slot];
+                if (s == EMPTY || (creatorFilter >= 0 && creator[slot] != creatorFilter)
+                        || due < from || due >= to) {
+                    continue;
+                }
+                int user = assignee[slot];
+                taskCounts[user * STATUS_COUNT + s]++;
+                pointSums[user] += points[slot];
+                if (s == APPROVED) {
+                    earnedPoints[user] += points[slot];
+                }
+                double r = rating[slot];
+                if (r == r) {
+                    ratingCounts[user]++;
+                    ratingSums[user] += r;
+                }
+            }
+
+            for (int user = 0; user < users; user++) {
+                String username = usernames.get(user);
+                if (username == null || !hasTasks(taskCounts, user)) {
+                    continue;
+                }
+                int[] counts = Arrays.copyOfRange(taskCounts, user * STATUS_COUNT, (user + 1) * STATUS_COUNT);
+                into.computeIfAbsent(username, TaskStatistics::new)
+                        .add(counts, pointSums[user], earnedPoints[user], ratingCounts[user], ratingSums[user]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean hasTasks(int[] taskCounts, int user) {
+        for (int i = user * STATUS_COUNT; i < (user + 1) * STATUS_COUNT; i++) {
+            if (taskCounts[i] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (size == status.length) {
+            int capacity = size * 2;
+            points = Arrays.copyOf(points, capacity);
+            status = Arrays.copyOf(status, capacity);
+            rating = Arrays.copyOf(rating, capacity);
+            dueEpochDay = Arrays.copyOf(dueEpochDay, capacity);
+            assignee = Arrays.copyOf(assignee, capacity);
+            creator = Arrays.copyOf(creator, capacity);
+        }
+        return size++;
+    }
+
+    private int userId(String username) {
+        Integer id = userIds.get(username);
+        if (id == null) {
+            id = usernames.size();
+            userIds.put(username, id);
+            usernames.add(username);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,125 @@
+package com.kidtask.data;
+
+import com.kidtask.models.EntityId;
+import com.kidtask.models.Task;
+import com.kidtask.models.TaskStatus;
+import com.kidtask.scheduler.DeadlineScheduler;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.function.BiConsumer;
+
+/**
+ * The due-date deadlines of pending tasks. Each task has at most one
+ * scheduled stage at a time: the reminder, then the deadline itself (the end
+ * of the due day), then expiry. Stages that passed before the task was
+ * tracked are skipped, except expiry.
+ */
+class TaskDeadlines {
+    enum Stage {
+        REMINDER,
+        OVERDUE,
+        EXPIRY
+    }
+
+    private final Clock clock;
+    private final Duration reminderLead;
+    private final Duration expireAfter;
+    private final DeadlineScheduler<EntityId, Stage> scheduler;
+
+    TaskDeadlines(DeadlineOptions options, BiConsumer<EntityId, Stage> handler) {
+        this.clock = options.getClock();
+        this.reminderLead = options.getReminderLead();
+        this.expireAfter = options.getExpireAfter();
+        this.scheduler = new DeadlineScheduler<>(clock, options.getTickMillis(), handler);
+    }
+
+    /**
+     * Schedule the next stage of a pending task with a due date, or drop the
+     * deadline of any other task.
+     */
+    void track(Task task) {
+        long deadline = deadlineMillis(task);
+        if (deadline == Task.NO_DATE) {
+            scheduler.cancel(task.getId());
+            return;
+        }
+        long now = clock.millis();
+        if (reminderLead != null && deadline - reminderLead.toMillis() > now) {
+            scheduler.schedule(task.getId(), deadline - reminderLead.toMillis(), Stage.REMINDER);
+        } else if (deadline > now) {
+            scheduler.schedule(task.getId(), deadline, Stage.OVERDUE);
+        } else if (expireAfter != null) {
+            scheduler.schedule(task.getId(), deadline + expireAfter.toMillis(), Stage.EXPIRY);
+        } else {
+            scheduler.cancel(task.getId());
+        }
+    }
+
+    /**
+     * Schedule the stage after the one that just passed, if any.
+     */
+    void trackAfter(Task task, Stage passed) {
+        long deadline = deadlineMillis(task);
+        if (passed == Stage.REMINDER && deadline != Task.NO_DATE) {
+            scheduler.schedule(task.getId(), deadline, Stage.OVERDUE);
+        } else if (passed == Stage.OVERDUE && deadline != Task.NO_DATE && expireAfter != null) {
+            scheduler.schedule(task.getId(), deadline + expireAfter.toMillis(), Stage.EXPIRY);
+        }
+    }
+
+    void untrack(EntityId taskId) {
+        scheduler.cancel(taskId);
+    }
+
+    /**
+     * Whether a stage of the task is really due; it is not if the due date
+     * moved since the stage was scheduled.
+     */
+    boolean hasPassed(Task task, Stage stage) {
+        long deadline = deadlineMillis(task);
+        if (deadline == Task.NO_DATE) {
+            return false;
+        }
+        switch (stage) {
+            case REMINDER:
+                return reminderLead != null && deadline - reminderLead.toMillis() <= clock.millis();
+            case OVERDUE:
+                return deadline <= clock.millis();
+            case EXPIRY:
+            default:
+                return expireAfter != null && deadline + expireAfter.toMillis() <= clock.millis();
+        }
+    }
+
+    void checkDeadlines() {
+        scheduler.advance();
+    }
+
+    void start() {
+        scheduler.start();
+    }
+
+    void clear() {
+        scheduler.clear();
+    }
+
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * End of the due day in the clock's time zone, or NO_DATE if the task is
+     * not pending or has no due date.
+     */
+    private long deadlineMillis(Task task) {
+        if (task.getStatus() != TaskStatus.PENDING || task.getDueEpochDay() == Task.NO_DATE) {
+            return Task.NO_DATE;
+        }
+        return LocalDate.ofEpochDay(task.getDueEpochDay() + 1)
+                .atStartOfDay(clock.getZone())
+                .toInstant()
+                .toEpochMilli();
+    }
+}
@@ -0,0 +1,53 @@
+package com.kidtask.data;
+
+import com.kidtask.models.EntityId;
+import com.kidtask.models.Task;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Read-only list of the tasks a query matched: the active ones, followed by
+ * the archived ones, which are decoded as they are read. Neither part is
+ * copied again, so the list costs the same however much history there is.
+ */
+public class TaskList extends AbstractList<Task> {
+    private final List<Task> active;
+    private final TaskArchive.TaskView archived;  // null without an archive
+
+    TaskList(List<Task> active, TaskArchive.TaskView archived) {
+        this.active = active;
+        this.archived = archived;
+    }
+
+    @Override
+    public Task get(int index) {
+        int activeSize = active.size();
+        return index < activeSize ? active.get(index) : archived.get(index - activeSize);
+    }
+
+    @Override
+    public int size() {
+        return active.size() + (archived != null ? archived.size() : 0);
+    }
+
+    /**
+     * Number of active tasks. They come first and are held in memory; the
+     * archived tasks after them are decoded on every read.
+     */
+    public int getActiveCount() {
+        return active.size();
+    }
+
+    /**
+     * Position of the archived task with the given id, or -1 if it is not in
+     * the list. No task is decoded to find it.
+     */
+    public int indexOfArchived(EntityId taskId) {
+        if (archived == null) {
+            return -1;
+        }
+        int index = archived.indexOfId(taskId);
+        return index >= 0 ? active.size() + index : -1;
+    }
+}
@@ -0,0 +1,72 @@
+package com.kidtask.data;
+
+import com.kidtask.models.TaskStatus;
+
+/**
+ * Aggregates over one child's tasks that match a filter (see
+ * {@link DataManager#getTaskStatistics}): task counts by status, points of
+ * all and of approved tasks, and the average rating of rated tasks.
+ */
+public class TaskStatistics {
+    private final String username;
+    private final int[] taskCounts = new int[TaskStatus.values().length];
+    private long points;
+    private long earnedPoints;
+    private int ratingCount;
+    private double ratingSum;
+
+    TaskStatistics(String username) {
+        this.username = username;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public int getTaskCount(TaskStatus status) {
+        return taskCounts[status.ordinal()];
+    }
+
+    public int getTotalTasks() {
+        int total = 0;
+        for (int count : taskCounts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Points of all matching tasks, whatever their status.
+     */
+    public long getPoints() {
+        return points;
+    }
+
+    /**
+     * Points of the matching approved tasks.
+     */
+    public long getEarnedPoints() {
+        return earnedPoints;
+    }
+
+    public int getRatingCount() {
+        return ratingCount;
+    }
+
+    /**
+     * Average rating of the matching rated tasks, or 0 if none is rated.
+     */
+    public double getAverageRating() {
+        return ratingCount > 0 ? ratingSum / ratingCount : 0.0;
+    }
+
+    void add(int[] taskCounts, long points, long earnedPoints, int ratingCount, double ratingSum) {
+        for (int i = 0; i < taskCounts.length; i++) {
+            this.taskCounts[i] += taskCounts[i];
+        }
+        this.points += points;
+        this.earnedPoints += earnedPoints;
+        this.ratingCount += ratingCount;
+        this.ratingSum += ratingSum;
+    }
+}
@@ -0,0 +1,222 @@
+package com.kidtask.data;
+
+import com.kidtask.models.EntityId;
+import com.kidtask.models.Task;
+import com.kidtask.models.TaskStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe in-memory task store with an id index and secondary indexes
+ * by assignee, creator and status, plus pending tasks sorted by due day and
+ * a full-text index of titles and descriptions, built on the first search,
+ * and the columns aggregates read (see {@link TaskColumns}).
+ * Call {@link #put(Task)} again after changing an indexed field of a task.
+ * Writers of the same task must be serialized by the caller (DataManager
+ * holds the assignee's lock stripe); readers need no locking.
+ */
+class TaskStore {
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentHashMap<EntityId, Entry> byId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Task> ordered = new ConcurrentSkipListMap<>();
+    private final MultiIndex<String, Task> byAssignee = new MultiIndex<>();
+    private final MultiIndex<String, Task> byCreator = new MultiIndex<>();
+    private final MultiIndex<TaskStatus, Task> byStatus = new MultiIndex<>();
+    private final SortedMultiIndex<Long, Task> pendingByDueDay = new SortedMultiIndex<>();
+    private final TextIndex<Task> text = new TextIndex<>();
+    private final TaskColumns columns = new TaskColumns();
+
+    /**
+     * A stored task with its insertion sequence number, its version when
+     * stored, and the keys it was filed under, so it can be unfiled after
+     * those fields change.
+     */
+    private static class Entry {
+        private final Task task;
+        private final long sequence;
+        private final String assignedTo;
+        private final String createdBy;
+        private final TaskStatus status;
+        private final Long pendingDueDay;  // null unless pending with a due date
+        private final long version;
+        // Version as last seen by a save, to find changes made through setters
+        private long savedVersion;
+
+        Entry(Task task, long sequence) {
+            this.task = task;
+            this.sequence = sequence;
+            this.version = task.getVersion();
+            this.savedVersion = version;
+            this.assignedTo = task.getAssignedTo();
+            this.createdBy = task.getCreatedBy();
+            this.status = task.getStatus();
+            this.pendingDueDay = status == TaskStatus.PENDING && task.getDueEpochDay() != Task.NO_DATE
+                    ? task.getDueEpochDay() : null;
+        }
+    }
+
+    /**
+     * Add a task, or replace and re-index the task with the same id.
+     * A replaced task keeps its position.
+     */
+    public void put(Task task) {
+        Entry[] previousEntry = new Entry[1];
+        Entry entry = byId.compute(task.getId(), (id, previous) -> {
+            previousEntry[0] = previous;
+            long seq = previous != null ? previous.sequence : sequence.incrementAndGet();
+            return new Entry(task, seq);
+        });
+        Entry previous = previousEntry[0];
+        long seq = entry.sequence;
+        ordered.put(seq, task);
+
+        // Only move the task between buckets whose key changed
+        if (previous != null && !Objects.equals(previous.assignedTo, entry.assignedTo)) {
+            byAssignee.remove(previous.assignedTo, seq);
+        }
+        byAssignee.put(entry.assignedTo, seq, task);
+        if (previous != null && !Objects.equals(previous.createdBy, entry.createdBy)) {
+            byCreator.remove(previous.createdBy, seq);
+        }
+        byCreator.put(entry.createdBy, seq, task);
+        if (previous != null && previous.status != entry.status) {
+            byStatus.remove(previous.status, seq);
+        }
+        byStatus.put(entry.status, seq, task);
+        if (previous != null && !Objects.equals(previous.pendingDueDay, entry.pendingDueDay)) {
+            pendingByDueDay.remove(previous.pendingDueDay, seq);
+        }
+        pendingByDueDay.put(entry.pendingDueDay, seq, task);
+        text.put(task.getId(), task, entry.assignedTo, task.getTitle(), task.getDescription());
+        columns.put(task);
+    }
+
+    public Task remove(EntityId taskId) {
+        Entry entry = byId.remove(taskId);
+        if (entry == null) {
+            return null;
+        }
+        ordered.remove(entry.sequence);
+        byAssignee.remove(entry.assignedTo, entry.sequence);
+        byCreator.remove(entry.createdBy, entry.sequence);
+        byStatus.remove(entry.status, entry.sequence);
+        pendingByDueDay.remove(entry.pendingDueDay, entry.sequence);
+        text.remove(taskId);
+        columns.remove(taskId);
+        return entry.task;
+    }
+
+    /**
+     * The assignee a task is currently filed under, which differs from
+     * {@code task.getAssignedTo()} while a reassignment is not yet stored.
+     */
+    public String getIndexedAssignee(EntityId taskId) {
+        Entry entry = byId.get(taskId);
+        return entry != null ? entry.assignedTo : null;
+    }
+
+    /**
+     * Whether this exact task object is stored and has not changed since.
+     */
+    public boolean isCurrent(Task task) {
+        Entry entry = byId.get(task.getId());
+        return entry != null && entry.task == task && entry.version == task.getVersion();
+    }
+
+    /**
+     * Tasks changed through their setters since they were stored or last
+     * returned here, in no particular order. Not safe to call concurrently.
+     */
+    public List<Task> takeChangedSinceSaved() {
+        List<Task> changed = new ArrayList<>();
+        for (Entry entry : byId.values()) {
+            long current = entry.task.getVersion();
+            if (entry.savedVersion != current) {
+                entry.savedVersion = current;
+                changed.add(entry.task);
+            }
+        }
+        return changed;
+    }
+
+    public Task get(EntityId taskId) {
+        Entry entry = byId.get(taskId);
+        return entry != null ? entry.task : null;
+    }
+
+    public boolean contains(EntityId taskId) {
+        return byId.containsKey(taskId);
+    }
+
+    public Collection<Task> getByAssignee(String username) {
+        return byAssignee.get(username);
+    }
+
+    public Collection<Task> getByCreator(String username) {
+        return byCreator.get(username);
+    }
+
+    public Collection<Task> getByStatus(TaskStatus status) {
+        return byStatus.get(status);
+    }
+
+    /**
+     * Pending tasks due from {@code fromEpochDay} (inclusive) to
+     * {@code toEpochDay} (exclusive), by due day. A null bound is open.
+     */
+    public List<Task> getPendingDueBetween(Long fromEpochDay, Long toEpochDay) {
+        return pendingByDueDay.getRange(fromEpochDay, toEpochDay);
+    }
+
+    /**
+     * Tasks matching a full-text query, best first (see {@link TextIndex#search}),
+     * optionally only those assigned to one child.
+     */
+    public List<TextIndex.Hit<Task>> search(String query, String assignedTo, int limit) {
+        if (!text.isBuilt()) {
+            text.build(index -> {
+                for (Entry entry : byId.values()) {
+                    index.put(entry.task.getId(), entry.task, entry.assignedTo,
+                            entry.task.getTitle(), entry.task.getDescription());
+                }
+            });
+        }
+        return text.search(query, assignedTo, limit);
+    }
+
+    /**
+     * Add the aggregates of the matching tasks to {@code into} (see {@link TaskColumns#aggregate}).
+     */
+    public void aggregate(String createdBy, Long fromEpochDay, Long toEpochDay, Map<String, TaskStatistics> into) {
+        columns.aggregate(createdBy, fromEpochDay, toEpochDay, into);
+    }
+
+    /**
+     * All tasks, in insertion order.
+     */
+    public Collection<Task> all() {
+        return ordered.values();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public void clear() {
+        byId.clear();
+        ordered.clear();
+        byAssignee.clear();
+        byCreator.clear();
+        byStatus.clear();
+        pendingByDueDay.clear();
+        text.clear();
+        columns.clear();
+    }
+}
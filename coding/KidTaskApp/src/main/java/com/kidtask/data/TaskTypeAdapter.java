@@ -0,0 +1,108 @@
+package com.kidtask.data;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.kidtask.models.Task;
+import com.kidtask.models.TaskStatus;
+
+import java.io.IOException;
+
+/**
+ * Hand-written Gson adapter for Task, avoiding per-field reflection.
+ * Dates are written in their text form, so the layout is the one Gson's
+ * reflective serialization produced when Task kept them as strings.
+ * Usernames are read as their canonical instances (see {@link SymbolTable}).
+ */
+public class TaskTypeAdapter extends TypeAdapter<Task> {
+
+    @Override
+    public void write(JsonWriter out, Task task) throws IOException {
+        if (task == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("taskId").value(task.getTaskId());
+        out.name("title").value(task.getTitle());
+        out.name("description").value(task.getDescription());
+        out.name("dueDate").value(task.getDueDate());
+        out.name("points").value(task.getPoints());
+        out.name("assignedTo").value(task.getAssignedTo());
+        out.name("createdBy").value(task.getCreatedBy());
+        out.name("status").value(task.getStatus() != null ? task.getStatus().name() : null);
+        out.name("rating").value(task.getRating());
+        out.name("completedDate").value(task.getCompletedDate());
+        out.endObject();
+    }
+
+    @Override
+    public Task read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        String taskId = null;
+        String title = null;
+        String description = null;
+        String dueDate = null;
+        int points = 0;
+        String assignedTo = null;
+        String createdBy = null;
+        TaskStatus status = TaskStatus.PENDING;
+        Double rating = null;
+        String completedDate = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "taskId":
+                    taskId = in.nextString();
+                    break;
+                case "title":
+                    title = in.nextString();
+                    break;
+                case "description":
+                    description = in.nextString();
+                    break;
+                case "dueDate":
+                    dueDate = in.nextString();
+                    break;
+                case "points":
+                    points = in.nextInt();
+                    break;
+                case "assignedTo":
+                    assignedTo = SymbolTable.SHARED.canonical(in.nextString());
+                    break;
+                case "createdBy":
+                    createdBy = SymbolTable.SHARED.canonical(in.nextString());
+                    break;
+                case "status":
+                    status = TaskStatus.valueOf(in.nextString());
+                    break;
+                case "rating":
+                    rating = in.nextDouble();
+                    break;
+                case "completedDate":
+                    completedDate = in.nextString();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        Task task = new Task(taskId, title, description, dueDate, points, assignedTo, createdBy);
+        task.setStatus(status);
+        task.setRating(rating);
+        task.setCompletedDate(completedDate);
+        return task;
+    }
+}
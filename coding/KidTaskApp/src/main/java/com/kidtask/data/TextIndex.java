@@ -0,0 +1,606 @@
+package com.kidtask.data;
+
+import com.kidtask.models.EntityId;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory full-text index over the title and description of tasks or
+ * wishes. Each document is filed under the terms of {@link TextTokenizer},
+ * title terms weighing more than description terms, and searches are
+ * ranked with BM25.
+ *
+ * Documents are numbered in the order they are added, so postings are only
+ * ever appended. Each owner's documents have a posting list too, which a
+ * search restricted to one owner intersects with. A changed or removed
+ * document leaves its old postings behind as dead entries that searches
+ * skip; once dead documents outnumber live ones, the postings are rebuilt.
+ * The text itself is not kept, only a hash of it to notice an unchanged
+ * document, so the index costs its postings and a small entry per document.
+ *
+ * The index starts out unbuilt and ignores updates until {@link #build} fills
+ * it, so an owner that is never searched pays nothing. The owner must apply
+ * each change to its own data before passing it on here; then a build that
+ * runs concurrently with the change sees it either way. Thread-safe.
+ */
+class TextIndex<V> {
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Keeps a one-letter prefix from expanding to the whole dictionary
+    private static final int MAX_PREFIX_TERMS = 256;
+    private static final int MIN_DEAD_DOCUMENTS_TO_COMPACT = 1024;
+
+    /**
+     * A search result and its relevance; higher scores are better matches.
+     */
+    static final class Hit<V> {
+        private final V value;
+        private final double score;
+
+        Hit(V value, double score) {
+            this.value = value;
+            this.score = score;
+        }
+
+        V getValue() {
+            return value;
+        }
+
+        double getScore() {
+            return score;
+        }
+    }
+
+    private static final class Document<V> {
+        private final EntityId key;
+        private final String owner;
+        private final long textHash;
+        private V value;
+
+        Document(EntityId key, V value, String owner, long textHash) {
+            this.key = key;
+            this.value = value;
+            this.owner = owner;
+            this.textHash = textHash;
+        }
+    }
+
+    /**
+     * The decoded postings of one term and the term's inverse document frequency.
+     */
+    private static final class TermPostings {
+        private final int[] documents;
+        private final int[] weights;
+        private final double idf;
+
+        TermPostings(int[] documents, int[] weights, double idf) {
+            this.documents = documents;
+            this.weights = weights;
+            this.idf = idf;
+        }
+    }
+
+    /**
+     * One word of a query: the terms it matches (several for a prefix) and
+     * the documents containing any of them, in increasing order.
+     */
+    private static final class QueryTerm {
+        private final List<TermPostings> terms;
+        private final int[] documents;
+
+        QueryTerm(List<TermPostings> terms, int[] documents) {
+            this.terms = terms;
+            this.documents = documents;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<EntityId, Integer> documentByKey = new HashMap<>();
+    // Indexed by document number; null once a document is dead
+    private final List<Document<V>> documents = new ArrayList<>();
+    // Term weights per document number, or -1 once a document is dead; kept
+    // apart from the documents so scoring does not chase a pointer per posting
+    private int[] lengths = new int[16];
+    private final TreeMap<String, PostingList> postings = new TreeMap<>();
+    private final Map<String, PostingList> ownerPostings = new HashMap<>();
+    private long totalLength;
+    private int deadDocuments;
+    // Read without the lock, so updates to an unbuilt index stay cheap
+    private volatile boolean built;
+
+    boolean isBuilt() {
+        return built;
+    }
+
+    /**
+     * Fill the index from its owner's data unless it is built already.
+     * The loader puts every document; updates from other threads wait until
+     * it is done.
+     */
+    void build(Consumer<TextIndex<V>> loader) {
+        lock.writeLock().lock();
+        try {
+            if (built) {
+                return;
+            }
+            built = true;
+            try {
+                loader.accept(this);
+            } catch (RuntimeException e) {
+                reset();
+                throw e;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add a document, or replace the document with the same key. A document
+     * whose text and owner did not change is not indexed again.
+     */
+    void put(EntityId key, V value, String owner, String title, String description) {
+        if (!built) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!built) {
+                return;
+            }
+            Integer number = documentByKey.get(key);
+            if (number != null) {
+                Document<V> document = documents.get(number);
+                if (document.textHash == textHash(title, description) && Objects.equals(document.owner, owner)) {
+                    document.value = value;
+                    return;
+                }
+                kill(number);
+            }
+            add(key, value, owner, title, description);
+            compactIfMostlyDead();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(EntityId key) {
+        if (!built) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!built) {
+                return;
+            }
+            Integer number = documentByKey.get(key);
+            if (number != null) {
+                kill(number);
+                compactIfMostlyDead();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop every document and go back to the unbuilt state.
+     */
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            reset();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The best matches for a query, best first. A document matches when it
+     * contains every term of the query; the last term also matches as a
+     * prefix, so results can follow the user's typing. With an owner, only
+     * that owner's documents are searched.
+     */
+    List<Hit<V>> search(String query, String owner, int limit) {
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(TextTokenizer.tokenize(query)));
+        if (words.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            int liveDocuments = documentByKey.size();
+            if (liveDocuments == 0) {
+                return Collections.emptyList();
+            }
+            List<QueryTerm> queryTerms = new ArrayList<>();
+            for (int i = 0; i < words.size(); i++) {
+                QueryTerm queryTerm = i == words.size() - 1
+                        ? prefixTerm(words.get(i), liveDocuments)
+                        : exactTerm(words.get(i), liveDocuments);
+                if (queryTerm.documents.length == 0) {
+                    return Collections.emptyList();
+                }
+                queryTerms.add(queryTerm);
+            }
+
+            // Find the documents first, intersecting the shortest lists first,
+            // and only then score the few that are left
+            List<int[]> documentLists = new ArrayList<>();
+            if (owner != null) {
+                documentLists.add(decodeDocuments(ownerPostings.get(owner)));
+            }
+            for (QueryTerm queryTerm : queryTerms) {
+                documentLists.add(queryTerm.documents);
+            }
+            documentLists.sort((x, y) -> Integer.compare(x.length, y.length));
+            int[] found = documentLists.get(0);
+            for (int i = 1; i < documentLists.size() && found.length > 0; i++) {
+                found = intersect(found, documentLists.get(i));
+            }
+            found = withoutDead(found);
+
+            double averageLength = (double) totalLength / liveDocuments;
+            double[] scores = new double[found.length];
+            for (QueryTerm queryTerm : queryTerms) {
+                addScores(queryTerm, found, scores, averageLength);
+            }
+            return top(found, scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of live documents.
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return documentByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(EntityId key, V value, String owner, String title, String description) {
+        Map<String, Integer> weights = new HashMap<>();
+        TextTokenizer.forEachTerm(title, term -> weights.merge(term, TITLE_WEIGHT, Integer::sum));
+        TextTokenizer.forEachTerm(description, term -> weights.merge(term, DESCRIPTION_WEIGHT, Integer::sum));
+        int length = 0;
+        int number = documents.size();
+        for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+            postings.computeIfAbsent(weight.getKey(), k -> new PostingList()).add(number, weight.getValue());
+            length += weight.getValue();
+        }
+        if (owner != null) {
+            ownerPostings.computeIfAbsent(owner, k -> new PostingList()).add(number, 1);
+        }
+        if (number == lengths.length) {
+            lengths = Arrays.copyOf(lengths, number * 2);
+        }
+        lengths[number] = length;
+        documents.add(new Document<>(key, value, owner, textHash(title, description)));
+        documentByKey.put(key, number);
+        totalLength += length;
+    }
+
+    private void kill(int number) {
+        Document<V> document = documents.set(number, null);
+        documentByKey.remove(document.key);
+        totalLength -= lengths[number];
+        lengths[number] = -1;
+        deadDocuments++;
+    }
+
+    /**
+     * Renumber the live documents and rebuild the postings without the dead ones.
+     */
+    private void compactIfMostlyDead() {
+        if (deadDocuments < MIN_DEAD_DOCUMENTS_TO_COMPACT || deadDocuments <= documentByKey.size()) {
+            return;
+        }
+        // Live documents keep their order, so renumbered postings stay sorted
+        int[] renumbered = new int[documents.size()];
+        List<Document<V>> live = new ArrayList<>(documentByKey.size());
+        int[] liveLengths = new int[Math.max(documentByKey.size(), 16)];
+        for (int number = 0; number < documents.size(); number++) {
+            Document<V> document = documents.get(number);
+            if (document == null) {
+                renumbered[number] = -1;
+                continue;
+            }
+            renumbered[number] = live.size();
+            liveLengths[live.size()] = lengths[number];
+            documentByKey.put(document.key, live.size());
+            live.add(document);
+        }
+        renumber(postings, renumbered);
+        renumber(ownerPostings, renumbered);
+        documents.clear();
+        documents.addAll(live);
+        lengths = liveLengths;
+        deadDocuments = 0;
+    }
+
+    private static void renumber(Map<String, PostingList> postingLists, int[] renumbered) {
+        for (Iterator<Map.Entry<String, PostingList>> it = postingLists.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, PostingList> entry = it.next();
+            PostingList old = entry.getValue();
+            int[] numbers = new int[old.size()];
+            int[] weights = new int[old.size()];
+            old.decode(numbers, weights);
+            PostingList kept = new PostingList();
+            for (int i = 0; i < numbers.length; i++) {
+                if (renumbered[numbers[i]] >= 0) {
+                    kept.add(renumbered[numbers[i]], weights[i]);
+                }
+            }
+            if (kept.size() == 0) {
+                it.remove();
+            } else {
+                entry.setValue(kept);
+            }
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a document's text, to tell whether it changed.
+     */
+    private static long textHash(String title, String description) {
+        long hash = 0xcbf29ce484222325L;
+        hash = hashChars(hash, title);
+        // Keeps "ab" + "c" apart from "a" + "bc"
+        hash = (hash ^ 0x1F) * 0x100000001b3L;
+        return hashChars(hash, description);
+    }
+
+    private static long hashChars(long hash, String text) {
+        if (text == null) {
+            return (hash ^ 0x1E) * 0x100000001b3L;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private void reset() {
+        documentByKey.clear();
+        documents.clear();
+        lengths = new int[16];
+        postings.clear();
+        ownerPostings.clear();
+        totalLength = 0;
+        deadDocuments = 0;
+        built = false;
+    }
+
+    private QueryTerm exactTerm(String word, int liveDocuments) {
+        TermPostings term = decode(postings.get(word), liveDocuments);
+        if (term == null) {
+            return new QueryTerm(Collections.emptyList(), new int[0]);
+        }
+        return new QueryTerm(Collections.singletonList(term), term.documents);
+    }
+
+    /**
+     * The terms starting with the prefix and the union of their documents.
+     */
+    private QueryTerm prefixTerm(String prefix, int liveDocuments) {
+        List<TermPostings> terms = new ArrayList<>();
+        for (PostingList list : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            if (terms.size() == MAX_PREFIX_TERMS) {
+                break;
+            }
+            terms.add(decode(list, liveDocuments));
+        }
+        if (terms.size() <= 1) {
+            return new QueryTerm(terms, terms.isEmpty() ? new int[0] : terms.get(0).documents);
+        }
+
+        // Merge pairwise in rounds, so each document is copied O(log terms) times
+        List<int[]> lists = new ArrayList<>();
+        for (TermPostings term : terms) {
+            lists.add(term.documents);
+        }
+        while (lists.size() > 1) {
+            List<int[]> merged = new ArrayList<>();
+            for (int i = 0; i + 1 < lists.size(); i += 2) {
+                merged.add(union(lists.get(i), lists.get(i + 1)));
+            }
+            if (lists.size() % 2 == 1) {
+                merged.add(lists.get(lists.size() - 1));
+            }
+            lists = merged;
+        }
+        return new QueryTerm(terms, lists.get(0));
+    }
+
+    private static TermPostings decode(PostingList list, int liveDocuments) {
+        if (list == null) {
+            return null;
+        }
+        int count = list.size();
+        int[] documents = new int[count];
+        int[] weights = new int[count];
+        list.decode(documents, weights);
+        // Dead postings still count towards the document frequency until the next compaction
+        double idf = Math.max(Math.log(1 + (liveDocuments - count + 0.5) / (count + 0.5)), 0.01);
+        return new TermPostings(documents, weights, idf);
+    }
+
+    private static int[] decodeDocuments(PostingList list) {
+        if (list == null) {
+            return new int[0];
+        }
+        int[] documents = new int[list.size()];
+        list.decode(documents, new int[list.size()]);
+        return documents;
+    }
+
+    /**
+     * Add the BM25 score of a query word to each found document, taking the
+     * best of the word's terms when it is a prefix of several.
+     */
+    private void addScores(QueryTerm queryTerm, int[] found, double[] scores, double averageLength) {
+        double[] best = new double[found.length];
+        for (TermPostings term : queryTerm.terms) {
+            int i = 0;
+            int j = 0;
+            while (i < found.length && j < term.documents.length) {
+                if (found[i] < term.documents[j]) {
+                    i++;
+                } else if (found[i] > term.documents[j]) {
+                    j++;
+                } else {
+                    double weight = term.weights[j];
+                    double norm = K1 * (1 - B + B * lengths[found[i]] / averageLength);
+                    best[i] = Math.max(best[i], term.idf * weight * (K1 + 1) / (weight + norm));
+                    i++;
+                    j++;
+                }
+            }
+        }
+        for (int i = 0; i < found.length; i++) {
+            scores[i] += best[i];
+        }
+    }
+
+    private int[] withoutDead(int[] found) {
+        int size = 0;
+        int[] live = new int[found.length];
+        for (int number : found) {
+            if (lengths[number] >= 0) {
+                live[size++] = number;
+            }
+        }
+        return size == found.length ? found : Arrays.copyOf(live, size);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                result[size++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                result[size++] = b[j++];
+            } else {
+                result[size++] = a[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * The highest scoring documents, best first; among equal scores the most
+     * recently indexed document comes first.
+     */
+    private List<Hit<V>> top(int[] found, double[] scores, int limit) {
+        // Min-heap of positions in found, so the weakest of the best so far is on top
+        int[] heap = new int[Math.min(limit, found.length)];
+        int heapSize = 0;
+        for (int i = 0; i < found.length; i++) {
+            if (heapSize < heap.length) {
+                heap[heapSize] = i;
+                siftUp(found, scores, heap, heapSize++);
+            } else if (ranksBefore(found, scores, i, heap[0])) {
+                heap[0] = i;
+                siftDown(found, scores, heap, heapSize);
+            }
+        }
+
+        Hit<V>[] hits = newHitArray(heapSize);
+        for (int n = heapSize - 1; n >= 0; n--) {
+            int best = heap[0];
+            hits[n] = new Hit<>(documents.get(found[best]).value, scores[best]);
+            heap[0] = heap[n];
+            siftDown(found, scores, heap, n);
+        }
+        return Arrays.asList(hits);
+    }
+
+    private static boolean ranksBefore(int[] found, double[] scores, int a, int b) {
+        if (scores[a] != scores[b]) {
+            return scores[a] > scores[b];
+        }
+        return found[a] > found[b];
+    }
+
+    private static void siftUp(int[] found, double[] scores, int[] heap, int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (!ranksBefore(found, scores, heap[parent], heap[position])) {
+                return;
+            }
+            swap(heap, parent, position);
+            position = parent;
+        }
+    }
+
+    private static void siftDown(int[] found, double[] scores, int[] heap, int size) {
+        int position = 0;
+        while (true) {
+            int weakest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < size && ranksBefore(found, scores, heap[weakest], heap[left])) {
+                weakest = left;
+            }
+            if (right < size && ranksBefore(found, scores, heap[weakest], heap[right])) {
+                weakest = right;
+            }
+            if (weakest == position) {
+                return;
+            }
+            swap(heap, position, weakest);
+            position = weakest;
+        }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int t = heap[a];
+        heap[a] = heap[b];
+        heap[b] = t;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Hit<V>[] newHitArray(int size) {
+        return (Hit<V>[]) new Hit<?>[size];
+    }
+}
@@ -0,0 +1,70 @@
+package com.kidtask.data;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Splits text into search terms: runs of letters and digits, folded so
+ * that matching ignores case and accents.
+ *
+ * Folding does not depend on the default locale. Turkish dotted and dotless
+ * i (I, &#x131;, &#x130;, i) all fold to "i", so "I&#x15E;IK", "&#x131;&#x15F;&#x131;k" and
+ * "isik" are the same term whichever casing rules the text was written with.
+ */
+final class TextTokenizer {
+    // Folded form of each character through Latin Extended-B, or 0 for a separator
+    private static final char[] FOLDED = new char[0x250];
+
+    static {
+        for (char c = 0; c < FOLDED.length; c++) {
+            FOLDED[c] = Character.isLetterOrDigit(c) ? fold(c) : 0;
+        }
+    }
+
+    private TextTokenizer() {
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        forEachTerm(text, terms::add);
+        return terms;
+    }
+
+    static void forEachTerm(String text, Consumer<String> consumer) {
+        if (text == null) {
+            return;
+        }
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            char folded;
+            if (c < FOLDED.length) {
+                folded = FOLDED[c];
+            } else if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                // Accents of decomposed text, such as the dot of a lower-cased dotted I
+                continue;
+            } else {
+                folded = Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : 0;
+            }
+            if (folded != 0) {
+                term.append(folded);
+            } else if (term.length() > 0) {
+                consumer.accept(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (term.length() > 0) {
+            consumer.accept(term.toString());
+        }
+    }
+
+    private static char fold(char c) {
+        if (c == 'I' || c == '\u0130' || c == '\u0131') {  // I, dotted I, dotless i
+            return 'i';
+        }
+        String decomposed = Normalizer.normalize(String.valueOf(Character.toLowerCase(c)), Normalizer.Form.NFD);
+        return decomposed.charAt(0);
+    }
+}
@@ -0,0 +1,88 @@
+package com.kidtask.data;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written Gson adapter for UserData, avoiding per-field reflection.
+ * Produces the same JSON layout as Gson's reflective serialization.
+ */
+class UserDataTypeAdapter extends TypeAdapter<UserData> {
+
+    @Override
+    public void write(JsonWriter out, UserData userData) throws IOException {
+        if (userData == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("username").value(userData.getUsername());
+        out.name("password").value(userData.getPassword());
+        out.name("role").value(userData.getRole());
+        out.name("points").value(userData.getPoints());
+        out.name("level").value(userData.getLevel());
+        if (userData.getRatings() != null) {
+            out.name("ratings");
+            out.beginArray();
+            for (Double rating : userData.getRatings()) {
+                out.value(rating);
+            }
+            out.endArray();
+        }
+        out.endObject();
+    }
+
+    @Override
+    public UserData read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        UserData userData = new UserData();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "username":
+                    userData.setUsername(SymbolTable.SHARED.canonical(in.nextString()));
+                    break;
+                case "password":
+                    userData.setPassword(in.nextString());
+                    break;
+                case "role":
+                    userData.setRole(in.nextString());
+                    break;
+                case "points":
+                    userData.setPoints(in.nextInt());
+                    break;
+                case "level":
+                    userData.setLevel(in.nextInt());
+                    break;
+                case "ratings":
+                    List<Double> ratings = new ArrayList<>();
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        ratings.add(in.nextDouble());
+                    }
+                    in.endArray();
+                    userData.setRatings(ratings);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return userData;
+    }
+}
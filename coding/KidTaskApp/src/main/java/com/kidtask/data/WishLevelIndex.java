@@ -0,0 +1,118 @@
+package com.kidtask.data;
+
+import com.kidtask.models.WishStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Thread-safe secondary index of wishes by requester, bucketed by required
+ * level and status. The wishes a child can see at a level are the union of
+ * at most five buckets per status, and the wishes a level-up unlocks are the
+ * buckets between the old and the new level.
+ * Entities are filed by their store sequence number, so results keep
+ * insertion order. Writers of the same requester must be serialized by the
+ * caller; readers need no locking.
+ */
+class WishLevelIndex<V> {
+    static final int MAX_LEVEL = 5;
+
+    private static final WishStatus[] STATUSES = WishStatus.values();
+
+    private final ConcurrentHashMap<String, Shelf<V>> byRequester = new ConcurrentHashMap<>();
+
+    /**
+     * One requester's buckets. Level 0 is unused; wishes asking for less than
+     * level 1 are filed at 1 and those asking for more than MAX_LEVEL at
+     * MAX_LEVEL + 1, which no child reaches.
+     */
+    private static class Shelf<V> {
+        private final ConcurrentSkipListMap<Long, V>[][] buckets = newBuckets(MAX_LEVEL + 2, STATUSES.length);
+
+        Shelf() {
+            for (int level = 1; level < buckets.length; level++) {
+                for (int status = 0; status < STATUSES.length; status++) {
+                    buckets[level][status] = new ConcurrentSkipListMap<>();
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <V> ConcurrentSkipListMap<Long, V>[][] newBuckets(int levels, int statuses) {
+            return (ConcurrentSkipListMap<Long, V>[][]) new ConcurrentSkipListMap<?, ?>[levels][statuses];
+        }
+    }
+
+    public void put(String requester, int requiredLevel, WishStatus status, long sequence, V value) {
+        if (requester == null) {
+            return;
+        }
+        Shelf<V> shelf = byRequester.computeIfAbsent(requester, r -> new Shelf<>());
+        shelf.buckets[bucketLevel(requiredLevel)][status.ordinal()].put(sequence, value);
+    }
+
+    public void remove(String requester, int requiredLevel, WishStatus status, long sequence) {
+        if (requester == null) {
+            return;
+        }
+        Shelf<V> shelf = byRequester.get(requester);
+        if (shelf != null) {
+            shelf.buckets[bucketLevel(requiredLevel)][status.ordinal()].remove(sequence);
+        }
+    }
+
+    /**
+     * A requester's entities with a required level above {@code fromLevel} and
+     * at most {@code toLevel}, in insertion order, optionally only those with
+     * one status.
+     */
+    public List<V> get(String requester, int fromLevel, int toLevel, WishStatus status) {
+        Shelf<V> shelf = requester != null ? byRequester.get(requester) : null;
+        if (shelf == null) {
+            return Collections.emptyList();
+        }
+        int first = Math.max(1, fromLevel + 1);
+        int last = Math.min(MAX_LEVEL + 1, toLevel);
+        List<Map.Entry<Long, V>> found = new ArrayList<>();
+        int nonEmptyBuckets = 0;
+        for (int level = first; level <= last; level++) {
+            for (int s = 0; s < STATUSES.length; s++) {
+                if (status != null && s != status.ordinal()) {
+                    continue;
+                }
+                ConcurrentSkipListMap<Long, V> bucket = shelf.buckets[level][s];
+                if (!bucket.isEmpty()) {
+                    found.addAll(bucket.entrySet());
+                    nonEmptyBuckets++;
+                }
+            }
+        }
+        if (nonEmptyBuckets > 1) {
+            found.sort(Map.Entry.comparingByKey());
+        }
+        List<V> values = new ArrayList<>(found.size());
+        for (Map.Entry<Long, V> entry : found) {
+            values.add(entry.getValue());
+        }
+        return values;
+    }
+
+    /**
+     * All of a requester's entities, in insertion order.
+     */
+    public List<V> get(String requester) {
+        return get(requester, 0, Integer.MAX_VALUE, null);
+    }
+
+    public void clear() {
+        byRequester.clear();
+    }
+
+    private static int bucketLevel(int requiredLevel) {
+        return Math.max(1, Math.min(MAX_LEVEL + 1, requiredLevel));
+    }
+}
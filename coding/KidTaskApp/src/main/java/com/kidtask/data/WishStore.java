@@ -0,0 +1,180 @@
+package com.kidtask.data;
+
+import com.kidtask.models.EntityId;
+import com.kidtask.models.Wish;
+import com.kidtask.models.WishStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe in-memory wish store with an id index, a secondary index by
+ * requester, required level and status, and a full-text index of titles and
+ * descriptions, built on the first search.
+ * Writers of the same wish must be serialized by the caller (DataManager
+ * holds the requester's lock stripe); readers need no locking.
+ */
+class WishStore {
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentHashMap<EntityId, Entry> byId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Wish> ordered = new ConcurrentSkipListMap<>();
+    private final WishLevelIndex<Wish> byRequester = new WishLevelIndex<>();
+    private final TextIndex<Wish> text = new TextIndex<>();
+
+    /**
+     * A stored wish with its insertion sequence number, its version when stored
+     * and the requester, level and status it was filed under.
+     */
+    private static class Entry {
+        private final Wish wish;
+        private final long sequence;
+        private final String requestedBy;
+        private final int requiredLevel;
+        private final WishStatus status;
+        private final long version;
+        // Version as last seen by a save, to find changes made through setters
+        private long savedVersion;
+
+        Entry(Wish wish, long sequence) {
+            this.wish = wish;
+            this.sequence = sequence;
+            this.version = wish.getVersion();
+            this.savedVersion = version;
+            this.requestedBy = wish.getRequestedBy();
+            this.requiredLevel = wish.getRequiredLevel();
+            this.status = wish.getStatus();
+        }
+    }
+
+    /**
+     * Add a wish, or replace and re-index the wish with the same id.
+     * A replaced wish keeps its position.
+     */
+    public void put(Wish wish) {
+        Entry[] previousEntry = new Entry[1];
+        Entry entry = byId.compute(wish.getId(), (id, previous) -> {
+            previousEntry[0] = previous;
+            long seq = previous != null ? previous.sequence : sequence.incrementAndGet();
+            return new Entry(wish, seq);
+        });
+        Entry previous = previousEntry[0];
+        ordered.put(entry.sequence, wish);
+
+        if (previous != null && (!Objects.equals(previous.requestedBy, entry.requestedBy)
+                || previous.requiredLevel != entry.requiredLevel || previous.status != entry.status)) {
+            byRequester.remove(previous.requestedBy, previous.requiredLevel, previous.status, entry.sequence);
+        }
+        byRequester.put(entry.requestedBy, entry.requiredLevel, entry.status, entry.sequence, wish);
+        text.put(wish.getId(), wish, entry.requestedBy, wish.getTitle(), wish.getDescription());
+    }
+
+    public Wish remove(EntityId wishId) {
+        Entry entry = byId.remove(wishId);
+        if (entry == null) {
+            return null;
+        }
+        ordered.remove(entry.sequence);
+        byRequester.remove(entry.requestedBy, entry.requiredLevel, entry.status, entry.sequence);
+        text.remove(wishId);
+        return entry.wish;
+    }
+
+    /**
+     * The requester a wish is currently filed under, which differs from
+     * {@code wish.getRequestedBy()} while a change of requester is not yet stored.
+     */
+    public String getIndexedRequester(EntityId wishId) {
+        Entry entry = byId.get(wishId);
+        return entry != null ? entry.requestedBy : null;
+    }
+
+    /**
+     * Whether this exact wish object is stored and has not changed since.
+     */
+    public boolean isCurrent(Wish wish) {
+        Entry entry = byId.get(wish.getId());
+        return entry != null && entry.wish == wish && entry.version == wish.getVersion();
+    }
+
+    /**
+     * Wishes changed through their setters since they were stored or last
+     * returned here, in no particular order. Not safe to call concurrently.
+     */
+    public List<Wish> takeChangedSinceSaved() {
+        List<Wish> changed = new ArrayList<>();
+        for (Entry entry : byId.values()) {
+            long current = entry.wish.getVersion();
+            if (entry.savedVersion != current) {
+                entry.savedVersion = current;
+                changed.add(entry.wish);
+            }
+        }
+        return changed;
+    }
+
+    public Wish get(EntityId wishId) {
+        Entry entry = byId.get(wishId);
+        return entry != null ? entry.wish : null;
+    }
+
+    /**
+     * A requester's wishes, in insertion order.
+     */
+    public List<Wish> getByRequester(String username) {
+        return byRequester.get(username);
+    }
+
+    /**
+     * A requester's wishes available at a level, in insertion order,
+     * optionally only those with one status.
+     */
+    public List<Wish> getAvailable(String username, int level, WishStatus status) {
+        return byRequester.get(username, 0, level, status);
+    }
+
+    /**
+     * A requester's wishes that become available when rising from one level to another.
+     */
+    public List<Wish> getUnlocked(String username, int previousLevel, int level) {
+        return byRequester.get(username, previousLevel, level, null);
+    }
+
+    /**
+     * Wishes matching a full-text query, best first (see {@link TextIndex#search}),
+     * optionally only those requested by one child.
+     */
+    public List<TextIndex.Hit<Wish>> search(String query, String requestedBy, int limit) {
+        if (!text.isBuilt()) {
+            text.build(index -> {
+                for (Entry entry : byId.values()) {
+                    index.put(entry.wish.getId(), entry.wish, entry.requestedBy,
+                            entry.wish.getTitle(), entry.wish.getDescription());
+                }
+            });
+        }
+        return text.search(query, requestedBy, limit);
+    }
+
+    /**
+     * All wishes, in insertion order.
+     */
+    public Collection<Wish> all() {
+        return ordered.values();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public void clear() {
+        byId.clear();
+        ordered.clear();
+        byRequester.clear();
+        text.clear();
+    }
+}
@@ -0,0 +1,96 @@
+package com.kidtask.data;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.kidtask.models.Wish;
+import com.kidtask.models.WishStatus;
+
+import java.io.IOException;
+
+/**
+ * Hand-written Gson adapter for Wish, avoiding per-field reflection.
+ * Produces the same JSON layout as Gson's reflective serialization.
+ * Usernames and wish types are read as their canonical instances.
+ */
+class WishTypeAdapter extends TypeAdapter<Wish> {
+
+    @Override
+    public void write(JsonWriter out, Wish wish) throws IOException {
+        if (wish == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("wishId").value(wish.getWishId());
+        out.name("title").value(wish.getTitle());
+        out.name("description").value(wish.getDescription());
+        out.name("wishType").value(wish.getWishType());
+        out.name("requiredLevel").value(wish.getRequiredLevel());
+        out.name("requestedBy").value(wish.getRequestedBy());
+        out.name("status").value(wish.getStatus() != null ? wish.getStatus().name() : null);
+        out.name("approvedBy").value(wish.getApprovedBy());
+        out.endObject();
+    }
+
+    @Override
+    public Wish read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        String wishId = null;
+        String title = null;
+        String description = null;
+        String wishType = null;
+        int requiredLevel = 1;
+        String requestedBy = null;
+        WishStatus status = WishStatus.PENDING;
+        String approvedBy = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "wishId":
+                    wishId = in.nextString();
+                    break;
+                case "title":
+                    title = in.nextString();
+                    break;
+                case "description":
+                    description = in.nextString();
+                    break;
+                case "wishType":
+                    wishType = SymbolTable.SHARED.canonical(in.nextString());
+                    break;
+                case "requiredLevel":
+                    requiredLevel = in.nextInt();
+                    break;
+                case "requestedBy":
+                    requestedBy = SymbolTable.SHARED.canonical(in.nextString());
+                    break;
+                case "status":
+                    status = WishStatus.valueOf(in.nextString());
+                    break;
+                case "approvedBy":
+                    approvedBy = SymbolTable.SHARED.canonical(in.nextString());
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        Wish wish = new Wish(wishId, title, description, wishType, requiredLevel, requestedBy);
+        wish.setStatus(status);
+        wish.setApprovedBy(approvedBy);
+        return wish;
+    }
+}
@@ -29,7 +29,8 @@ public class DashboardFrame extends JFrame {
     private void initializeComponents() {
         setTitle("KidTask - Dashboard (" + currentUser.getUsername() + " - " + 
                  currentUser.getRole() + ")");
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        // Closing waits for pending saves; the window listener exits afterwards
+        setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
         setSize(900, 700);
         setLocationRelativeTo(null);
         
@@ -51,11 +52,22 @@ public class DashboardFrame extends JFrame {
         logoutButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                dataManager.saveData();
-                SwingUtilities.invokeLater(() -> {
-                    new LoginFrame(dataManager).setVisible(true);
-                    dispose();
-                });
+                logoutButton.setEnabled(false);
+                dataManager.saveDataAsync();
+                // Wait for pending saves off the event dispatch thread
+                new SwingWorker<Void, Void>() {
+                    @Override
+                    protected Void doInBackground() {
+                        dataManager.flush();
+                        return null;
+                    }
+
+                    @Override
+                    protected void done() {
+                        new LoginFrame(dataManager).setVisible(true);
+                        dispose();
+                    }
+                }.execute();
             }
         });
         topPanel.add(logoutButton);
@@ -67,7 +79,22 @@ public class DashboardFrame extends JFrame {
         addWindowListener(new java.awt.event.WindowAdapter() {
             @Override
             public void windowClosing(java.awt.event.WindowEvent windowEvent) {
-                dataManager.saveData();
+                setEnabled(false);
+                dataManager.saveDataAsync();
+                // close() waits for pending saves, so it runs off the event dispatch thread
+                new SwingWorker<Void, Void>() {
+                    @Override
+                    protected Void doInBackground() {
+                        dataManager.close();
+                        return null;
+                    }
+
+                    @Override
+                    protected void done() {
+                        dispose();
+                        System.exit(0);
+                    }
+                }.execute();
             }
         });
     }
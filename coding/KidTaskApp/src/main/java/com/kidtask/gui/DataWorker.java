@@ -0,0 +1,76 @@
+package com.kidtask.gui;
+
+import com.kidtask.data.DataManager;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs a DataManager mutation off the event dispatch thread and requests a
+ * save after it. Mutations append to the journal and may write archive
+ * frames, so they must not run on the event dispatch thread either.
+ * Queries that scan every task or load shards run here too, without the save.
+ * The result is handed to a callback on the event dispatch thread.
+ */
+class DataWorker<T> extends SwingWorker<T, Void> {
+    private final Component owner;
+    private final DataManager dataManager;
+    private final Supplier<T> mutation;
+    private final Consumer<T> done;
+    private final boolean save;
+
+    private DataWorker(Component owner, DataManager dataManager, Supplier<T> mutation, Consumer<T> done,
+                       boolean save) {
+        this.owner = owner;
+        this.dataManager = dataManager;
+        this.mutation = mutation;
+        this.done = done;
+        this.save = save;
+    }
+
+    /**
+     * Run {@code mutation} on a worker thread, then {@code done} with its
+     * result on the event dispatch thread. A failure is reported in a dialog.
+     */
+    static <T> void run(Component owner, DataManager dataManager, Supplier<T> mutation, Consumer<T> done) {
+        new DataWorker<>(owner, dataManager, mutation, done, true).execute();
+    }
+
+    /**
+     * Run the read-only {@code query} on a worker thread, then {@code done}
+     * with its result on the event dispatch thread. A failure is reported in a dialog.
+     */
+    static <T> void load(Component owner, DataManager dataManager, Supplier<T> query, Consumer<T> done) {
+        new DataWorker<>(owner, dataManager, query, done, false).execute();
+    }
+
+    @Override
+    protected T doInBackground() {
+        T result = mutation.get();
+        if (save) {
+            dataManager.saveDataAsync();
+        }
+        return result;
+    }
+
+    @Override
+    protected void done() {
+        T result;
+        try {
+            result = get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            JOptionPane.showMessageDialog(owner,
+                    (save ? "Could not save the change: " : "Could not load the data: ")
+                            + e.getCause().getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        done.accept(result);
+    }
+}
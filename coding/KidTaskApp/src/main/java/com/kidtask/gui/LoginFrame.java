@@ -111,18 +111,19 @@ public class LoginFrame extends JFrame {
                     return;
                 }
                 
-                User user = dataManager.authenticateUser(username, password);
-                if (user != null) {
-                    // Open dashboard
-                    SwingUtilities.invokeLater(() -> {
+                // Logging a child in loads the child's shard, so it runs on a worker
+                DataWorker.load(LoginFrame.this, dataManager,
+                        () -> dataManager.authenticateUser(username, password), user -> {
+                    if (user != null) {
+                        // Open dashboard
                         new DashboardFrame(dataManager, user).setVisible(true);
                         dispose();
-                    });
-                } else {
-                    JOptionPane.showMessageDialog(LoginFrame.this,
-                            "Invalid username or password.",
-                            "Login Failed", JOptionPane.ERROR_MESSAGE);
-                }
+                    } else {
+                        JOptionPane.showMessageDialog(LoginFrame.this,
+                                "Invalid username or password.",
+                                "Login Failed", JOptionPane.ERROR_MESSAGE);
+                    }
+                });
             }
         });
         
@@ -161,12 +162,16 @@ public class LoginFrame extends JFrame {
                 }
                 
                 if (newUser != null) {
-                    dataManager.addUser(newUser);
-                    dataManager.saveData();
-                    JOptionPane.showMessageDialog(LoginFrame.this,
-                            "Registration successful! Please login.",
-                            "Success", JOptionPane.INFORMATION_MESSAGE);
-                    passwordField.setText("");
+                    User registered = newUser;
+                    DataWorker.run(LoginFrame.this, dataManager, () -> {
+                        dataManager.addUser(registered);
+                        return registered;
+                    }, added -> {
+                        JOptionPane.showMessageDialog(LoginFrame.this,
+                                "Registration successful! Please login.",
+                                "Success", JOptionPane.INFORMATION_MESSAGE);
+                        passwordField.setText("");
+                    });
                 }
             }
         });
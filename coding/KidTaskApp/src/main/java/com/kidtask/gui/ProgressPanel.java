@@ -1,11 +1,17 @@
 package com.kidtask.gui;
 
+import com.kidtask.data.ChildProgress;
+import com.kidtask.data.DataEvent;
+import com.kidtask.data.DataEventListener;
 import com.kidtask.data.DataManager;
+import com.kidtask.data.TaskStatistics;
 import com.kidtask.models.*;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Panel for displaying progress, points, and level information.
@@ -18,6 +24,17 @@ public class ProgressPanel extends JPanel {
     private JProgressBar levelProgressBar;
     private JTextArea ratingsArea;
     private JTextArea tasksSummaryArea;
+    private final DataEventListener eventListener = this::dataChanged;
+    
+    // Child view: ratings shown so far, extended from change events
+    private final StringBuilder ratingLines = new StringBuilder();
+    private int shownRatings;
+    
+    // Parent/teacher view: one summary per child
+    private final Map<String, String> childSummaries = new LinkedHashMap<>();
+    // Created-task summary: computed off the event dispatch thread, at most one at a time
+    private boolean summaryLoading;
+    private boolean summaryStale;
     
     public ProgressPanel(DataManager dataManager, User currentUser) {
         this.dataManager = dataManager;
@@ -25,6 +42,7 @@ public class ProgressPanel extends JPanel {
         initializeComponents();
         setupLayout();
         refresh();
+        dataManager.addDataEventListener(eventListener, SwingUtilities::invokeLater);
     }
     
     private void initializeComponents() {
@@ -97,65 +115,21 @@ public class ProgressPanel extends JPanel {
         add(bottomPanel, BorderLayout.SOUTH);
     }
     
+    /**
+     * Show the progress again; it is read on a worker, since reading it may load shards.
+     */
     public void refresh() {
         if (currentUser.getRole() == UserRole.CHILD) {
             Child child = (Child) currentUser;
-            
-            // Update points and level
-            pointsLabel.setText("Points: " + child.getPoints());
-            levelLabel.setText("Level: " + child.getLevel());
-            levelProgressBar.setValue(child.getLevel());
-            levelProgressBar.setString("Level " + child.getLevel() + " / 5");
-            
-            // Update ratings
-            List<Double> ratings = child.getRatings();
-            if (ratings.isEmpty()) {
-                ratingsArea.setText("No ratings yet.");
-            } else {
-                StringBuilder ratingsText = new StringBuilder();
-                double sum = 0.0;
-                for (int i = 0; i < ratings.size(); i++) {
-                    double rating = ratings.get(i);
-                    sum += rating;
-                    ratingsText.append("Rating ").append(i + 1).append(": ")
-                              .append(String.format("%.1f", rating)).append("/5.0\n");
-                }
-                double avg = sum / ratings.size();
-                ratingsText.append("\nAverage Rating: ").append(String.format("%.2f", avg)).append("/5.0");
-                ratingsArea.setText(ratingsText.toString());
-            }
-            
-            // Update tasks summary
-            List<Task> tasks = dataManager.getTasksForChild(child.getUsername());
-            int pending = 0, completed = 0, approved = 0, rejected = 0;
-            int totalPoints = 0;
-            
-            for (Task task : tasks) {
-                switch (task.getStatus()) {
-                    case PENDING:
-                        pending++;
-                        break;
-                    case COMPLETED:
-                        completed++;
-                        break;
-                    case APPROVED:
-                        approved++;
-                        totalPoints += task.getPoints();
-                        break;
-                    case REJECTED:
-                        rejected++;
-                        break;
-                }
-            }
-            
-            StringBuilder tasksText = new StringBuilder();
-            tasksText.append("Total Tasks: ").append(tasks.size()).append("\n");
-            tasksText.append("Pending: ").append(pending).append("\n");
-            tasksText.append("Completed: ").append(completed).append("\n");
-            tasksText.append("Approved: ").append(approved).append("\n");
-            tasksText.append("Rejected: ").append(rejected).append("\n");
-            tasksText.append("\nTotal Points Earned: ").append(totalPoints);
-            tasksSummaryArea.setText(tasksText.toString());
+            DataWorker.load(this, dataManager, () -> dataManager.getChildProgress(child.getUsername()), progress -> {
+                showProgress(progress);
+                dataManager.readChild(child, c -> {
+                    ratingLines.setLength(0);
+                    shownRatings = 0;
+                    showNewRatings(c);
+                    return null;
+                });
+            });
             
         } else {
             // For parent/teacher, show all children's progress
@@ -164,30 +138,151 @@ public class ProgressPanel extends JPanel {
             levelProgressBar.setValue(0);
             levelProgressBar.setString("N/A");
             
-            List<Child> children = dataManager.getAllChildren();
-            StringBuilder childrenText = new StringBuilder();
-            childrenText.append("Children Progress:\n\n");
-            
-            for (Child child : children) {
-                childrenText.append("Child: ").append(child.getUsername()).append("\n");
-                childrenText.append("  Points: ").append(child.getPoints()).append("\n");
-                childrenText.append("  Level: ").append(child.getLevel()).append("\n");
-                
-                List<Double> ratings = child.getRatings();
-                if (!ratings.isEmpty()) {
-                    double sum = 0.0;
-                    for (Double rating : ratings) {
-                        sum += rating;
-                    }
-                    double avg = sum / ratings.size();
-                    childrenText.append("  Avg Rating: ").append(String.format("%.2f", avg)).append("/5.0\n");
+            DataWorker.load(this, dataManager, dataManager::getAllChildProgress, allProgress -> {
+                childSummaries.clear();
+                for (ChildProgress progress : allProgress) {
+                    childSummaries.put(progress.getUsername(), childSummary(progress));
+                }
+                showChildSummaries();
+            });
+            showCreatedTaskSummary();
+        }
+    }
+    
+    /**
+     * Apply a batch of changes; runs on the event dispatch thread.
+     */
+    private void dataChanged(List<DataEvent> events) {
+        boolean childrenChanged = false;
+        for (DataEvent event : events) {
+            if (event instanceof DataEvent.ChildProgressChanged) {
+                ChildProgress progress = ((DataEvent.ChildProgressChanged) event).getProgress();
+                if (currentUser.getRole() != UserRole.CHILD) {
+                    childSummaries.put(progress.getUsername(), childSummary(progress));
+                    childrenChanged = true;
+                } else if (progress.getUsername().equals(currentUser.getUsername())) {
+                    showProgress(progress);
+                    dataManager.readChild((Child) currentUser, c -> {
+                        showNewRatings(c);
+                        return null;
+                    });
+                }
+            } else if (event instanceof DataEvent.UserAdded && currentUser.getRole() != UserRole.CHILD) {
+                User user = ((DataEvent.UserAdded) event).getUser();
+                ChildProgress progress = dataManager.getChildProgress(user.getUsername());
+                if (progress != null) {
+                    childSummaries.put(progress.getUsername(), childSummary(progress));
+                    childrenChanged = true;
                 }
-                childrenText.append("\n");
             }
-            
-            ratingsArea.setText(childrenText.toString());
-            tasksSummaryArea.setText("Select a child to view detailed task summary.");
+        }
+        if (childrenChanged) {
+            showChildSummaries();
+            showCreatedTaskSummary();
         }
     }
-}
+    
+    private void showProgress(ChildProgress progress) {
+        pointsLabel.setText("Points: " + progress.getPoints());
+        levelLabel.setText("Level: " + progress.getLevel());
+        levelProgressBar.setValue(progress.getLevel());
+        levelProgressBar.setString("Level " + progress.getLevel() + " / 5");
+        
+        StringBuilder tasksText = new StringBuilder();
+        tasksText.append("Total Tasks: ").append(progress.getTotalTasks()).append("\n");
+        tasksText.append("Pending: ").append(progress.getTaskCount(TaskStatus.PENDING)).append("\n");
+        tasksText.append("Completed: ").append(progress.getTaskCount(TaskStatus.COMPLETED)).append("\n");
+        tasksText.append("Approved: ").append(progress.getTaskCount(TaskStatus.APPROVED)).append("\n");
+        tasksText.append("Rejected: ").append(progress.getTaskCount(TaskStatus.REJECTED)).append("\n");
+        tasksText.append("Expired: ").append(progress.getTaskCount(TaskStatus.EXPIRED)).append("\n");
+        tasksText.append("\nTotal Points Earned: ").append(progress.getEarnedPoints());
+        tasksSummaryArea.setText(tasksText.toString());
+    }
+    
+    /**
+     * Add the ratings not shown yet to the ratings history. Call under the child's lock.
+     */
+    private void showNewRatings(Child child) {
+        int ratingCount = child.getRatingCount();
+        if (ratingCount == 0) {
+            ratingsArea.setText("No ratings yet.");
+            return;
+        }
+        for (int i = shownRatings; i < ratingCount; i++) {
+            ratingLines.append("Rating ").append(i + 1).append(": ")
+                       .append(String.format("%.1f", child.getRating(i))).append("/5.0\n");
+        }
+        shownRatings = ratingCount;
+        double avg = child.getAverageRating();
+        ratingsArea.setText(ratingLines + "\nAverage Rating: " + String.format("%.2f", avg) + "/5.0");
+    }
+    
+    private static String childSummary(ChildProgress progress) {
+        StringBuilder summary = new StringBuilder();
+        summary.append("Child: ").append(progress.getUsername()).append("\n");
+        summary.append("  Points: ").append(progress.getPoints()).append("\n");
+        summary.append("  Level: ").append(progress.getLevel()).append("\n");
+        if (progress.getRatingCount() > 0) {
+            summary.append("  Avg Rating: ").append(String.format("%.2f", progress.getAverageRating())).append("/5.0\n");
+        }
+        return summary.toString();
+    }
+    
+    private void showChildSummaries() {
+        StringBuilder childrenText = new StringBuilder();
+        childrenText.append("Children Progress:\n\n");
+        for (String summary : childSummaries.values()) {
+            childrenText.append(summary).append("\n");
+        }
+        ratingsArea.setText(childrenText.toString());
+    }
+    
+    /**
+     * Per child summary of the tasks the current parent or teacher created.
+     * The statistics scan every task, so they are computed on a worker; changes
+     * arriving meanwhile are folded into one more run when it is done.
+     */
+    private void showCreatedTaskSummary() {
+        if (summaryLoading) {
+            summaryStale = true;
+            return;
+        }
+        summaryLoading = true;
+        DataWorker.load(this, dataManager,
+                () -> dataManager.getTaskStatistics(currentUser.getUsername(), null, null),
+                statistics -> {
+                    summaryLoading = false;
+                    showCreatedTaskSummary(statistics);
+                    if (summaryStale) {
+                        summaryStale = false;
+                        showCreatedTaskSummary();
+                    }
+                });
+    }
 
+    private void showCreatedTaskSummary(List<TaskStatistics> statistics) {
+        if (statistics.isEmpty()) {
+            tasksSummaryArea.setText("You have not created any tasks yet.");
+            return;
+        }
+        StringBuilder summary = new StringBuilder("Tasks You Created:\n\n");
+        for (TaskStatistics child : statistics) {
+            summary.append(child.getUsername()).append(": ")
+                   .append(child.getTotalTasks()).append(" tasks, ")
+                   .append(child.getTaskCount(TaskStatus.PENDING)).append(" pending, ")
+                   .append(child.getTaskCount(TaskStatus.APPROVED)).append(" approved\n");
+            summary.append("  Points Earned: ").append(child.getEarnedPoints())
+                   .append(" of ").append(child.getPoints()).append("\n");
+            if (child.getRatingCount() > 0) {
+                summary.append("  Avg Rating: ").append(String.format("%.2f", child.getAverageRating())).append("/5.0\n");
+            }
+        }
+        tasksSummaryArea.setText(summary.toString());
+    }
+    
+    @Override
+    public void removeNotify() {
+        super.removeNotify();
+        dataManager.removeDataEventListener(eventListener);
+    }
+}
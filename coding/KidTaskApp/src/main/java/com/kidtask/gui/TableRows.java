@@ -0,0 +1,171 @@
+package com.kidtask.gui;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rows of a table model over a list loaded from the DataManager, which is
+ * used as it is rather than copied. Every element keeps the position it was
+ * loaded or appended at; removed positions are skipped, and a Fenwick tree
+ * over the positions maps rows to positions and back in O(log n), so that
+ * removing a row does not shift the ones after it.
+ *
+ * Elements from {@code heldCount} on are decoded by the list on every read
+ * (see {@link com.kidtask.data.TaskList}); the most recently read of them are
+ * cached, since a table reads each visible row once per column.
+ */
+class TableRows<T> {
+    private static final int CACHE_SIZE = 512;
+
+    private List<T> loaded = new ArrayList<>();
+    private int heldCount;
+    private final List<T> appended = new ArrayList<>();
+    private final Map<Integer, T> replaced = new HashMap<>();
+    private final Map<Integer, T> decoded = new HashMap<>();
+    private final BitSet removed = new BitSet();
+    private int removedCount;
+    // Live positions, one per slot; built on the first removal, as rows and positions agree until then
+    private int[] tree;
+
+    /**
+     * Start over with {@code list}; elements from {@code heldCount} on are
+     * decoded when read.
+     */
+    void reset(List<T> list, int heldCount) {
+        this.loaded = list;
+        this.heldCount = heldCount;
+        appended.clear();
+        replaced.clear();
+        decoded.clear();
+        removed.clear();
+        removedCount = 0;
+        tree = null;
+    }
+
+    int size() {
+        return positions() - removedCount;
+    }
+
+    T get(int row) {
+        return elementAt(positionOf(row));
+    }
+
+    T elementAt(int position) {
+        T element = replaced.get(position);
+        if (element != null) {
+            return element;
+        }
+        if (position >= loaded.size()) {
+            return appended.get(position - loaded.size());
+        }
+        if (position < heldCount) {
+            return loaded.get(position);
+        }
+        element = decoded.get(position);
+        if (element == null) {
+            if (decoded.size() == CACHE_SIZE) {
+                decoded.clear();
+            }
+            element = loaded.get(position);
+            decoded.put(position, element);
+        }
+        return element;
+    }
+
+    boolean isShown(int position) {
+        return position >= 0 && position < positions() && !removed.get(position);
+    }
+
+    /**
+     * Row of a shown position.
+     */
+    int rowOf(int position) {
+        if (tree == null) {
+            return position;
+        }
+        int row = 0;
+        for (int i = position; i > 0; i -= i & -i) {
+            row += tree[i];
+        }
+        return row;
+    }
+
+    int positionOf(int row) {
+        if (tree == null) {
+            return row;
+        }
+        // Find the slot holding the (row + 1)th live position
+        int slot = 0;
+        int remaining = row + 1;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            int next = slot + step;
+            if (next < tree.length && tree[next] < remaining) {
+                slot = next;
+                remaining -= tree[next];
+            }
+        }
+        return slot;
+    }
+
+    void set(int position, T element) {
+        replaced.put(position, element);
+        decoded.remove(position);
+    }
+
+    /**
+     * Add an element after all others and return its position.
+     */
+    int append(T element) {
+        int position = positions();
+        appended.add(element);
+        if (tree != null) {
+            if (position + 1 >= tree.length) {
+                build(tree.length * 2);
+            } else {
+                add(position, 1);
+            }
+        }
+        return position;
+    }
+
+    void remove(int position) {
+        if (tree == null) {
+            build(Integer.highestOneBit(Math.max(positions(), 1)) * 2);
+        }
+        removed.set(position);
+        removedCount++;
+        replaced.remove(position);
+        decoded.remove(position);
+        add(position, -1);
+    }
+
+    private int positions() {
+        return loaded.size() + appended.size();
+    }
+
+    private void add(int position, int delta) {
+        for (int i = position + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Build the tree over {@code capacity - 1} slots in O(n).
+     */
+    private void build(int capacity) {
+        tree = new int[capacity];
+        int positions = positions();
+        for (int i = 1; i < capacity; i++) {
+            if (i <= positions && !removed.get(i - 1)) {
+                tree[i]++;
+            }
+            int parent = i + (i & -i);
+            if (parent < capacity) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+}
@@ -1,17 +1,21 @@
 package com.kidtask.gui;
 
+import com.kidtask.data.DataEvent;
+import com.kidtask.data.DataEventListener;
 import com.kidtask.data.DataManager;
+import com.kidtask.data.RecurringTaskGenerator;
 import com.kidtask.models.*;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
 import java.util.List;
-import java.util.UUID;
 
 /**
  * Panel for managing tasks.
@@ -20,12 +24,18 @@ public class TaskPanel extends JPanel {
     private DataManager dataManager;
     private User currentUser;
     private JTable taskTable;
-    private DefaultTableModel tableModel;
+    private TaskTableModel tableModel;
     private JTextField titleField;
     private JTextArea descriptionArea;
     private JTextField dueDateField;
     private JSpinner pointsSpinner;
     private JComboBox<String> childComboBox;
+    // Teachers assign to several children at once
+    private DefaultListModel<String> childListModel;
+    private JList<String> childList;
+    private JComboBox<String> repeatComboBox;
+    private JTextField searchField;
+    private final DataEventListener userListener = this::usersChanged;
     
     public TaskPanel(DataManager dataManager, User currentUser) {
         this.dataManager = dataManager;
@@ -34,22 +44,20 @@ public class TaskPanel extends JPanel {
         setupLayout();
         setupEventHandlers();
         refresh();
+        dataManager.addDataEventListener(userListener, SwingUtilities::invokeLater);
     }
     
     private void initializeComponents() {
-        // Table model
-        String[] columnNames = {"ID", "Title", "Description", "Due Date", "Points", 
-                                "Assigned To", "Status", "Rating"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        // Table model, kept up to date by DataManager change events
+        tableModel = new TaskTableModel(dataManager,
+                currentUser.getRole() == UserRole.CHILD ? currentUser.getUsername() : null);
+        dataManager.addDataEventListener(tableModel, SwingUtilities::invokeLater);
         taskTable = new JTable(tableModel);
         taskTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         taskTable.getTableHeader().setReorderingAllowed(false);
         
+        searchField = new JTextField(20);
+        
         // Form fields
         titleField = new JTextField(20);
         descriptionArea = new JTextArea(3, 20);
@@ -59,18 +67,26 @@ public class TaskPanel extends JPanel {
         
         pointsSpinner = new JSpinner(new SpinnerNumberModel(10, 1, 100, 1));
         
-        // Child combo box (for parent/teacher)
+        // Child combo box (for parent) and multi-select list (for teacher)
         childComboBox = new JComboBox<>();
-        updateChildComboBox();
+        childListModel = new DefaultListModel<>();
+        childList = new JList<>(childListModel);
+        childList.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        childList.setVisibleRowCount(5);
+        updateChildChoices();
+        
+        repeatComboBox = new JComboBox<>(new String[] {"Never", "Daily", "Weekdays", "Weekly"});
     }
     
-    private void updateChildComboBox() {
+    private void updateChildChoices() {
         childComboBox.removeAllItems();
+        childListModel.clear();
         if (currentUser.getRole() == UserRole.PARENT || 
             currentUser.getRole() == UserRole.TEACHER) {
             List<Child> children = dataManager.getAllChildren();
             for (Child child : children) {
                 childComboBox.addItem(child.getUsername());
+                childListModel.addElement(child.getUsername());
             }
         } else {
             childComboBox.addItem(currentUser.getUsername());
@@ -82,6 +98,19 @@ public class TaskPanel extends JPanel {
         setLayout(new BorderLayout(10, 10));
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         
+        // Search panel; a search runs on Enter and Clear shows everything again
+        JPanel searchPanel = new JPanel(new BorderLayout(5, 0));
+        searchPanel.add(new JLabel("Search:"), BorderLayout.WEST);
+        searchPanel.add(searchField, BorderLayout.CENTER);
+        searchField.addActionListener(e -> tableModel.setQuery(searchField.getText()));
+        JButton clearSearchButton = new JButton("Clear");
+        clearSearchButton.addActionListener(e -> {
+            searchField.setText("");
+            tableModel.setQuery("");
+        });
+        searchPanel.add(clearSearchButton, BorderLayout.EAST);
+        add(searchPanel, BorderLayout.NORTH);
+        
         // Table panel
         JScrollPane scrollPane = new JScrollPane(taskTable);
         scrollPane.setPreferredSize(new Dimension(0, 300));
@@ -123,7 +152,23 @@ public class TaskPanel extends JPanel {
             gbc.gridy = 4;
             formPanel.add(new JLabel("Assign To:"), gbc);
             gbc.gridx = 1;
-            formPanel.add(childComboBox, gbc);
+            if (currentUser.getRole() == UserRole.TEACHER) {
+                JButton selectAllButton = new JButton("Select All");
+                selectAllButton.addActionListener(e ->
+                        childList.setSelectionInterval(0, childListModel.getSize() - 1));
+                JPanel childPanel = new JPanel(new BorderLayout(5, 0));
+                childPanel.add(new JScrollPane(childList), BorderLayout.CENTER);
+                childPanel.add(selectAllButton, BorderLayout.EAST);
+                formPanel.add(childPanel, gbc);
+            } else {
+                formPanel.add(childComboBox, gbc);
+            }
+            
+            gbc.gridx = 0;
+            gbc.gridy = 5;
+            formPanel.add(new JLabel("Repeat:"), gbc);
+            gbc.gridx = 1;
+            formPanel.add(repeatComboBox, gbc);
         }
         
         // Buttons panel
@@ -162,7 +207,7 @@ public class TaskPanel extends JPanel {
         buttonPanel.add(refreshButton);
         
         gbc.gridx = 0;
-        gbc.gridy = 5;
+        gbc.gridy = 6;
         gbc.gridwidth = 2;
         gbc.anchor = GridBagConstraints.CENTER;
         formPanel.add(buttonPanel, gbc);
@@ -175,30 +220,32 @@ public class TaskPanel extends JPanel {
     }
     
     public void refresh() {
-        tableModel.setRowCount(0);
-        List<Task> tasks;
-        
+        tableModel.reload();
+        updateChildChoices();
+    }
+
+    @Override
+    public void removeNotify() {
+        super.removeNotify();
+        dataManager.removeDataEventListener(tableModel);
+        dataManager.removeDataEventListener(userListener);
+    }
+    
+    /**
+     * Offer newly registered children for assignment.
+     */
+    private void usersChanged(List<DataEvent> events) {
         if (currentUser.getRole() == UserRole.CHILD) {
-            tasks = dataManager.getTasksForChild(currentUser.getUsername());
-        } else {
-            tasks = dataManager.getAllTasks();
+            return;
         }
-        
-        for (Task task : tasks) {
-            Object[] row = {
-                task.getTaskId(),
-                task.getTitle(),
-                task.getDescription(),
-                task.getDueDate(),
-                task.getPoints(),
-                task.getAssignedTo(),
-                task.getStatus(),
-                task.getRating() != null ? task.getRating() : "N/A"
-            };
-            tableModel.addRow(row);
+        for (DataEvent event : events) {
+            if (event instanceof DataEvent.UserAdded
+                    && ((DataEvent.UserAdded) event).getUser() instanceof Child) {
+                String username = ((DataEvent.UserAdded) event).getUser().getUsername();
+                childComboBox.addItem(username);
+                childListModel.addElement(username);
+            }
         }
-        
-        updateChildComboBox();
     }
     
     private void addTask() {
@@ -206,7 +253,7 @@ public class TaskPanel extends JPanel {
         String description = descriptionArea.getText().trim();
         String dueDate = dueDateField.getText().trim();
         int points = (Integer) pointsSpinner.getValue();
-        String assignedTo = (String) childComboBox.getSelectedItem();
+        List<String> assignees = selectedChildren();
         
         if (title.isEmpty() || description.isEmpty() || dueDate.isEmpty()) {
             JOptionPane.showMessageDialog(this,
@@ -214,24 +261,96 @@ public class TaskPanel extends JPanel {
                     "Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
+        if (assignees.isEmpty()) {
+            JOptionPane.showMessageDialog(this,
+                    "Please select at least one child.",
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
         
-        String taskId = UUID.randomUUID().toString();
-        Task task = new Task(taskId, title, description, dueDate, points,
-                           assignedTo, currentUser.getUsername());
+        String repeat = (String) repeatComboBox.getSelectedItem();
+        if (!"Never".equals(repeat)) {
+            addRecurringTask(title, description, dueDate, points, assignees, repeat);
+            return;
+        }
         
-        dataManager.addTask(task);
-        dataManager.saveData();
+        // One batch and one save, however many children are selected
+        DataWorker.run(this, dataManager,
+                () -> dataManager.assignTask(title, description, dueDate, points,
+                        currentUser.getUsername(), assignees),
+                assigned -> {
+                    for (Task task : assigned) {
+                        tableModel.refresh(task);
+                    }
+                    clearForm();
+                    
+                    JOptionPane.showMessageDialog(this,
+                            assigned.size() == 1 ? "Task added successfully!"
+                                    : "Task assigned to " + assigned.size() + " children!",
+                            "Success", JOptionPane.INFORMATION_MESSAGE);
+                });
+    }
+    
+    private List<String> selectedChildren() {
+        if (currentUser.getRole() == UserRole.TEACHER) {
+            return childList.getSelectedValuesList();
+        }
+        String assignedTo = (String) childComboBox.getSelectedItem();
+        return assignedTo == null ? Collections.emptyList() : Collections.singletonList(assignedTo);
+    }
+    
+    /**
+     * Add a template starting on the due date and create its upcoming instances.
+     */
+    private void addRecurringTask(String title, String description, String startDate,
+                                  int points, List<String> assignees, String repeat) {
+        LocalDate start;
+        try {
+            start = LocalDate.parse(startDate);
+        } catch (DateTimeParseException e) {
+            JOptionPane.showMessageDialog(this,
+                    "A repeating task needs a due date in the form YYYY-MM-DD.",
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
         
-        // Clear form
+        Recurrence recurrence;
+        switch (repeat) {
+            case "Daily":
+                recurrence = Recurrence.daily();
+                break;
+            case "Weekdays":
+                recurrence = Recurrence.weekly(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY,
+                        DayOfWeek.THURSDAY, DayOfWeek.FRIDAY);
+                break;
+            default:
+                recurrence = Recurrence.weekly(start.getDayOfWeek());
+        }
+        TaskTemplate template = new TaskTemplate(EntityId.generate().toString(), title, description,
+                points, currentUser.getUsername(), assignees,
+                recurrence, start.toString());
+        DataWorker.run(this, dataManager, () -> {
+            dataManager.addTemplate(template);
+            return new RecurringTaskGenerator(dataManager).generate();
+        }, generated -> {
+            for (Task task : generated) {
+                tableModel.refresh(task);
+            }
+            clearForm();
+            
+            JOptionPane.showMessageDialog(this,
+                    "Repeating task added; " + generated.size() + " upcoming task(s) created.",
+                    "Success", JOptionPane.INFORMATION_MESSAGE);
+        });
+    }
+    
+    private void clearForm() {
         titleField.setText("");
         descriptionArea.setText("");
         dueDateField.setText(LocalDate.now().format(DateTimeFormatter.ISO_LOCAL_DATE));
         pointsSpinner.setValue(10);
-        
-        refresh();
-        JOptionPane.showMessageDialog(this,
-                "Task added successfully!",
-                "Success", JOptionPane.INFORMATION_MESSAGE);
+        repeatComboBox.setSelectedIndex(0);
+        childList.clearSelection();
     }
     
     private void markTaskCompleted() {
@@ -243,16 +362,18 @@ public class TaskPanel extends JPanel {
             return;
         }
         
-        String taskId = (String) tableModel.getValueAt(selectedRow, 0);
-        Task task = dataManager.getTaskById(taskId);
+        // The row holds the task itself; looking it up by id could load a shard on this thread
+        Task task = tableModel.getTaskAt(selectedRow);
         
-        if (task != null && task.getStatus() == TaskStatus.PENDING) {
-            task.markCompleted();
-            dataManager.saveData();
-            refresh();
-            JOptionPane.showMessageDialog(this,
-                    "Task marked as completed!",
-                    "Success", JOptionPane.INFORMATION_MESSAGE);
+        if (task != null) {
+            DataWorker.run(this, dataManager, () -> dataManager.completeTask(task), completed -> {
+                if (completed) {
+                    tableModel.refresh(task);
+                    JOptionPane.showMessageDialog(this,
+                            "Task marked as completed!",
+                            "Success", JOptionPane.INFORMATION_MESSAGE);
+                }
+            });
         }
     }
     
@@ -265,8 +386,7 @@ public class TaskPanel extends JPanel {
             return;
         }
         
-        String taskId = (String) tableModel.getValueAt(selectedRow, 0);
-        Task task = dataManager.getTaskById(taskId);
+        Task task = tableModel.getTaskAt(selectedRow);
         
         if (task != null && task.getStatus() == TaskStatus.COMPLETED) {
             String ratingStr = JOptionPane.showInputDialog(this,
@@ -282,21 +402,15 @@ public class TaskPanel extends JPanel {
                         return;
                     }
                     
-                    task.approve(rating);
-                    
-                    // Update child's points and rating
-                    User childUser = dataManager.getUser(task.getAssignedTo());
-                    if (childUser instanceof Child) {
-                        Child child = (Child) childUser;
-                        child.addPoints(task.getPoints());
-                        child.addRating(rating);
-                    }
-                    
-                    dataManager.saveData();
-                    refresh();
-                    JOptionPane.showMessageDialog(this,
-                            "Task approved and rated!",
-                            "Success", JOptionPane.INFORMATION_MESSAGE);
+                    // Also updates child's points and rating
+                    DataWorker.run(this, dataManager, () -> dataManager.approveTask(task, rating), approved -> {
+                        if (approved) {
+                            tableModel.refresh(task);
+                            JOptionPane.showMessageDialog(this,
+                                    "Task approved and rated!",
+                                    "Success", JOptionPane.INFORMATION_MESSAGE);
+                        }
+                    });
                 } catch (NumberFormatException e) {
                     JOptionPane.showMessageDialog(this,
                             "Invalid rating format.",
@@ -319,16 +433,17 @@ public class TaskPanel extends JPanel {
             return;
         }
         
-        String taskId = (String) tableModel.getValueAt(selectedRow, 0);
-        Task task = dataManager.getTaskById(taskId);
+        Task task = tableModel.getTaskAt(selectedRow);
         
-        if (task != null && task.getStatus() == TaskStatus.COMPLETED) {
-            task.reject();
-            dataManager.saveData();
-            refresh();
-            JOptionPane.showMessageDialog(this,
-                    "Task rejected.",
-                    "Success", JOptionPane.INFORMATION_MESSAGE);
+        if (task != null) {
+            DataWorker.run(this, dataManager, () -> dataManager.rejectTask(task), rejected -> {
+                if (rejected) {
+                    tableModel.refresh(task);
+                    JOptionPane.showMessageDialog(this,
+                            "Task rejected.",
+                            "Success", JOptionPane.INFORMATION_MESSAGE);
+                }
+            });
         }
     }
     
@@ -346,10 +461,11 @@ public class TaskPanel extends JPanel {
                 "Confirm Delete", JOptionPane.YES_NO_OPTION);
         
         if (confirm == JOptionPane.YES_OPTION) {
-            String taskId = (String) tableModel.getValueAt(selectedRow, 0);
-            dataManager.removeTask(taskId);
-            dataManager.saveData();
-            refresh();
+            Task task = tableModel.getTaskAt(selectedRow);
+            DataWorker.run(this, dataManager, () -> {
+                dataManager.removeTask(task);
+                return task;
+            }, tableModel::refreshRemoved);
         }
     }
 }
@@ -0,0 +1,220 @@
+package com.kidtask.gui;
+
+import com.kidtask.data.DataEvent;
+import com.kidtask.data.DataEventListener;
+import com.kidtask.data.DataManager;
+import com.kidtask.data.TaskList;
+import com.kidtask.models.EntityId;
+import com.kidtask.models.Task;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table model that reads task columns straight from the task objects.
+ * Change events from the DataManager update only the rows they affect.
+ * With a search query, only the best matching tasks are shown.
+ *
+ * Archived tasks are not copied: they are decoded from the archive when
+ * their row is read, and found by id through the {@link TaskList}.
+ *
+ * Rows are loaded on a worker thread, since a search may first build the
+ * search index and a task list may first load shards. Changes arriving
+ * during a load are applied to the old rows and again to the loaded ones.
+ */
+class TaskTableModel extends AbstractTableModel implements DataEventListener {
+    private static final String[] COLUMN_NAMES = {"ID", "Title", "Description", "Due Date", "Points",
+                                                  "Assigned To", "Status", "Rating"};
+
+    static final int SEARCH_LIMIT = 200;
+
+    private final DataManager dataManager;
+    // Only tasks assigned to this child are shown, or all tasks when null
+    private final String assignee;
+    private String query = "";
+    private final TableRows<Task> rows = new TableRows<>();
+    // Positions of the rows held in memory; archived rows are looked up in the task list
+    private final Map<EntityId, Integer> positionById = new HashMap<>();
+    private TaskList taskList;
+    // Only the latest load is shown; changes made while it runs are replayed on its rows
+    private int loadGeneration;
+    private boolean loading;
+    private final List<Runnable> changesDuringLoad = new ArrayList<>();
+
+    TaskTableModel(DataManager dataManager, String assignee) {
+        this.dataManager = dataManager;
+        this.assignee = assignee;
+    }
+
+    /**
+     * Reload every row from the DataManager on a worker thread; the rows
+     * are replaced once the load is done.
+     */
+    public void reload() {
+        int generation = ++loadGeneration;
+        loading = true;
+        String loadQuery = query;
+        DataWorker.load(null, dataManager, () -> !loadQuery.isEmpty()
+                ? dataManager.searchTasks(loadQuery, assignee, SEARCH_LIMIT)
+                : assignee != null ? dataManager.getTasksForChild(assignee) : dataManager.getAllTasks(),
+                tasks -> {
+                    if (generation != loadGeneration) {
+                        return;
+                    }
+                    loading = false;
+                    show(tasks, loadQuery.isEmpty() ? (TaskList) tasks : null);
+                    for (Runnable change : changesDuringLoad) {
+                        change.run();
+                    }
+                    changesDuringLoad.clear();
+                });
+    }
+
+    private void show(List<Task> tasks, TaskList taskList) {
+        this.taskList = taskList;
+        int heldCount = taskList != null ? taskList.getActiveCount() : tasks.size();
+        rows.reset(tasks, heldCount);
+        positionById.clear();
+        for (int i = 0; i < heldCount; i++) {
+            positionById.put(tasks.get(i).getId(), i);
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * Show the tasks matching a search query, best match first, or every
+     * task again for a blank query.
+     */
+    public void setQuery(String query) {
+        this.query = query.trim();
+        reload();
+    }
+
+    public Task getTaskAt(int row) {
+        return rows.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Task task = rows.get(row);
+        switch (column) {
+            case 0: return task.getTaskId();
+            case 1: return task.getTitle();
+            case 2: return task.getDescription();
+            case 3: return task.getDueDate();
+            case 4: return task.getPoints();
+            case 5: return task.getAssignedTo();
+            case 6: return task.getStatus();
+            case 7: return task.getRating() != null ? task.getRating() : "N/A";
+            default: return null;
+        }
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    /**
+     * Apply a batch of changes; runs on the event dispatch thread.
+     */
+    @Override
+    public void dataChanged(List<DataEvent> events) {
+        if (loading) {
+            changesDuringLoad.add(() -> dataChanged(events));
+        }
+        for (DataEvent event : events) {
+            if (event instanceof DataEvent.TaskEvent) {
+                apply(((DataEvent.TaskEvent) event).getTask(), event instanceof DataEvent.TaskRemoved);
+            }
+        }
+    }
+
+    /**
+     * Bring the row of a task changed from this panel up to date without
+     * waiting for its change event; applying the event later changes nothing.
+     */
+    void refresh(Task task) {
+        if (loading) {
+            changesDuringLoad.add(() -> apply(task, false));
+        }
+        apply(task, false);
+    }
+
+    /**
+     * Drop the row of a task removed from this panel (see {@link #refresh}).
+     */
+    void refreshRemoved(Task task) {
+        if (loading) {
+            changesDuringLoad.add(() -> apply(task, true));
+        }
+        apply(task, true);
+    }
+
+    private void apply(Task task, boolean removed) {
+        int position = positionOf(task.getId());
+        if (removed) {
+            if (position >= 0) {
+                deleteRow(position);
+            }
+        } else if (position < 0) {
+            insertRow(task);
+        } else if (!isShown(task)) {
+            deleteRow(position);
+        } else {
+            rows.set(position, task);
+            int row = rows.rowOf(position);
+            fireTableRowsUpdated(row, row);
+        }
+    }
+
+    /**
+     * Position of a task's row, or -1 if it is not shown.
+     */
+    private int positionOf(EntityId taskId) {
+        Integer position = positionById.get(taskId);
+        if (position != null) {
+            return rows.isShown(position) ? position : -1;
+        }
+        int archived = taskList != null ? taskList.indexOfArchived(taskId) : -1;
+        return rows.isShown(archived) ? archived : -1;
+    }
+
+    private boolean isShown(Task task) {
+        return assignee == null || assignee.equals(task.getAssignedTo());
+    }
+
+    private void insertRow(Task task) {
+        // Search results only change when the search runs again
+        if (!isShown(task) || !query.isEmpty()) {
+            return;
+        }
+        positionById.put(task.getId(), rows.append(task));
+        int row = rows.size() - 1;
+        fireTableRowsInserted(row, row);
+    }
+
+    private void deleteRow(int position) {
+        int row = rows.rowOf(position);
+        rows.remove(position);
+        fireTableRowsDeleted(row, row);
+    }
+}
@@ -4,12 +4,9 @@ import com.kidtask.data.DataManager;
 import com.kidtask.models.*;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.List;
-import java.util.UUID;
 
 /**
  * Panel for managing wishes.
@@ -18,11 +15,12 @@ public class WishPanel extends JPanel {
     private DataManager dataManager;
     private User currentUser;
     private JTable wishTable;
-    private DefaultTableModel tableModel;
+    private WishTableModel tableModel;
     private JTextField titleField;
     private JTextArea descriptionArea;
     private JComboBox<String> wishTypeComboBox;
     private JSpinner levelSpinner;
+    private JTextField searchField;
     
     public WishPanel(DataManager dataManager, User currentUser) {
         this.dataManager = dataManager;
@@ -34,19 +32,16 @@ public class WishPanel extends JPanel {
     }
     
     private void initializeComponents() {
-        // Table model
-        String[] columnNames = {"ID", "Title", "Description", "Type", 
-                                "Required Level", "Status", "Approved By"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        // Table model, kept up to date by DataManager change events
+        tableModel = new WishTableModel(dataManager,
+                currentUser.getRole() == UserRole.CHILD ? (Child) currentUser : null);
+        dataManager.addDataEventListener(tableModel, SwingUtilities::invokeLater);
         wishTable = new JTable(tableModel);
         wishTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         wishTable.getTableHeader().setReorderingAllowed(false);
         
+        searchField = new JTextField(20);
+        
         // Form fields
         titleField = new JTextField(20);
         descriptionArea = new JTextArea(3, 20);
@@ -62,6 +57,19 @@ public class WishPanel extends JPanel {
         setLayout(new BorderLayout(10, 10));
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         
+        // Search panel; a search runs on Enter and Clear shows everything again
+        JPanel searchPanel = new JPanel(new BorderLayout(5, 0));
+        searchPanel.add(new JLabel("Search:"), BorderLayout.WEST);
+        searchPanel.add(searchField, BorderLayout.CENTER);
+        searchField.addActionListener(e -> tableModel.setQuery(searchField.getText()));
+        JButton clearSearchButton = new JButton("Clear");
+        clearSearchButton.addActionListener(e -> {
+            searchField.setText("");
+            tableModel.setQuery("");
+        });
+        searchPanel.add(clearSearchButton, BorderLayout.EAST);
+        add(searchPanel, BorderLayout.NORTH);
+        
         // Table panel
         JScrollPane scrollPane = new JScrollPane(wishTable);
         scrollPane.setPreferredSize(new Dimension(0, 300));
@@ -138,30 +146,13 @@ public class WishPanel extends JPanel {
     }
     
     public void refresh() {
-        tableModel.setRowCount(0);
-        List<Wish> wishes;
-        
-        if (currentUser.getRole() == UserRole.CHILD) {
-            Child child = (Child) currentUser;
-            wishes = dataManager.getWishesForChild(child.getUsername(), child.getLevel());
-        } else if (currentUser.getRole() == UserRole.PARENT) {
-            wishes = dataManager.getAllWishes();
-        } else {
-            wishes = dataManager.getAllWishes();
-        }
-        
-        for (Wish wish : wishes) {
-            Object[] row = {
-                wish.getWishId(),
-                wish.getTitle(),
-                wish.getDescription(),
-                wish.getWishType(),
-                wish.getRequiredLevel(),
-                wish.getStatus(),
-                wish.getApprovedBy() != null ? wish.getApprovedBy() : "N/A"
-            };
-            tableModel.addRow(row);
-        }
+        tableModel.reload();
+    }
+
+    @Override
+    public void removeNotify() {
+        super.removeNotify();
+        dataManager.removeDataEventListener(tableModel);
     }
     
     private void addWish() {
@@ -177,23 +168,25 @@ public class WishPanel extends JPanel {
             return;
         }
         
-        String wishId = UUID.randomUUID().toString();
-        Wish wish = new Wish(wishId, title, description, wishType,
+        Wish wish = new Wish(EntityId.generate(), title, description, wishType,
                             requiredLevel, currentUser.getUsername());
         
-        dataManager.addWish(wish);
-        dataManager.saveData();
-        
-        // Clear form
-        titleField.setText("");
-        descriptionArea.setText("");
-        wishTypeComboBox.setSelectedIndex(0);
-        levelSpinner.setValue(1);
-        
-        refresh();
-        JOptionPane.showMessageDialog(this,
-                "Wish added successfully!",
-                "Success", JOptionPane.INFORMATION_MESSAGE);
+        DataWorker.run(this, dataManager, () -> {
+            dataManager.addWish(wish);
+            return wish;
+        }, added -> {
+            tableModel.refresh(added);
+            
+            // Clear form
+            titleField.setText("");
+            descriptionArea.setText("");
+            wishTypeComboBox.setSelectedIndex(0);
+            levelSpinner.setValue(1);
+            
+            JOptionPane.showMessageDialog(this,
+                    "Wish added successfully!",
+                    "Success", JOptionPane.INFORMATION_MESSAGE);
+        });
     }
     
     private void approveWish() {
@@ -205,21 +198,23 @@ public class WishPanel extends JPanel {
             return;
         }
         
-        String wishId = (String) tableModel.getValueAt(selectedRow, 0);
-        Wish wish = dataManager.getWishById(wishId);
+        // The row holds the wish itself; looking it up by id could load a shard on this thread
+        Wish wish = tableModel.getWishAt(selectedRow);
         
-        if (wish != null && wish.getStatus() == WishStatus.PENDING) {
-            wish.approve(currentUser.getUsername());
-            dataManager.saveData();
-            refresh();
-            JOptionPane.showMessageDialog(this,
-                    "Wish approved!",
-                    "Success", JOptionPane.INFORMATION_MESSAGE);
-        } else {
-            JOptionPane.showMessageDialog(this,
-                    "Only pending wishes can be approved.",
-                    "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        DataWorker.run(this, dataManager,
+                () -> wish != null && dataManager.approveWish(wish, currentUser.getUsername()),
+                approved -> {
+                    if (approved) {
+                        tableModel.refresh(wish);
+                        JOptionPane.showMessageDialog(this,
+                                "Wish approved!",
+                                "Success", JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(this,
+                                "Only pending wishes can be approved.",
+                                "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                });
     }
     
     private void rejectWish() {
@@ -231,16 +226,17 @@ public class WishPanel extends JPanel {
             return;
         }
         
-        String wishId = (String) tableModel.getValueAt(selectedRow, 0);
-        Wish wish = dataManager.getWishById(wishId);
+        Wish wish = tableModel.getWishAt(selectedRow);
         
-        if (wish != null && wish.getStatus() == WishStatus.PENDING) {
-            wish.reject();
-            dataManager.saveData();
-            refresh();
-            JOptionPane.showMessageDialog(this,
-                    "Wish rejected.",
-                    "Success", JOptionPane.INFORMATION_MESSAGE);
+        if (wish != null) {
+            DataWorker.run(this, dataManager, () -> dataManager.rejectWish(wish), rejected -> {
+                if (rejected) {
+                    tableModel.refresh(wish);
+                    JOptionPane.showMessageDialog(this,
+                            "Wish rejected.",
+                            "Success", JOptionPane.INFORMATION_MESSAGE);
+                }
+            });
         }
     }
     
@@ -258,10 +254,11 @@ public class WishPanel extends JPanel {
                 "Confirm Delete", JOptionPane.YES_NO_OPTION);
         
         if (confirm == JOptionPane.YES_OPTION) {
-            String wishId = (String) tableModel.getValueAt(selectedRow, 0);
-            dataManager.removeWish(wishId);
-            dataManager.saveData();
-            refresh();
+            Wish wish = tableModel.getWishAt(selectedRow);
+            DataWorker.run(this, dataManager, () -> {
+                dataManager.removeWish(wish);
+                return wish;
+            }, tableModel::refreshRemoved);
         }
     }
 }
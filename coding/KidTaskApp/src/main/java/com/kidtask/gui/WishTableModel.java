@@ -0,0 +1,234 @@
+package com.kidtask.gui;
+
+import com.kidtask.data.DataEvent;
+import com.kidtask.data.DataEventListener;
+import com.kidtask.data.DataManager;
+import com.kidtask.models.Child;
+import com.kidtask.models.EntityId;
+import com.kidtask.models.Wish;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table model that reads wish columns straight from the wish objects.
+ * Change events from the DataManager update only the rows they affect.
+ * With a search query, only the best matching wishes are shown.
+ *
+ * Rows are loaded on a worker thread, like those of {@link TaskTableModel}.
+ */
+class WishTableModel extends AbstractTableModel implements DataEventListener {
+    private static final String[] COLUMN_NAMES = {"ID", "Title", "Description", "Type",
+                                                  "Required Level", "Status", "Approved By"};
+
+    private final DataManager dataManager;
+    // Only this child's wishes for its level are shown, or all wishes when null
+    private final Child child;
+    private String query = "";
+    // The child's level when the rows were loaded or last unlocked
+    private int shownLevel;
+    private final TableRows<Wish> rows = new TableRows<>();
+    private final Map<EntityId, Integer> positionById = new HashMap<>();
+    // Only the latest load is shown; changes made while it runs are replayed on its rows
+    private int loadGeneration;
+    private boolean loading;
+    private final List<Runnable> changesDuringLoad = new ArrayList<>();
+
+    WishTableModel(DataManager dataManager, Child child) {
+        this.dataManager = dataManager;
+        this.child = child;
+    }
+
+    /**
+     * Reload every row from the DataManager on a worker thread; the rows
+     * are replaced once the load is done.
+     */
+    public void reload() {
+        int generation = ++loadGeneration;
+        loading = true;
+        String loadQuery = query;
+        String username = child != null ? child.getUsername() : null;
+        int level = child != null ? child.getLevel() : 0;
+        DataWorker.load(null, dataManager, () -> !loadQuery.isEmpty()
+                ? dataManager.searchWishes(loadQuery, username, TaskTableModel.SEARCH_LIMIT)
+                : username != null ? dataManager.getWishesForChild(username, level) : dataManager.getAllWishes(),
+                wishes -> {
+                    if (generation != loadGeneration) {
+                        return;
+                    }
+                    loading = false;
+                    if (!loadQuery.isEmpty()) {
+                        wishes.removeIf(wish -> !isShown(wish));
+                    } else if (child != null) {
+                        shownLevel = level;
+                    }
+                    show(wishes);
+                    for (Runnable change : changesDuringLoad) {
+                        change.run();
+                    }
+                    changesDuringLoad.clear();
+                });
+    }
+
+    private void show(List<Wish> wishes) {
+        rows.reset(wishes, wishes.size());
+        positionById.clear();
+        for (int i = 0; i < wishes.size(); i++) {
+            positionById.put(wishes.get(i).getId(), i);
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * Show the wishes matching a search query, best match first, or every
+     * wish again for a blank query.
+     */
+    public void setQuery(String query) {
+        this.query = query.trim();
+        reload();
+    }
+
+    public Wish getWishAt(int row) {
+        return rows.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Wish wish = rows.get(row);
+        switch (column) {
+            case 0: return wish.getWishId();
+            case 1: return wish.getTitle();
+            case 2: return wish.getDescription();
+            case 3: return wish.getWishType();
+            case 4: return wish.getRequiredLevel();
+            case 5: return wish.getStatus();
+            case 6: return wish.getApprovedBy() != null ? wish.getApprovedBy() : "N/A";
+            default: return null;
+        }
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    /**
+     * Apply a batch of changes; runs on the event dispatch thread.
+     */
+    @Override
+    public void dataChanged(List<DataEvent> events) {
+        if (loading) {
+            changesDuringLoad.add(() -> dataChanged(events));
+        }
+        for (DataEvent event : events) {
+            if (event instanceof DataEvent.ChildProgressChanged && child != null
+                    && child.getUsername().equals(((DataEvent.ChildProgressChanged) event).getUsername())) {
+                // Wishes unlocked by a higher level arrive as WishesUnlocked; a lower one hides some
+                int level = ((DataEvent.ChildProgressChanged) event).getProgress().getLevel();
+                if (level < shownLevel) {
+                    reload();
+                } else {
+                    shownLevel = level;
+                }
+                continue;
+            }
+            if (event instanceof DataEvent.WishesUnlocked && child != null
+                    && child.getUsername().equals(((DataEvent.WishesUnlocked) event).getUsername())) {
+                for (Wish wish : ((DataEvent.WishesUnlocked) event).getWishes()) {
+                    insertRow(wish);
+                }
+                continue;
+            }
+            if (!(event instanceof DataEvent.WishEvent)) {
+                continue;
+            }
+            apply(((DataEvent.WishEvent) event).getWish(), event instanceof DataEvent.WishRemoved);
+        }
+    }
+
+    /**
+     * Bring the row of a wish changed from this panel up to date without
+     * waiting for its change event; applying the event later changes nothing.
+     */
+    void refresh(Wish wish) {
+        if (loading) {
+            changesDuringLoad.add(() -> apply(wish, false));
+        }
+        apply(wish, false);
+    }
+
+    /**
+     * Drop the row of a wish removed from this panel (see {@link #refresh}).
+     */
+    void refreshRemoved(Wish wish) {
+        if (loading) {
+            changesDuringLoad.add(() -> apply(wish, true));
+        }
+        apply(wish, true);
+    }
+
+    private void apply(Wish wish, boolean removed) {
+        int position = positionOf(wish.getId());
+        if (removed) {
+            if (position >= 0) {
+                deleteRow(position);
+            }
+        } else if (position < 0) {
+            insertRow(wish);
+        } else if (!isShown(wish)) {
+            deleteRow(position);
+        } else {
+            rows.set(position, wish);
+            int row = rows.rowOf(position);
+            fireTableRowsUpdated(row, row);
+        }
+    }
+
+    /**
+     * Position of a wish's row, or -1 if it is not shown.
+     */
+    private int positionOf(EntityId wishId) {
+        Integer position = positionById.get(wishId);
+        return position != null && rows.isShown(position) ? position : -1;
+    }
+
+    private boolean isShown(Wish wish) {
+        return child == null
+                || (child.getUsername().equals(wish.getRequestedBy())
+                    && wish.isAvailableForLevel(child.getLevel()));
+    }
+
+    private void insertRow(Wish wish) {
+        // Search results only change when the search runs again
+        if (!isShown(wish) || positionOf(wish.getId()) >= 0 || !query.isEmpty()) {
+            return;
+        }
+        positionById.put(wish.getId(), rows.append(wish));
+        int row = rows.size() - 1;
+        fireTableRowsInserted(row, row);
+    }
+
+    private void deleteRow(int position) {
+        int row = rows.rowOf(position);
+        rows.remove(position);
+        fireTableRowsDeleted(row, row);
+    }
+}
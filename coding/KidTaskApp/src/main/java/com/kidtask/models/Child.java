@@ -1,77 +1,153 @@
 package com.kidtask.models;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Child user class with points and level tracking.
+ * Methods are synchronized so points and ratings can be updated from any thread.
+ *
+ * Ratings are kept in a primitive array alongside running aggregates, so
+ * adding a rating and reading the average, minimum or maximum take constant
+ * time regardless of how many ratings a child has.
  */
 public class Child extends User {
+    // Weight of the newest rating in the recent average
+    private static final double RECENT_RATING_WEIGHT = 0.2;
+
     private int points;
     private int level;
-    private List<Double> ratings;
+    private double[] ratings;
+    private int ratingCount;
+    private double ratingSum;
+    private double minRating;
+    private double maxRating;
+    private double recentRating;
     
     public Child(String username, String password) {
         super(username, password, UserRole.CHILD);
         this.points = 0;
         this.level = 1;
-        this.ratings = new ArrayList<>();
+        this.ratings = new double[8];
     }
     
     public Child(String username, String password, int points, int level) {
         super(username, password, UserRole.CHILD);
         this.points = points;
         this.level = level;
-        this.ratings = new ArrayList<>();
+        this.ratings = new double[8];
     }
     
-    public int getPoints() {
+    public synchronized int getPoints() {
         return points;
     }
     
-    public void setPoints(int points) {
+    public synchronized void setPoints(int points) {
         this.points = points;
+        version++;
     }
     
-    public void addPoints(int points) {
+    public synchronized void addPoints(int points) {
         this.points += points;
+        version++;
     }
     
-    public int getLevel() {
+    public synchronized int getLevel() {
         return level;
     }
     
-    public void setLevel(int level) {
+    public synchronized void setLevel(int level) {
         this.level = level;
+        version++;
+    }
+    
+    /**
+     * Copy of all ratings, oldest first. Allocates; prefer the aggregate
+     * getters or {@link #getRating(int)} for display.
+     */
+    public synchronized List<Double> getRatings() {
+        List<Double> copy = new ArrayList<>(ratingCount);
+        for (int i = 0; i < ratingCount; i++) {
+            copy.add(ratings[i]);
+        }
+        return copy;
+    }
+    
+    public synchronized int getRatingCount() {
+        return ratingCount;
     }
     
-    public List<Double> getRatings() {
-        return new ArrayList<>(ratings);
+    public synchronized double getRating(int index) {
+        if (index < 0 || index >= ratingCount) {
+            throw new IndexOutOfBoundsException("Rating " + index + " of " + ratingCount);
+        }
+        return ratings[index];
     }
     
-    public void addRating(double rating) {
+    /**
+     * Average of all ratings, or 0 if there are none.
+     */
+    public synchronized double getAverageRating() {
+        return ratingCount > 0 ? ratingSum / ratingCount : 0.0;
+    }
+    
+    public synchronized double getMinRating() {
+        return minRating;
+    }
+    
+    public synchronized double getMaxRating() {
+        return maxRating;
+    }
+    
+    /**
+     * Exponentially weighted average that favours the most recent ratings.
+     */
+    public synchronized double getRecentAverageRating() {
+        return recentRating;
+    }
+    
+    public synchronized void addRating(double rating) {
         if (rating >= 0 && rating <= 5) {
-            ratings.add(rating);
+            if (ratingCount == ratings.length) {
+                ratings = Arrays.copyOf(ratings, ratingCount * 2);
+            }
+            ratings[ratingCount++] = rating;
+            ratingSum += rating;
+            if (ratingCount == 1) {
+                minRating = rating;
+                maxRating = rating;
+                recentRating = rating;
+            } else {
+                minRating = Math.min(minRating, rating);
+                maxRating = Math.max(maxRating, rating);
+                recentRating += RECENT_RATING_WEIGHT * (rating - recentRating);
+            }
             updateLevel();
+            version++;
         }
     }
     
+    /**
+     * Credit an approved task's points and rating in one step.
+     */
+    public synchronized void recordApproval(int points, double rating) {
+        addPoints(points);
+        addRating(rating);
+    }
+    
     private void updateLevel() {
-        if (ratings.isEmpty()) {
+        if (ratingCount == 0) {
             return;
         }
         
-        double sum = 0.0;
-        for (Double rating : ratings) {
-            sum += rating;
-        }
-        double avgRating = sum / ratings.size();
+        double avgRating = ratingSum / ratingCount;
         // Level based on average rating (1-5 rating -> 1-5 level)
         this.level = Math.max(1, Math.min(5, (int) avgRating + 1));
     }
     
     @Override
-    public String toString() {
+    public synchronized String toString() {
         return "Child{" +
                 "username='" + username + '\'' +
                 ", points=" + points +
@@ -79,4 +155,3 @@ public class Child extends User {
                 '}';
     }
 }
-
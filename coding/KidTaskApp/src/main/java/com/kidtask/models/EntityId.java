@@ -0,0 +1,155 @@
+package com.kidtask.models;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Id of a task or wish, held as the two longs of a UUID instead of its
+ * 36-character text. The text form is only produced for JSON and display.
+ *
+ * New ids are time-ordered UUIDs (version 7 layout): a millisecond
+ * timestamp and a 12-bit counter in the high long, random bits in the low
+ * long. Ids generated in one process increase monotonically. Generating
+ * one takes a compare-and-set and a thread-local random, not SecureRandom.
+ *
+ * Ids in any other text form, such as those of old data, are kept as
+ * given and compare after all UUID ids.
+ */
+public final class EntityId implements Comparable<EntityId> {
+    private static final int COUNTER_BITS = 12;
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT = 0x8000000000000000L;
+    private static final long VARIANT_MASK = 0xC000000000000000L;
+
+    // Timestamp and counter of the last generated id, as (millis << 12 | counter)
+    private static final AtomicLong lastStamp = new AtomicLong();
+
+    private final long high;
+    private final long low;
+    private final String text;  // Only for an id that is not a UUID
+
+    private EntityId(long high, long low, String text) {
+        this.high = high;
+        this.low = low;
+        this.text = text;
+    }
+
+    public static EntityId of(long high, long low) {
+        return new EntityId(high, low, null);
+    }
+
+    /**
+     * A new time-ordered id, greater than every id generated before it in this process.
+     */
+    public static EntityId generate() {
+        long now = System.currentTimeMillis() << COUNTER_BITS;
+        long stamp;
+        long next;
+        do {
+            stamp = lastStamp.get();
+            // Within one millisecond the counter goes up; when it runs out the timestamp runs ahead
+            next = Math.max(now, stamp + 1);
+        } while (!lastStamp.compareAndSet(stamp, next));
+
+        long high = (next >>> COUNTER_BITS) << 16 | VERSION_7 | (next & ((1 << COUNTER_BITS) - 1));
+        long low = ThreadLocalRandom.current().nextLong() & ~VARIANT_MASK | VARIANT;
+        return new EntityId(high, low, null);
+    }
+
+    /**
+     * The id with the given text form, or null for null. Only the lower-case
+     * text of a UUID is held compactly, so the text form always round-trips.
+     */
+    public static EntityId parse(String id) {
+        if (id == null) {
+            return null;
+        }
+        if (id.length() == 36 && id.charAt(8) == '-' && id.charAt(13) == '-'
+                && id.charAt(18) == '-' && id.charAt(23) == '-') {
+            long part1 = parseHex(id, 0, 8);
+            long part2 = parseHex(id, 9, 13);
+            long part3 = parseHex(id, 14, 18);
+            long part4 = parseHex(id, 19, 23);
+            long part5 = parseHex(id, 24, 36);
+            if ((part1 | part2 | part3 | part4 | part5) >= 0) {
+                return new EntityId(part1 << 32 | part2 << 16 | part3, part4 << 48 | part5, null);
+            }
+        }
+        return new EntityId(0, 0, id);
+    }
+
+    /**
+     * Whether the id is a UUID held as two longs.
+     */
+    public boolean isCompact() {
+        return text == null;
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EntityId)) {
+            return false;
+        }
+        EntityId other = (EntityId) o;
+        return high == other.high && low == other.low
+                && (text == null ? other.text == null : text.equals(other.text));
+    }
+
+    @Override
+    public int hashCode() {
+        if (text != null) {
+            return text.hashCode();
+        }
+        // The low long of a generated id is random, so mixing in the high long is enough
+        return Long.hashCode(low ^ high * 0x9E3779B97F4A7C15L);
+    }
+
+    @Override
+    public int compareTo(EntityId other) {
+        if (text != null || other.text != null) {
+            if (text == null) {
+                return -1;
+            }
+            return other.text == null ? 1 : text.compareTo(other.text);
+        }
+        int byHigh = Long.compareUnsigned(high, other.high);
+        return byHigh != 0 ? byHigh : Long.compareUnsigned(low, other.low);
+    }
+
+    @Override
+    public String toString() {
+        return text != null ? text : new UUID(high, low).toString();
+    }
+
+    /**
+     * The value of lower-case hex digits, or -1 if there is any other character.
+     */
+    private static long parseHex(String s, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (c >= 'a' && c <= 'f') {
+                digit = c - 'a' + 10;
+            } else {
+                return -1;
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+}
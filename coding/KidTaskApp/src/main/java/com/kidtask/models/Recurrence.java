@@ -0,0 +1,84 @@
+package com.kidtask.models;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Recurrence rule of a task template: every N days, or on chosen weekdays
+ * every N weeks, counted from the template's start date.
+ */
+public class Recurrence {
+    private RecurrenceFrequency frequency;
+    private int interval;
+    private List<DayOfWeek> daysOfWeek;  // Weekly rules only
+    
+    public Recurrence(RecurrenceFrequency frequency, int interval, List<DayOfWeek> daysOfWeek) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Interval must be at least 1: " + interval);
+        }
+        if (frequency == RecurrenceFrequency.WEEKLY && (daysOfWeek == null || daysOfWeek.isEmpty())) {
+            throw new IllegalArgumentException("A weekly recurrence needs at least one day");
+        }
+        this.frequency = frequency;
+        this.interval = interval;
+        this.daysOfWeek = frequency == RecurrenceFrequency.WEEKLY ? new ArrayList<>(daysOfWeek) : null;
+    }
+    
+    public static Recurrence daily() {
+        return everyDays(1);
+    }
+    
+    public static Recurrence everyDays(int days) {
+        return new Recurrence(RecurrenceFrequency.DAILY, days, null);
+    }
+    
+    public static Recurrence weekly(DayOfWeek... days) {
+        return everyWeeks(1, days);
+    }
+    
+    public static Recurrence everyWeeks(int weeks, DayOfWeek... days) {
+        return new Recurrence(RecurrenceFrequency.WEEKLY, weeks, Arrays.asList(days));
+    }
+    
+    public RecurrenceFrequency getFrequency() {
+        return frequency;
+    }
+    
+    public int getInterval() {
+        return interval;
+    }
+    
+    public List<DayOfWeek> getDaysOfWeek() {
+        return daysOfWeek;
+    }
+    
+    /**
+     * Whether an occurrence falls on the given date, for a rule starting on {@code start}.
+     */
+    public boolean occursOn(LocalDate date, LocalDate start) {
+        if (date.isBefore(start)) {
+            return false;
+        }
+        if (frequency == RecurrenceFrequency.DAILY) {
+            return ChronoUnit.DAYS.between(start, date) % interval == 0;
+        }
+        if (!daysOfWeek.contains(date.getDayOfWeek())) {
+            return false;
+        }
+        LocalDate startWeek = start.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        return ChronoUnit.WEEKS.between(startWeek, date) % interval == 0;
+    }
+    
+    @Override
+    public String toString() {
+        if (frequency == RecurrenceFrequency.DAILY) {
+            return interval == 1 ? "daily" : "every " + interval + " days";
+        }
+        return (interval == 1 ? "weekly" : "every " + interval + " weeks") + " on " + daysOfWeek;
+    }
+}
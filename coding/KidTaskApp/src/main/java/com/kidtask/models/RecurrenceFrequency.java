@@ -0,0 +1,9 @@
+package com.kidtask.models;
+
+/**
+ * Enumeration for how often a recurring task comes back.
+ */
+public enum RecurrenceFrequency {
+    DAILY,
+    WEEKLY
+}
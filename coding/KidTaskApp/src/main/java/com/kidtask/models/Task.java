@@ -1,45 +1,76 @@
 package com.kidtask.models;
 
+import java.time.DateTimeException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.TimeZone;
 
 /**
  * Task class representing a task that can be assigned to a child.
+ *
+ * Dates are held as epoch values: the due date as an epoch day and the
+ * completion time as local date-time milliseconds (the wall-clock time
+ * counted as if it were UTC). The string accessors use the formats
+ * "yyyy-MM-dd" and "yyyy-MM-dd HH:mm:ss"; text in any other form is kept
+ * as given and has no epoch value.
  */
 public class Task {
-    private String taskId;
+    /** Epoch value of a date that is not set or not in the expected format. */
+    public static final long NO_DATE = Long.MIN_VALUE;
+
+    private EntityId taskId;
     private String title;
     private String description;
-    private String dueDate;
+    private long dueEpochDay;
+    private String dueDateText;  // Only for a due date that is not yyyy-MM-dd
     private int points;
     private String assignedTo;  // Child username
     private String createdBy;   // Parent/Teacher username
     private TaskStatus status;
     private Double rating;  // Rating given by parent/teacher
-    private String completedDate;
+    private long completedMillis;
+    private String completedDateText;  // Only for a completion time in another format
+    // Incremented by every change; not persisted
+    private transient long version;
     
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
     public Task(String taskId, String title, String description, String dueDate, 
                 int points, String assignedTo, String createdBy) {
+        this(EntityId.parse(taskId), title, description, dueDate, points, assignedTo, createdBy);
+    }
+    
+    public Task(EntityId taskId, String title, String description, String dueDate, 
+                int points, String assignedTo, String createdBy) {
         this.taskId = taskId;
         this.title = title;
         this.description = description;
-        this.dueDate = dueDate;
+        this.dueEpochDay = parseDate(dueDate);
+        this.dueDateText = dueEpochDay == NO_DATE ? dueDate : null;
         this.points = points;
         this.assignedTo = assignedTo;
         this.createdBy = createdBy;
         this.status = TaskStatus.PENDING;
         this.rating = null;
-        this.completedDate = null;
+        this.completedMillis = NO_DATE;
     }
     
+    /**
+     * Text form of the id, for JSON and display; use {@link #getId()} as a key.
+     */
     public String getTaskId() {
+        return taskId != null ? taskId.toString() : null;
+    }
+    
+    public EntityId getId() {
         return taskId;
     }
     
     public void setTaskId(String taskId) {
-        this.taskId = taskId;
+        this.taskId = EntityId.parse(taskId);
+        version++;
     }
     
     public String getTitle() {
@@ -48,6 +79,7 @@ public class Task {
     
     public void setTitle(String title) {
         this.title = title;
+        version++;
     }
     
     public String getDescription() {
@@ -56,14 +88,33 @@ public class Task {
     
     public void setDescription(String description) {
         this.description = description;
+        version++;
     }
     
     public String getDueDate() {
-        return dueDate;
+        if (dueEpochDay == NO_DATE) {
+            return dueDateText;
+        }
+        return LocalDate.ofEpochDay(dueEpochDay).toString();
     }
     
     public void setDueDate(String dueDate) {
-        this.dueDate = dueDate;
+        this.dueEpochDay = parseDate(dueDate);
+        this.dueDateText = dueEpochDay == NO_DATE ? dueDate : null;
+        version++;
+    }
+    
+    /**
+     * Due date as an epoch day, or {@link #NO_DATE}.
+     */
+    public long getDueEpochDay() {
+        return dueEpochDay;
+    }
+    
+    public void setDueEpochDay(long dueEpochDay) {
+        this.dueEpochDay = dueEpochDay;
+        this.dueDateText = null;
+        version++;
     }
     
     public int getPoints() {
@@ -72,6 +123,7 @@ public class Task {
     
     public void setPoints(int points) {
         this.points = points;
+        version++;
     }
     
     public String getAssignedTo() {
@@ -80,6 +132,7 @@ public class Task {
     
     public void setAssignedTo(String assignedTo) {
         this.assignedTo = assignedTo;
+        version++;
     }
     
     public String getCreatedBy() {
@@ -88,6 +141,7 @@ public class Task {
     
     public void setCreatedBy(String createdBy) {
         this.createdBy = createdBy;
+        version++;
     }
     
     public TaskStatus getStatus() {
@@ -96,6 +150,7 @@ public class Task {
     
     public void setStatus(TaskStatus status) {
         this.status = status;
+        version++;
     }
     
     public Double getRating() {
@@ -104,20 +159,52 @@ public class Task {
     
     public void setRating(Double rating) {
         this.rating = rating;
+        version++;
     }
     
     public String getCompletedDate() {
-        return completedDate;
+        if (completedMillis == NO_DATE) {
+            return completedDateText;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(completedMillis, 1000L), 0, ZoneOffset.UTC)
+                .format(DATE_TIME_FORMATTER);
     }
     
     public void setCompletedDate(String completedDate) {
-        this.completedDate = completedDate;
+        this.completedMillis = parseDateTime(completedDate);
+        this.completedDateText = completedMillis == NO_DATE ? completedDate : null;
+        version++;
+    }
+    
+    /**
+     * Completion time as local date-time milliseconds, or {@link #NO_DATE}.
+     */
+    public long getCompletedMillis() {
+        return completedMillis;
+    }
+    
+    public void setCompletedMillis(long completedMillis) {
+        this.completedMillis = completedMillis;
+        this.completedDateText = null;
+        version++;
+    }
+    
+    /**
+     * Change counter, so a store can tell whether its copy of the task is still current.
+     */
+    public long getVersion() {
+        return version;
     }
     
     public void markCompleted() {
         if (this.status == TaskStatus.PENDING) {
             this.status = TaskStatus.COMPLETED;
-            this.completedDate = LocalDateTime.now().format(FORMATTER);
+            long now = System.currentTimeMillis();
+            long localNow = now + TimeZone.getDefault().getOffset(now);
+            // Whole seconds, the precision of the completion date text
+            this.completedMillis = localNow - Math.floorMod(localNow, 1000L);
+            this.completedDateText = null;
+            version++;
         }
     }
     
@@ -127,13 +214,74 @@ public class Task {
             if (rating != null) {
                 this.rating = rating;
             }
+            version++;
         }
     }
     
     public void reject() {
         if (this.status == TaskStatus.COMPLETED) {
             this.status = TaskStatus.REJECTED;
+            version++;
+        }
+    }
+    
+    public void expire() {
+        if (this.status == TaskStatus.PENDING) {
+            this.status = TaskStatus.EXPIRED;
+            version++;
+        }
+    }
+    
+    /**
+     * Epoch day of a "yyyy-MM-dd" date, or {@link #NO_DATE} for anything else.
+     */
+    public static long parseDate(String date) {
+        if (date == null || date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return NO_DATE;
+        }
+        int year = parseDigits(date, 0, 4);
+        int month = parseDigits(date, 5, 7);
+        int day = parseDigits(date, 8, 10);
+        if (year < 0 || month < 0 || day < 0) {
+            return NO_DATE;
+        }
+        try {
+            return LocalDate.of(year, month, day).toEpochDay();
+        } catch (DateTimeException e) {
+            return NO_DATE;
+        }
+    }
+    
+    /**
+     * Local date-time milliseconds of a "yyyy-MM-dd HH:mm:ss" time, or {@link #NO_DATE} for anything else.
+     */
+    public static long parseDateTime(String dateTime) {
+        if (dateTime == null || dateTime.length() != 19 || dateTime.charAt(10) != ' '
+                || dateTime.charAt(13) != ':' || dateTime.charAt(16) != ':') {
+            return NO_DATE;
+        }
+        long epochDay = parseDate(dateTime.substring(0, 10));
+        int hour = parseDigits(dateTime, 11, 13);
+        int minute = parseDigits(dateTime, 14, 16);
+        int second = parseDigits(dateTime, 17, 19);
+        if (epochDay == NO_DATE || hour < 0 || hour > 23 || minute < 0 || minute > 59
+                || second < 0 || second > 59) {
+            return NO_DATE;
+        }
+        return ((epochDay * 24 + hour) * 60 + minute) * 60_000L + second * 1000L;
+    }
+    
+    // Non-negative value of the decimal digits in [start, end), or -1
+    private static int parseDigits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
         }
+        return value;
     }
     
     @Override
@@ -7,6 +7,7 @@ public enum TaskStatus {
     PENDING,
     COMPLETED,
     APPROVED,
-    REJECTED
+    REJECTED,
+    EXPIRED     // Still pending when its due date had long passed
 }
 
@@ -0,0 +1,161 @@
+package com.kidtask.models;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Template of a task that recurs, assigned to one or more children.
+ * Instances are created as ordinary tasks a few days ahead (see
+ * com.kidtask.data.RecurringTaskGenerator), never for the far future.
+ */
+public class TaskTemplate {
+    private String templateId;
+    private String title;
+    private String description;
+    private int points;
+    private String createdBy;   // Parent/Teacher username
+    private List<String> assignees;  // Child usernames
+    private Recurrence recurrence;
+    private String startDate;   // yyyy-MM-dd
+    private String endDate;     // yyyy-MM-dd, or null for no end
+    private String generatedThrough;  // Last date instances were created for
+    // Incremented by every change; not persisted
+    private transient long version;
+    
+    public TaskTemplate(String templateId, String title, String description, int points,
+                        String createdBy, List<String> assignees, Recurrence recurrence,
+                        String startDate) {
+        this.templateId = templateId;
+        this.title = title;
+        this.description = description;
+        this.points = points;
+        this.createdBy = createdBy;
+        this.assignees = new ArrayList<>(assignees);
+        this.recurrence = recurrence;
+        this.startDate = startDate;
+    }
+    
+    public String getTemplateId() {
+        return templateId;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public void setTitle(String title) {
+        this.title = title;
+        version++;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    public void setDescription(String description) {
+        this.description = description;
+        version++;
+    }
+    
+    public int getPoints() {
+        return points;
+    }
+    
+    public void setPoints(int points) {
+        this.points = points;
+        version++;
+    }
+    
+    public String getCreatedBy() {
+        return createdBy;
+    }
+    
+    public List<String> getAssignees() {
+        return new ArrayList<>(assignees);
+    }
+    
+    public void setAssignees(List<String> assignees) {
+        this.assignees = new ArrayList<>(assignees);
+        version++;
+    }
+    
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+    
+    public void setRecurrence(Recurrence recurrence) {
+        this.recurrence = recurrence;
+        version++;
+    }
+    
+    public String getStartDate() {
+        return startDate;
+    }
+    
+    public void setStartDate(String startDate) {
+        this.startDate = startDate;
+        version++;
+    }
+    
+    public String getEndDate() {
+        return endDate;
+    }
+    
+    public void setEndDate(String endDate) {
+        this.endDate = endDate;
+        version++;
+    }
+    
+    public String getGeneratedThrough() {
+        return generatedThrough;
+    }
+    
+    public void setGeneratedThrough(String generatedThrough) {
+        this.generatedThrough = generatedThrough;
+        version++;
+    }
+    
+    /**
+     * Change counter, so the data manager can tell whether a template changed since it was recorded.
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Dates from {@code from} through {@code through} with an occurrence
+     * whose instances were not created yet.
+     */
+    public List<LocalDate> pendingOccurrences(LocalDate from, LocalDate through) {
+        LocalDate start = LocalDate.parse(startDate);
+        LocalDate first = from.isBefore(start) ? start : from;
+        if (generatedThrough != null) {
+            LocalDate next = LocalDate.parse(generatedThrough).plusDays(1);
+            if (next.isAfter(first)) {
+                first = next;
+            }
+        }
+        LocalDate last = through;
+        if (endDate != null && LocalDate.parse(endDate).isBefore(last)) {
+            last = LocalDate.parse(endDate);
+        }
+        List<LocalDate> dates = new ArrayList<>();
+        for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+            if (recurrence.occursOn(date, start)) {
+                dates.add(date);
+            }
+        }
+        return dates;
+    }
+    
+    @Override
+    public String toString() {
+        return "TaskTemplate{" +
+                "templateId='" + templateId + '\'' +
+                ", title='" + title + '\'' +
+                ", recurrence=" + recurrence +
+                ", assignees=" + assignees +
+                '}';
+    }
+}
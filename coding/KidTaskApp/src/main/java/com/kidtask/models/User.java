@@ -7,6 +7,8 @@ public abstract class User {
     protected String username;
     protected String password;
     protected UserRole role;
+    // Incremented by every change; not persisted
+    protected transient volatile long version;
     
     public User(String username, String password, UserRole role) {
         this.username = username;
@@ -20,6 +22,7 @@ public abstract class User {
     
     public void setUsername(String username) {
         this.username = username;
+        version++;
     }
     
     public String getPassword() {
@@ -28,6 +31,7 @@ public abstract class User {
     
     public void setPassword(String password) {
         this.password = password;
+        version++;
     }
     
     public UserRole getRole() {
@@ -36,6 +40,14 @@ public abstract class User {
     
     public void setRole(UserRole role) {
         this.role = role;
+        version++;
+    }
+    
+    /**
+     * Change counter, so the data manager can tell whether a user changed since it was recorded.
+     */
+    public long getVersion() {
+        return version;
     }
     
     public boolean authenticate(String password) {
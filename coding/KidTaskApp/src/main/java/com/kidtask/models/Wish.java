@@ -4,7 +4,7 @@ package com.kidtask.models;
  * Wish class representing a product or activity wish.
  */
 public class Wish {
-    private String wishId;
+    private EntityId wishId;
     private String title;
     private String description;
     private String wishType;  // "product" or "activity"
@@ -12,9 +12,16 @@ public class Wish {
     private String requestedBy;  // Child username
     private WishStatus status;
     private String approvedBy;  // Parent username
+    // Incremented by every change; not persisted
+    private transient long version;
     
     public Wish(String wishId, String title, String description, String wishType,
                 int requiredLevel, String requestedBy) {
+        this(EntityId.parse(wishId), title, description, wishType, requiredLevel, requestedBy);
+    }
+    
+    public Wish(EntityId wishId, String title, String description, String wishType,
+                int requiredLevel, String requestedBy) {
         this.wishId = wishId;
         this.title = title;
         this.description = description;
@@ -25,12 +32,20 @@ public class Wish {
         this.approvedBy = null;
     }
     
+    /**
+     * Text form of the id, for JSON and display; use {@link #getId()} as a key.
+     */
     public String getWishId() {
+        return wishId != null ? wishId.toString() : null;
+    }
+    
+    public EntityId getId() {
         return wishId;
     }
     
     public void setWishId(String wishId) {
-        this.wishId = wishId;
+        this.wishId = EntityId.parse(wishId);
+        version++;
     }
     
     public String getTitle() {
@@ -39,6 +54,7 @@ public class Wish {
     
     public void setTitle(String title) {
         this.title = title;
+        version++;
     }
     
     public String getDescription() {
@@ -47,6 +63,7 @@ public class Wish {
     
     public void setDescription(String description) {
         this.description = description;
+        version++;
     }
     
     public String getWishType() {
@@ -55,6 +72,7 @@ public class Wish {
     
     public void setWishType(String wishType) {
         this.wishType = wishType;
+        version++;
     }
     
     public int getRequiredLevel() {
@@ -63,6 +81,7 @@ public class Wish {
     
     public void setRequiredLevel(int requiredLevel) {
         this.requiredLevel = requiredLevel;
+        version++;
     }
     
     public String getRequestedBy() {
@@ -71,6 +90,7 @@ public class Wish {
     
     public void setRequestedBy(String requestedBy) {
         this.requestedBy = requestedBy;
+        version++;
     }
     
     public WishStatus getStatus() {
@@ -79,6 +99,7 @@ public class Wish {
     
     public void setStatus(WishStatus status) {
         this.status = status;
+        version++;
     }
     
     public String getApprovedBy() {
@@ -87,18 +108,28 @@ public class Wish {
     
     public void setApprovedBy(String approvedBy) {
         this.approvedBy = approvedBy;
+        version++;
+    }
+    
+    /**
+     * Change counter, so a store can tell whether its copy of the wish is still current.
+     */
+    public long getVersion() {
+        return version;
     }
     
     public void approve(String approvedBy) {
         if (this.status == WishStatus.PENDING) {
             this.status = WishStatus.APPROVED;
             this.approvedBy = approvedBy;
+            version++;
         }
     }
     
     public void reject() {
         if (this.status == WishStatus.PENDING) {
             this.status = WishStatus.REJECTED;
+            version++;
         }
     }
     
@@ -0,0 +1,137 @@
+package com.kidtask.scheduler;
+
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Thread-safe scheduler of at most one deadline per key, on a {@link TimingWheel}
+ * driven by a clock. Call {@link #advance()} to run the handler for every
+ * deadline the clock has passed, or {@link #start()} to have a background
+ * thread do so once per tick.
+ *
+ * Deadlines are rounded up to whole ticks, so a handler never runs early,
+ * but may run up to a tick late.
+ */
+public class DeadlineScheduler<K, V> {
+
+    /**
+     * A scheduled deadline, the value the wheel holds.
+     */
+    private static final class Deadline<K, V> {
+        private final K key;
+        private final V value;
+
+        Deadline(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private final Clock clock;
+    private final long tickMillis;
+    private final BiConsumer<K, V> handler;
+    private final TimingWheel<Deadline<K, V>> wheel;
+    private final Map<K, TimingWheel.Timeout<Deadline<K, V>>> timeouts = new HashMap<>();
+    private ScheduledExecutorService ticker;
+
+    /**
+     * @param handler called with the key and value of each deadline that passed,
+     *                on the thread calling {@link #advance()} and outside its lock
+     */
+    public DeadlineScheduler(Clock clock, long tickMillis, BiConsumer<K, V> handler) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive: " + tickMillis);
+        }
+        this.clock = clock;
+        this.tickMillis = tickMillis;
+        this.handler = handler;
+        this.wheel = new TimingWheel<>(Math.floorDiv(clock.millis(), tickMillis));
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Schedule the deadline of a key at the given epoch milliseconds, replacing
+     * any deadline the key already has. A time already passed is due at once.
+     */
+    public synchronized void schedule(K key, long deadlineMillis, V value) {
+        TimingWheel.Timeout<Deadline<K, V>> previous = timeouts.remove(key);
+        if (previous != null) {
+            wheel.cancel(previous);
+        }
+        long tick = Math.floorDiv(deadlineMillis, tickMillis);
+        if (tick * tickMillis < deadlineMillis) {
+            tick++;
+        }
+        timeouts.put(key, wheel.schedule(tick, new Deadline<>(key, value)));
+    }
+
+    /**
+     * Drop the deadline of a key. Returns false if it had none.
+     */
+    public synchronized boolean cancel(K key) {
+        TimingWheel.Timeout<Deadline<K, V>> timeout = timeouts.remove(key);
+        return timeout != null && wheel.cancel(timeout);
+    }
+
+    public synchronized void clear() {
+        for (TimingWheel.Timeout<Deadline<K, V>> timeout : timeouts.values()) {
+            wheel.cancel(timeout);
+        }
+        timeouts.clear();
+    }
+
+    public synchronized int size() {
+        return timeouts.size();
+    }
+
+    /**
+     * Run the handler for every deadline up to the clock's current time.
+     */
+    public void advance() {
+        List<Deadline<K, V>> expired;
+        synchronized (this) {
+            expired = wheel.advance(Math.floorDiv(clock.millis(), tickMillis));
+            for (Deadline<K, V> deadline : expired) {
+                timeouts.remove(deadline.key);
+            }
+        }
+        for (Deadline<K, V> deadline : expired) {
+            try {
+                handler.accept(deadline.key, deadline.value);
+            } catch (RuntimeException e) {
+                System.err.println("Error handling deadline of " + deadline.key + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Advance once per tick on a background thread.
+     */
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kidtask-deadlines");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void shutdown() {
+        if (ticker != null) {
+            ticker.shutdown();
+            ticker = null;
+        }
+    }
+}
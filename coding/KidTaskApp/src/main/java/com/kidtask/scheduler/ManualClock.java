@@ -0,0 +1,55 @@
+package com.kidtask.scheduler;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Clock that only moves when told to, so deadlines can be tested without waiting.
+ */
+public class ManualClock extends Clock {
+    private final AtomicLong millis;
+    private final ZoneId zone;
+
+    public ManualClock(Instant start, ZoneId zone) {
+        this(new AtomicLong(start.toEpochMilli()), zone);
+    }
+
+    private ManualClock(AtomicLong millis, ZoneId zone) {
+        this.millis = millis;
+        this.zone = zone;
+    }
+
+    public void advance(Duration duration) {
+        millis.addAndGet(duration.toMillis());
+    }
+
+    public void setInstant(Instant instant) {
+        millis.set(instant.toEpochMilli());
+    }
+
+    @Override
+    public long millis() {
+        return millis.get();
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis.get());
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * A view of this clock in another zone; advancing either moves both.
+     */
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return new ManualClock(millis, zone);
+    }
+}
@@ -0,0 +1,206 @@
+package com.kidtask.scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: six levels of 64 slots, each level's slot
+ * spanning 64 times the ticks of the one below. A timeout is filed in the
+ * lowest level that reaches its deadline and moves down a level each time
+ * the wheel reaches its slot, so scheduling and cancelling are O(1) however
+ * many timeouts there are. Deadlines farther out than the wheel reaches
+ * (64^6 ticks) are parked in the top level and filed again when it turns.
+ *
+ * Time is counted in ticks; the caller chooses what a tick is. Not thread-safe.
+ */
+public class TimingWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 6;
+    private static final long REACH = 1L << (SLOT_BITS * LEVELS);
+
+    /**
+     * A scheduled value, linked into the list of its slot.
+     */
+    public static final class Timeout<T> {
+        private final T value;
+        private final long deadline;
+        private int slot = -1;  // index into slots, or -1 when not scheduled
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(T value, long deadline) {
+            this.value = value;
+            this.deadline = deadline;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public boolean isScheduled() {
+            return slot >= 0;
+        }
+    }
+
+    private final Timeout<T>[] slots;
+    private final int[] levelCounts = new int[LEVELS];
+    // Every tick before this one has been processed
+    private long nextTick;
+    private int size;
+
+    public TimingWheel(long startTick) {
+        this.slots = newSlots(LEVELS * SLOTS);
+        this.nextTick = startTick;
+    }
+
+    /**
+     * Schedule a value for the given tick. A deadline that already passed
+     * expires with the next tick processed.
+     */
+    public Timeout<T> schedule(long deadline, T value) {
+        Timeout<T> timeout = new Timeout<>(value, deadline);
+        file(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Remove a timeout that has not expired yet. Returns false if it already
+     * expired or was cancelled.
+     */
+    public boolean cancel(Timeout<T> timeout) {
+        if (!timeout.isScheduled()) {
+            return false;
+        }
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Process every tick up to and including {@code tick} and return the
+     * values that expired, tick by tick.
+     */
+    public List<T> advance(long tick) {
+        List<T> expired = new ArrayList<>();
+        while (nextTick <= tick) {
+            if (size == 0) {
+                nextTick = tick + 1;
+                break;
+            }
+            // Jump over the ticks at which the wheel has nothing to do
+            int lowest = lowestOccupiedLevel();
+            if (lowest > 0) {
+                long span = 1L << (SLOT_BITS * lowest);
+                long boundary = Math.floorDiv(nextTick + span - 1, span) * span;
+                if (boundary > tick) {
+                    nextTick = tick + 1;
+                    break;
+                }
+                nextTick = boundary;
+            }
+            processTick(nextTick, expired);
+            nextTick++;
+        }
+        return expired;
+    }
+
+    /**
+     * The next tick to be processed.
+     */
+    public long getNextTick() {
+        return nextTick;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void processTick(long tick, List<T> expired) {
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((tick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                cascade(level, (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK));
+            }
+        }
+        int index = (int) (tick & SLOT_MASK);
+        Timeout<T> timeout = slots[index];
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            unlink(timeout);
+            size--;
+            expired.add(timeout.value);
+            timeout = next;
+        }
+    }
+
+    /**
+     * Move the timeouts of a higher-level slot that the wheel just reached down to lower levels.
+     */
+    private void cascade(int level, int slot) {
+        int index = level * SLOTS + slot;
+        Timeout<T> timeout = slots[index];
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            unlink(timeout);
+            file(timeout);
+            timeout = next;
+        }
+    }
+
+    private void file(Timeout<T> timeout) {
+        long tick = Math.max(timeout.deadline, nextTick);
+        long delta = tick - nextTick;
+        if (delta >= REACH) {
+            tick = nextTick + REACH - 1;
+            delta = REACH - 1;
+        }
+        int level = 0;
+        while (delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int index = level * SLOTS + (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        timeout.slot = index;
+        timeout.prev = null;
+        timeout.next = slots[index];
+        if (timeout.next != null) {
+            timeout.next.prev = timeout;
+        }
+        slots[index] = timeout;
+        levelCounts[level]++;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            slots[timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        levelCounts[timeout.slot / SLOTS]--;
+        timeout.slot = -1;
+        timeout.prev = null;
+        timeout.next = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Timeout<T>[] newSlots(int length) {
+        return (Timeout<T>[]) new Timeout<?>[length];
+    }
+
+    private int lowestOccupiedLevel() {
+        for (int level = 0; level < LEVELS; level++) {
+            if (levelCounts[level] > 0) {
+                return level;
+            }
+        }
+        return LEVELS;
+    }
+}
@@ -0,0 +1,29 @@
+package com.kidtask.server;
+
+/**
+ * Error with an HTTP status, reported to the client as {"error": message}.
+ */
+class ApiException extends RuntimeException {
+    private final int status;
+
+    ApiException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    static ApiException notFound(String what) {
+        return new ApiException(404, what + " not found");
+    }
+
+    static ApiException badRequest(String message) {
+        return new ApiException(400, message);
+    }
+
+    static ApiException conflict(String message) {
+        return new ApiException(409, message);
+    }
+}
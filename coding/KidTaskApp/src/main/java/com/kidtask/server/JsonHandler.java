@@ -0,0 +1,179 @@
+package com.kidtask.server;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.kidtask.data.DataManager;
+import com.kidtask.data.TaskTypeAdapter;
+import com.kidtask.models.Task;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.*;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Base class for the JSON API handlers.
+ * Parses the request path, query and body, and turns the returned JSON or
+ * any ApiException into the response.
+ */
+abstract class JsonHandler implements HttpHandler {
+    protected static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(Task.class, new TaskTypeAdapter().nullSafe())
+            .create();
+    // Results of a ?q= search when the request gives no limit
+    protected static final int DEFAULT_SEARCH_LIMIT = 50;
+
+    protected final DataManager dataManager;
+    private final String basePath;
+
+    JsonHandler(DataManager dataManager, String basePath) {
+        this.dataManager = dataManager;
+        this.basePath = basePath;
+    }
+
+    /**
+     * Handle a request. The returned element is sent with status 200, or 201
+     * for a POST to the collection itself.
+     */
+    protected abstract JsonElement handle(Request request);
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        int status;
+        JsonElement response;
+        try {
+            Request request = new Request(exchange, basePath);
+            response = handle(request);
+            status = request.method.equals("POST") && request.path.isEmpty() ? 201 : 200;
+        } catch (ApiException e) {
+            status = e.getStatus();
+            response = error(e.getMessage());
+        } catch (JsonParseException | IllegalStateException | NumberFormatException e) {
+            status = 400;
+            response = error("Malformed request: " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Error handling " + exchange.getRequestURI() + ": " + e);
+            status = 500;
+            response = error("Internal error");
+        }
+
+        byte[] body = GSON.toJson(response).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        try {
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    protected static JsonObject error(String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("error", message);
+        return error;
+    }
+
+    protected static ApiException methodNotAllowed(Request request) {
+        return new ApiException(405, request.method + " not supported on " + request.uri);
+    }
+
+    /**
+     * Save after a mutation without holding up the response.
+     */
+    protected void saveAsync() {
+        dataManager.saveDataAsync();
+    }
+
+    /**
+     * A parsed API request.
+     */
+    static class Request {
+        final String method;
+        final String uri;
+        // Path segments after the handler's base path
+        final List<String> path;
+        private final Map<String, String> query;
+        private final HttpExchange exchange;
+        private JsonObject body;
+
+        Request(HttpExchange exchange, String basePath) {
+            this.exchange = exchange;
+            this.method = exchange.getRequestMethod().toUpperCase(Locale.ROOT);
+            this.uri = exchange.getRequestURI().toString();
+            this.path = parsePath(exchange.getRequestURI().getRawPath().substring(basePath.length()));
+            this.query = parseQuery(exchange.getRequestURI().getRawQuery());
+        }
+
+        String query(String name) {
+            return query.get(name);
+        }
+
+        int queryInt(String name, int defaultValue) {
+            String value = query.get(name);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw ApiException.badRequest("Not a number: " + name + "=" + value);
+            }
+        }
+
+        /**
+         * The request body as a JSON object; an empty body reads as an empty object.
+         */
+        JsonObject body() {
+            if (body == null) {
+                try (Reader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+                    JsonElement element = JsonParser.parseReader(reader);
+                    body = element.isJsonNull() ? new JsonObject() : element.getAsJsonObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return body;
+        }
+
+        String requiredString(String name) {
+            JsonElement value = body().get(name);
+            if (value == null || value.isJsonNull() || value.getAsString().trim().isEmpty()) {
+                throw ApiException.badRequest("Missing field: " + name);
+            }
+            return value.getAsString().trim();
+        }
+
+        private static List<String> parsePath(String path) {
+            List<String> segments = new ArrayList<>();
+            for (String segment : path.split("/")) {
+                if (!segment.isEmpty()) {
+                    segments.add(URLDecoder.decode(segment, StandardCharsets.UTF_8));
+                }
+            }
+            return segments;
+        }
+
+        private static Map<String, String> parseQuery(String rawQuery) {
+            Map<String, String> query = new HashMap<>();
+            if (rawQuery == null) {
+                return query;
+            }
+            for (String pair : rawQuery.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                            URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+                }
+            }
+            return query;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.kidtask.server;
+
+import com.kidtask.data.DataManager;
+import com.kidtask.data.DeadlineOptions;
+import com.kidtask.data.RecurringTaskGenerator;
+import com.kidtask.data.StorageLayout;
+import com.kidtask.data.StorageOptions;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless server that hosts one shared DataManager behind a JSON API
+ * for users, tasks, wishes and progress.
+ *
+ * Requests are handled on a bounded pool of worker threads. When the pool
+ * and its queue are full, the accepting thread runs the request itself,
+ * which stops it from accepting more until it is done.
+ *
+ * Usage: KidTaskServer [--port N] [--threads N] [--bind ADDRESS] [--data DIR] [--sharded] [--expire-after DAYS]
+ */
+public class KidTaskServer {
+    public static final int DEFAULT_PORT = 8080;
+    private static final int QUEUE_CAPACITY = 1000;
+
+    static {
+        // Headers and body go out in separate writes; without TCP_NODELAY every
+        // response waits on the client's delayed ACK
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ThreadPoolExecutor workers;
+
+    public KidTaskServer(DataManager dataManager, InetSocketAddress address, int threads) throws IOException {
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "kidtask-http-" + workerCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        this.server = HttpServer.create(address, 0);
+        server.createContext("/api/users", new UserHandler(dataManager));
+        server.createContext("/api/tasks", new TaskHandler(dataManager));
+        server.createContext("/api/wishes", new WishHandler(dataManager));
+        server.createContext("/api/progress", new ProgressHandler(dataManager));
+        server.createContext("/api/templates", new TemplateHandler(dataManager));
+        server.setExecutor(workers);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Port the server listens on; useful when it was started on port 0.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stop accepting requests and wait for the ones in progress to finish.
+     */
+    public void stop() {
+        server.stop(1);
+        workers.shutdown();
+        try {
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors() * 2;
+        // Local only by default: the API has no authentication of its own
+        String bind = "127.0.0.1";
+        String dataDir = "data";
+        StorageLayout layout = StorageLayout.FLAT;
+        DeadlineOptions deadlineOptions = new DeadlineOptions();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--port":
+                        port = Integer.parseInt(args[++i]);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--bind":
+                        bind = args[++i];
+                        break;
+                    case "--data":
+                        dataDir = args[++i];
+                        break;
+                    case "--sharded":
+                        layout = StorageLayout.SHARDED;
+                        break;
+                    case "--expire-after":
+                        deadlineOptions.setExpireAfter(Duration.ofDays(Integer.parseInt(args[++i])));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println("Usage: KidTaskServer [--port N] [--threads N] [--bind ADDRESS] [--data DIR] [--sharded] [--expire-after DAYS]");
+            System.exit(1);
+        }
+
+        StorageOptions options = new StorageOptions()
+                .setDataDir(dataDir)
+                .setLayout(layout)
+                .setJournaled(true)
+                .setArchiveEnabled(true);
+        DataManager dataManager = new DataManager(options);
+        dataManager.loadData();
+        dataManager.startDeadlines(deadlineOptions);
+        RecurringTaskGenerator recurringTasks = new RecurringTaskGenerator(dataManager);
+        recurringTasks.start();
+
+        KidTaskServer server;
+        try {
+            server = new KidTaskServer(dataManager, new InetSocketAddress(bind, port), threads);
+        } catch (IOException e) {
+            System.err.println("Could not start server: " + e.getMessage());
+            dataManager.close();
+            System.exit(1);
+            return;
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            recurringTasks.shutdown();
+            dataManager.close();
+        }, "kidtask-shutdown"));
+
+        server.start();
+        System.out.println("KidTask server listening on http://" + bind + ":" + server.getPort() + "/api/");
+    }
+}
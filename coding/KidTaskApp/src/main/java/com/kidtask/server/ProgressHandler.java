@@ -0,0 +1,62 @@
+package com.kidtask.server;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.kidtask.data.ChildProgress;
+import com.kidtask.data.DataManager;
+import com.kidtask.models.TaskStatus;
+
+/**
+ * /api/progress
+ * <pre>
+ *   GET /api/progress             every child's points, level, ratings and task counts by status
+ *   GET /api/progress/{username}  the same for one child
+ * </pre>
+ */
+class ProgressHandler extends JsonHandler {
+
+    ProgressHandler(DataManager dataManager) {
+        super(dataManager, "/api/progress");
+    }
+
+    @Override
+    protected JsonElement handle(Request request) {
+        if (!request.method.equals("GET")) {
+            throw methodNotAllowed(request);
+        }
+        if (request.path.isEmpty()) {
+            JsonArray result = new JsonArray();
+            for (ChildProgress progress : dataManager.getAllChildProgress()) {
+                result.add(toJson(progress));
+            }
+            return result;
+        }
+        if (request.path.size() == 1) {
+            ChildProgress progress = dataManager.getChildProgress(request.path.get(0));
+            if (progress == null) {
+                throw ApiException.notFound("Child " + request.path.get(0));
+            }
+            return toJson(progress);
+        }
+        throw ApiException.notFound(request.uri);
+    }
+
+    private static JsonObject toJson(ChildProgress progress) {
+        JsonObject json = new JsonObject();
+        json.addProperty("username", progress.getUsername());
+        json.addProperty("points", progress.getPoints());
+        json.addProperty("level", progress.getLevel());
+        json.addProperty("ratingCount", progress.getRatingCount());
+        json.addProperty("averageRating", progress.getAverageRating());
+        json.addProperty("recentAverageRating", progress.getRecentAverageRating());
+        json.addProperty("earnedPoints", progress.getEarnedPoints());
+
+        JsonObject tasks = new JsonObject();
+        for (TaskStatus status : TaskStatus.values()) {
+            tasks.addProperty(status.name(), progress.getTaskCount(status));
+        }
+        json.add("tasks", tasks);
+        return json;
+    }
+}
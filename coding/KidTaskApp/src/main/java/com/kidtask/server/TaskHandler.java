@@ -0,0 +1,255 @@
+package com.kidtask.server;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.kidtask.data.DataManager;
+import com.kidtask.data.TaskStatistics;
+import com.kidtask.models.Child;
+import com.kidtask.models.EntityId;
+import com.kidtask.models.Task;
+import com.kidtask.models.TaskStatus;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * /api/tasks
+ * <pre>
+ *   GET    /api/tasks[?assignedTo=&amp;status=&amp;createdBy=&amp;due=today|week|overdue]
+ *   GET    /api/tasks?q=words[&amp;limit=&amp;assignedTo=&amp;status=&amp;createdBy=]
+ *   POST   /api/tasks                  {title, description, dueDate, points, assignedTo, createdBy}
+ *   POST   /api/tasks/assign           {title, description, dueDate, points, assignees: [...], createdBy}
+ *   GET    /api/tasks/stats[?createdBy=&amp;from=&amp;to=]   per child counts, points and average rating
+ *   GET    /api/tasks/{id}
+ *   DELETE /api/tasks/{id}
+ *   POST   /api/tasks/{id}/complete
+ *   POST   /api/tasks/{id}/approve     {rating}
+ *   POST   /api/tasks/{id}/reject
+ * </pre>
+ */
+class TaskHandler extends JsonHandler {
+
+    TaskHandler(DataManager dataManager) {
+        super(dataManager, "/api/tasks");
+    }
+
+    @Override
+    protected JsonElement handle(Request request) {
+        if (request.path.isEmpty()) {
+            switch (request.method) {
+                case "GET": return listTasks(request);
+                case "POST": return addTask(request);
+                default: throw methodNotAllowed(request);
+            }
+        }
+        if (request.path.size() == 1 && request.path.get(0).equals("assign")) {
+            if (!request.method.equals("POST")) {
+                throw methodNotAllowed(request);
+            }
+            return assignTask(request);
+        }
+        if (request.path.size() == 1 && request.path.get(0).equals("stats")) {
+            if (!request.method.equals("GET")) {
+                throw methodNotAllowed(request);
+            }
+            return taskStatistics(request);
+        }
+
+        Task task = dataManager.getTaskById(request.path.get(0));
+        if (task == null) {
+            throw ApiException.notFound("Task " + request.path.get(0));
+        }
+        if (request.path.size() == 1) {
+            switch (request.method) {
+                case "GET":
+                    return GSON.toJsonTree(task);
+                case "DELETE":
+                    dataManager.removeTask(task);
+                    saveAsync();
+                    return GSON.toJsonTree(task);
+                default:
+                    throw methodNotAllowed(request);
+            }
+        }
+        if (request.path.size() == 2 && request.method.equals("POST")) {
+            return changeStatus(request, task, request.path.get(1));
+        }
+        throw ApiException.notFound(request.uri);
+    }
+
+    private JsonElement listTasks(Request request) {
+        String assignedTo = request.query("assignedTo");
+        String createdBy = request.query("createdBy");
+        String status = request.query("status");
+        String due = request.query("due");
+        String text = request.query("q");
+
+        List<Task> tasks;
+        if (text != null) {
+            tasks = dataManager.searchTasks(text, assignedTo, request.queryInt("limit", DEFAULT_SEARCH_LIMIT));
+        } else if (due != null) {
+            tasks = dueTasks(due);
+        } else if (assignedTo != null) {
+            tasks = dataManager.getTasksForChild(assignedTo);
+        } else if (status != null) {
+            tasks = dataManager.getTasksByStatus(parseStatus(status));
+        } else if (createdBy != null) {
+            tasks = dataManager.getTasksCreatedBy(createdBy);
+        } else {
+            tasks = dataManager.getAllTasks();
+        }
+
+        JsonArray result = new JsonArray();
+        for (Task task : tasks) {
+            if ((status == null || task.getStatus().name().equalsIgnoreCase(status))
+                    && (assignedTo == null || assignedTo.equals(task.getAssignedTo()))
+                    && (createdBy == null || createdBy.equals(task.getCreatedBy()))) {
+                result.add(GSON.toJsonTree(task));
+            }
+        }
+        return result;
+    }
+
+    private JsonElement addTask(Request request) {
+        String assignedTo = request.requiredString("assignedTo");
+        if (!(dataManager.getUser(assignedTo) instanceof Child)) {
+            throw ApiException.badRequest("No child named " + assignedTo);
+        }
+        int points = request.body().has("points") ? request.body().get("points").getAsInt() : 10;
+        if (points < 1 || points > 100) {
+            throw ApiException.badRequest("Points must be between 1 and 100");
+        }
+
+        Task task = new Task(EntityId.generate(),
+                request.requiredString("title"),
+                request.requiredString("description"),
+                request.requiredString("dueDate"),
+                points, assignedTo,
+                request.requiredString("createdBy"));
+        dataManager.addTask(task);
+        saveAsync();
+        return GSON.toJsonTree(task);
+    }
+
+    /**
+     * Give the same task to several children, such as a whole class, in one batch.
+     */
+    private JsonElement assignTask(Request request) {
+        JsonObject body = request.body();
+        List<String> assignees = new ArrayList<>();
+        if (body.has("assignees")) {
+            for (JsonElement assignee : body.getAsJsonArray("assignees")) {
+                if (!(dataManager.getUser(assignee.getAsString()) instanceof Child)) {
+                    throw ApiException.badRequest("No child named " + assignee.getAsString());
+                }
+                assignees.add(assignee.getAsString());
+            }
+        }
+        if (assignees.isEmpty()) {
+            throw ApiException.badRequest("Missing field: assignees");
+        }
+        int points = body.has("points") ? body.get("points").getAsInt() : 10;
+        if (points < 1 || points > 100) {
+            throw ApiException.badRequest("Points must be between 1 and 100");
+        }
+
+        List<Task> tasks = dataManager.assignTask(
+                request.requiredString("title"),
+                request.requiredString("description"),
+                request.requiredString("dueDate"),
+                points, request.requiredString("createdBy"), assignees);
+        saveAsync();
+        JsonArray result = new JsonArray();
+        for (Task task : tasks) {
+            result.add(GSON.toJsonTree(task));
+        }
+        return result;
+    }
+
+    /**
+     * Statistics of the tasks a creator gave, or of all tasks, due from
+     * {@code from} up to but not including {@code to}.
+     */
+    private JsonElement taskStatistics(Request request) {
+        String from = request.query("from");
+        String to = request.query("to");
+        List<TaskStatistics> statistics = dataManager.getTaskStatistics(request.query("createdBy"),
+                from != null ? parseDate(from).toEpochDay() : null,
+                to != null ? parseDate(to).toEpochDay() : null);
+
+        JsonArray result = new JsonArray();
+        for (TaskStatistics child : statistics) {
+            JsonObject json = new JsonObject();
+            json.addProperty("username", child.getUsername());
+            json.addProperty("points", child.getPoints());
+            json.addProperty("earnedPoints", child.getEarnedPoints());
+            json.addProperty("ratingCount", child.getRatingCount());
+            json.addProperty("averageRating", child.getAverageRating());
+            JsonObject tasks = new JsonObject();
+            for (TaskStatus status : TaskStatus.values()) {
+                tasks.addProperty(status.name(), child.getTaskCount(status));
+            }
+            json.add("tasks", tasks);
+            result.add(json);
+        }
+        return result;
+    }
+
+    private JsonElement changeStatus(Request request, Task task, String action) {
+        boolean changed;
+        switch (action) {
+            case "complete":
+                changed = dataManager.completeTask(task);
+                break;
+            case "approve":
+                double rating = request.body().has("rating") ? request.body().get("rating").getAsDouble() : 5.0;
+                if (rating < 0 || rating > 5) {
+                    throw ApiException.badRequest("Rating must be between 0 and 5");
+                }
+                changed = dataManager.approveTask(task, rating);
+                break;
+            case "reject":
+                changed = dataManager.rejectTask(task);
+                break;
+            default:
+                throw ApiException.notFound(request.uri);
+        }
+        if (!changed) {
+            throw ApiException.conflict("Cannot " + action + " a task that is " + task.getStatus());
+        }
+        saveAsync();
+        return GSON.toJsonTree(task);
+    }
+
+    /**
+     * Pending tasks due today, from today through Sunday, or before today.
+     */
+    private List<Task> dueTasks(String due) {
+        switch (due.toLowerCase(Locale.ROOT)) {
+            case "today": return dataManager.getTasksDueToday();
+            case "week": return dataManager.getTasksDueThisWeek();
+            case "overdue": return dataManager.getOverdueTasks();
+            default: throw ApiException.badRequest("Unknown due filter: " + due);
+        }
+    }
+
+    private static TaskStatus parseStatus(String status) {
+        try {
+            return TaskStatus.valueOf(status.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw ApiException.badRequest("Unknown status: " + status);
+        }
+    }
+
+    private static LocalDate parseDate(String date) {
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw ApiException.badRequest("Not a yyyy-MM-dd date: " + date);
+        }
+    }
+}
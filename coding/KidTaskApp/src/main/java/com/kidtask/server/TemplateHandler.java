@@ -0,0 +1,147 @@
+package com.kidtask.server;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.kidtask.data.DataManager;
+import com.kidtask.data.RecurringTaskGenerator;
+import com.kidtask.models.Child;
+import com.kidtask.models.EntityId;
+import com.kidtask.models.Recurrence;
+import com.kidtask.models.RecurrenceFrequency;
+import com.kidtask.models.TaskTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * /api/templates
+ * <pre>
+ *   GET    /api/templates[?createdBy=]
+ *   POST   /api/templates              {title, description, points, createdBy, assignees[],
+ *                                        frequency, interval, daysOfWeek[], startDate, endDate}
+ *   GET    /api/templates/{id}
+ *   DELETE /api/templates/{id}
+ * </pre>
+ * Adding a template creates its instances for the coming days right away.
+ */
+class TemplateHandler extends JsonHandler {
+    private final RecurringTaskGenerator generator;
+
+    TemplateHandler(DataManager dataManager) {
+        super(dataManager, "/api/templates");
+        this.generator = new RecurringTaskGenerator(dataManager);
+    }
+
+    @Override
+    protected JsonElement handle(Request request) {
+        if (request.path.isEmpty()) {
+            switch (request.method) {
+                case "GET": return listTemplates(request);
+                case "POST": return addTemplate(request);
+                default: throw methodNotAllowed(request);
+            }
+        }
+
+        TaskTemplate template = dataManager.getTemplateById(request.path.get(0));
+        if (template == null || request.path.size() > 1) {
+            throw ApiException.notFound("Template " + request.path.get(0));
+        }
+        switch (request.method) {
+            case "GET":
+                return GSON.toJsonTree(template);
+            case "DELETE":
+                dataManager.removeTemplate(template.getTemplateId());
+                saveAsync();
+                return GSON.toJsonTree(template);
+            default:
+                throw methodNotAllowed(request);
+        }
+    }
+
+    private JsonElement listTemplates(Request request) {
+        String createdBy = request.query("createdBy");
+        List<TaskTemplate> templates = createdBy != null
+                ? dataManager.getTemplatesCreatedBy(createdBy) : dataManager.getAllTemplates();
+
+        JsonArray result = new JsonArray();
+        for (TaskTemplate template : templates) {
+            result.add(GSON.toJsonTree(template));
+        }
+        return result;
+    }
+
+    private JsonElement addTemplate(Request request) {
+        JsonObject body = request.body();
+        List<String> assignees = new ArrayList<>();
+        if (body.has("assignees")) {
+            for (JsonElement assignee : body.getAsJsonArray("assignees")) {
+                if (!(dataManager.getUser(assignee.getAsString()) instanceof Child)) {
+                    throw ApiException.badRequest("No child named " + assignee.getAsString());
+                }
+                assignees.add(assignee.getAsString());
+            }
+        }
+        if (assignees.isEmpty()) {
+            throw ApiException.badRequest("Missing field: assignees");
+        }
+        int points = body.has("points") ? body.get("points").getAsInt() : 10;
+        if (points < 1 || points > 100) {
+            throw ApiException.badRequest("Points must be between 1 and 100");
+        }
+
+        TaskTemplate template = new TaskTemplate(EntityId.generate().toString(),
+                request.requiredString("title"),
+                request.requiredString("description"),
+                points,
+                request.requiredString("createdBy"),
+                assignees,
+                parseRecurrence(body),
+                parseDate(request.requiredString("startDate")).toString());
+        if (body.has("endDate") && !body.get("endDate").isJsonNull()) {
+            template.setEndDate(parseDate(body.get("endDate").getAsString()).toString());
+        }
+        dataManager.addTemplate(template);
+        generator.generate();
+        return GSON.toJsonTree(template);
+    }
+
+    private static Recurrence parseRecurrence(JsonObject body) {
+        RecurrenceFrequency frequency;
+        try {
+            frequency = body.has("frequency")
+                    ? RecurrenceFrequency.valueOf(body.get("frequency").getAsString().toUpperCase(Locale.ROOT))
+                    : RecurrenceFrequency.DAILY;
+        } catch (IllegalArgumentException e) {
+            throw ApiException.badRequest("Unknown frequency: " + body.get("frequency").getAsString());
+        }
+        int interval = body.has("interval") ? body.get("interval").getAsInt() : 1;
+        List<DayOfWeek> days = new ArrayList<>();
+        if (body.has("daysOfWeek")) {
+            for (JsonElement day : body.getAsJsonArray("daysOfWeek")) {
+                try {
+                    days.add(DayOfWeek.valueOf(day.getAsString().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw ApiException.badRequest("Unknown day: " + day.getAsString());
+                }
+            }
+        }
+        try {
+            return new Recurrence(frequency, interval, days);
+        } catch (IllegalArgumentException e) {
+            throw ApiException.badRequest(e.getMessage());
+        }
+    }
+
+    private static LocalDate parseDate(String date) {
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw ApiException.badRequest("Not a yyyy-MM-dd date: " + date);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.kidtask.server;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.kidtask.data.DataManager;
+import com.kidtask.models.*;
+
+import java.util.Locale;
+
+/**
+ * /api/users. Passwords are accepted but never returned.
+ * <pre>
+ *   GET    /api/users[?role=]
+ *   POST   /api/users                          {username, password, role}
+ *   GET    /api/users/{username}
+ *   POST   /api/users/{username}/authenticate  {password}
+ * </pre>
+ */
+class UserHandler extends JsonHandler {
+
+    UserHandler(DataManager dataManager) {
+        super(dataManager, "/api/users");
+    }
+
+    @Override
+    protected JsonElement handle(Request request) {
+        if (request.path.isEmpty()) {
+            switch (request.method) {
+                case "GET": return listUsers(request);
+                case "POST": return addUser(request);
+                default: throw methodNotAllowed(request);
+            }
+        }
+
+        String username = request.path.get(0);
+        if (request.path.size() == 1 && request.method.equals("GET")) {
+            User user = dataManager.getUser(username);
+            if (user == null) {
+                throw ApiException.notFound("User " + username);
+            }
+            return toJson(user);
+        }
+        if (request.path.size() == 2 && request.path.get(1).equals("authenticate")
+                && request.method.equals("POST")) {
+            User user = dataManager.authenticateUser(username, request.requiredString("password"));
+            if (user == null) {
+                throw new ApiException(401, "Invalid username or password");
+            }
+            return toJson(user);
+        }
+        throw ApiException.notFound(request.uri);
+    }
+
+    private JsonElement listUsers(Request request) {
+        String role = request.query("role");
+        JsonArray result = new JsonArray();
+        for (User user : dataManager.getAllUsers()) {
+            if (role == null || user.getRole().name().equalsIgnoreCase(role)) {
+                result.add(toJson(user));
+            }
+        }
+        return result;
+    }
+
+    private JsonElement addUser(Request request) {
+        String username = request.requiredString("username");
+        String password = request.requiredString("password");
+        String role = request.requiredString("role").toUpperCase(Locale.ROOT);
+        if (dataManager.getUser(username) != null) {
+            throw ApiException.conflict("Username already exists");
+        }
+
+        User user;
+        switch (role) {
+            case "CHILD":
+                user = new Child(username, password);
+                break;
+            case "PARENT":
+                user = new Parent(username, password);
+                break;
+            case "TEACHER":
+                user = new Teacher(username, password);
+                break;
+            default:
+                throw ApiException.badRequest("Unknown role: " + role);
+        }
+        dataManager.addUser(user);
+        saveAsync();
+        return toJson(user);
+    }
+
+    private JsonObject toJson(User user) {
+        JsonObject json = new JsonObject();
+        json.addProperty("username", user.getUsername());
+        json.addProperty("role", user.getRole().name());
+        if (user instanceof Child) {
+            dataManager.readChild((Child) user, child -> {
+                json.addProperty("points", child.getPoints());
+                json.addProperty("level", child.getLevel());
+                return null;
+            });
+        }
+        return json;
+    }
+}
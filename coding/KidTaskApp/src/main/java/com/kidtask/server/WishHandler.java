@@ -0,0 +1,139 @@
+package com.kidtask.server;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.kidtask.data.DataManager;
+import com.kidtask.models.EntityId;
+import com.kidtask.models.Wish;
+import com.kidtask.models.WishStatus;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * /api/wishes
+ * <pre>
+ *   GET    /api/wishes[?requestedBy=[&amp;level=&amp;status=]]
+ *   GET    /api/wishes?q=words[&amp;limit=&amp;requestedBy=[&amp;level=]]
+ *   POST   /api/wishes                 {title, description, wishType, requiredLevel, requestedBy}
+ *   GET    /api/wishes/{id}
+ *   DELETE /api/wishes/{id}
+ *   POST   /api/wishes/{id}/approve    {approvedBy}
+ *   POST   /api/wishes/{id}/reject
+ * </pre>
+ */
+class WishHandler extends JsonHandler {
+
+    WishHandler(DataManager dataManager) {
+        super(dataManager, "/api/wishes");
+    }
+
+    @Override
+    protected JsonElement handle(Request request) {
+        if (request.path.isEmpty()) {
+            switch (request.method) {
+                case "GET": return listWishes(request);
+                case "POST": return addWish(request);
+                default: throw methodNotAllowed(request);
+            }
+        }
+
+        Wish wish = dataManager.getWishById(request.path.get(0));
+        if (wish == null) {
+            throw ApiException.notFound("Wish " + request.path.get(0));
+        }
+        if (request.path.size() == 1) {
+            switch (request.method) {
+                case "GET":
+                    return GSON.toJsonTree(wish);
+                case "DELETE":
+                    dataManager.removeWish(wish);
+                    saveAsync();
+                    return GSON.toJsonTree(wish);
+                default:
+                    throw methodNotAllowed(request);
+            }
+        }
+        if (request.path.size() == 2 && request.method.equals("POST")) {
+            return changeStatus(request, wish, request.path.get(1));
+        }
+        throw ApiException.notFound(request.uri);
+    }
+
+    private JsonElement listWishes(Request request) {
+        String requestedBy = request.query("requestedBy");
+        String level = request.query("level");
+        String text = request.query("q");
+
+        List<Wish> wishes;
+        if (text != null) {
+            wishes = dataManager.searchWishes(text, requestedBy,
+                    request.queryInt("limit", DEFAULT_SEARCH_LIMIT));
+            if (level != null) {
+                int childLevel = Integer.parseInt(level);
+                wishes.removeIf(wish -> !wish.isAvailableForLevel(childLevel));
+            }
+        } else if (requestedBy != null) {
+            // Without a level every wish of the child is listed
+            int childLevel = level != null ? Integer.parseInt(level) : Integer.MAX_VALUE;
+            String status = request.query("status");
+            wishes = dataManager.getWishesForChild(requestedBy, childLevel,
+                    status != null ? parseStatus(status) : null);
+        } else {
+            wishes = dataManager.getAllWishes();
+        }
+
+        JsonArray result = new JsonArray();
+        for (Wish wish : wishes) {
+            result.add(GSON.toJsonTree(wish));
+        }
+        return result;
+    }
+
+    private JsonElement addWish(Request request) {
+        String wishType = request.requiredString("wishType");
+        if (!wishType.equals("product") && !wishType.equals("activity")) {
+            throw ApiException.badRequest("Wish type must be product or activity");
+        }
+        int requiredLevel = request.body().has("requiredLevel") ? request.body().get("requiredLevel").getAsInt() : 1;
+        if (requiredLevel < 1 || requiredLevel > 5) {
+            throw ApiException.badRequest("Required level must be between 1 and 5");
+        }
+
+        Wish wish = new Wish(EntityId.generate(),
+                request.requiredString("title"),
+                request.requiredString("description"),
+                wishType, requiredLevel,
+                request.requiredString("requestedBy"));
+        dataManager.addWish(wish);
+        saveAsync();
+        return GSON.toJsonTree(wish);
+    }
+
+    private JsonElement changeStatus(Request request, Wish wish, String action) {
+        boolean changed;
+        switch (action) {
+            case "approve":
+                changed = dataManager.approveWish(wish, request.requiredString("approvedBy"));
+                break;
+            case "reject":
+                changed = dataManager.rejectWish(wish);
+                break;
+            default:
+                throw ApiException.notFound(request.uri);
+        }
+        if (!changed) {
+            throw ApiException.conflict("Only pending wishes can be " + action + "d");
+        }
+        saveAsync();
+        return GSON.toJsonTree(wish);
+    }
+
+    private static WishStatus parseStatus(String status) {
+        try {
+            return WishStatus.valueOf(status.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw ApiException.badRequest("Unknown status: " + status);
+        }
+    }
+}
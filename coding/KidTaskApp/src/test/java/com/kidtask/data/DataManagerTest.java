@@ -0,0 +1,49 @@
+package com.kidtask.data;
+
+import com.kidtask.models.Child;
+import com.kidtask.models.Task;
+import com.kidtask.models.TaskStatus;
+import com.kidtask.models.Wish;
+import com.kidtask.models.WishStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DataManagerTest {
+    @TempDir
+    File dataDir;
+
+    @Test
+    void saveKeepsChangesMadeThroughSetters() {
+        DataManager dataManager = open();
+        Child child = new Child("kid", "pw");
+        dataManager.addUser(child);
+        Task task = dataManager.assignTask("Math", "Homework", "2025-01-01", 10, "mom",
+                Collections.singletonList("kid")).get(0);
+        Wish wish = new Wish("w1", "Bike", "Red", "product", 1, "kid");
+        dataManager.addWish(wish);
+        dataManager.saveData();
+
+        task.setStatus(TaskStatus.COMPLETED);
+        wish.approve("mom");
+        child.addPoints(7);
+        dataManager.saveData();
+        dataManager.close();
+
+        DataManager reloaded = open();
+        assertEquals(TaskStatus.COMPLETED, reloaded.getTaskById(task.getId()).getStatus());
+        assertEquals(WishStatus.APPROVED, reloaded.getWishById(wish.getId()).getStatus());
+        assertEquals(7, ((Child) reloaded.getUser("kid")).getPoints());
+        reloaded.close();
+    }
+
+    private DataManager open() {
+        DataManager dataManager = new DataManager(new StorageOptions().setDataDir(dataDir.getPath()));
+        dataManager.loadData();
+        return dataManager;
+    }
+}
@@ -0,0 +1,100 @@
+package com.kidtask.data;
+
+import com.google.gson.JsonPrimitive;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JournalTest {
+    @TempDir
+    File dataDir;
+
+    @Test
+    void replaySkipsTruncatedTail() throws IOException {
+        File file = new File(dataDir, "journal");
+        Journal journal = new Journal(file);
+        journal.append(Journal.PUT_TASK, new JsonPrimitive("t1"));
+        journal.append(Journal.PUT_TASK, new JsonPrimitive("t2"));
+        journal.append(Journal.REMOVE_TASK, new JsonPrimitive("t1"));
+        journal.close();
+        // Crash in the middle of writing the last record
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 8);
+        }
+
+        assertEquals(Arrays.asList("putTask t1", "putTask t2"), replay(file));
+    }
+
+    @Test
+    void recordsAppendedAfterTornTailAreReplayed() throws IOException {
+        File file = new File(dataDir, "journal");
+        Journal journal = new Journal(file);
+        journal.append(Journal.PUT_TASK, new JsonPrimitive("t1"));
+        journal.close();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length());
+            raf.write("{\"op\":\"putTa".getBytes(StandardCharsets.UTF_8));
+        }
+
+        Journal reopened = new Journal(file);
+        reopened.append(Journal.PUT_WISH, new JsonPrimitive("w1"));
+        reopened.close();
+
+        assertEquals(Arrays.asList("putTask t1", "putWish w1"), replay(file));
+    }
+
+    @Test
+    void replaySkipsMalformedRecords() throws IOException {
+        File file = new File(dataDir, "journal");
+        Files.write(file.toPath(), String.join("\n",
+                "{\"op\":\"putTask\",\"data\":\"t1\"}",
+                "{\"data\":\"t2\"}",
+                "{\"op\":\"putTask\"}",
+                "[1,2]",
+                "{\"op\":\"putTask\",\"data\":\"t3\"}",
+                "").getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(Arrays.asList("putTask t1", "putTask t3"), replay(file));
+    }
+
+    @Test
+    void unsyncedJournalReplaysTheSameRecords() throws IOException {
+        File file = new File(dataDir, "journal");
+        Journal journal = new Journal(file, false);
+        journal.beginBatch();
+        journal.append(Journal.PUT_TASK, new JsonPrimitive("t1"));
+        journal.append(Journal.PUT_TASK, new JsonPrimitive("t2"));
+        journal.endBatch();
+        journal.close();
+
+        assertEquals(Arrays.asList("putTask t1", "putTask t2"), replay(file));
+    }
+
+    @Test
+    void replayReadsRotatedJournalFirst() throws IOException {
+        File file = new File(dataDir, "journal");
+        Journal journal = new Journal(file);
+        journal.append(Journal.PUT_TASK, new JsonPrimitive("t1"));
+        journal.rotate();
+        journal.append(Journal.PUT_TASK, new JsonPrimitive("t2"));
+        journal.close();
+
+        assertEquals(Arrays.asList("putTask t1", "putTask t2"), replay(file));
+    }
+
+    private static List<String> replay(File file) throws IOException {
+        List<String> records = new ArrayList<>();
+        new Journal(file).replay((op, data) -> records.add(op + " " + data.getAsString()));
+        return records;
+    }
+}
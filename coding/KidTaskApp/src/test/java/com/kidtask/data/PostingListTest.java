@@ -0,0 +1,56 @@
+package com.kidtask.data;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PostingListTest {
+
+    @Test
+    void roundTripsGapsAndWeightsOfEveryVarintLength() {
+        // Gaps and weights taking from one to five varint bytes
+        int[] documents = {0, 127, 128, 255, 16638, 16639, 2113790, 2113791, 270549118, Integer.MAX_VALUE};
+        int[] weights = {0, 1, 127, 128, 16383, 16384, 2097151, 2097152, 268435455, Integer.MAX_VALUE};
+        PostingList postings = new PostingList();
+        for (int i = 0; i < documents.length; i++) {
+            postings.add(documents[i], weights[i]);
+        }
+
+        assertEquals(documents.length, postings.size());
+        int[] decodedDocuments = new int[postings.size()];
+        int[] decodedWeights = new int[postings.size()];
+        postings.decode(decodedDocuments, decodedWeights);
+        assertArrayEquals(documents, decodedDocuments);
+        assertArrayEquals(weights, decodedWeights);
+    }
+
+    @Test
+    void roundTripsManyPostings() {
+        PostingList postings = new PostingList();
+        int[] documents = new int[10000];
+        int[] weights = new int[10000];
+        int document = -1;
+        for (int i = 0; i < documents.length; i++) {
+            document += 1 + (i * 7919) % 300;
+            documents[i] = document;
+            weights[i] = (i * 31) % 1000;
+            postings.add(documents[i], weights[i]);
+        }
+
+        int[] decodedDocuments = new int[postings.size()];
+        int[] decodedWeights = new int[postings.size()];
+        postings.decode(decodedDocuments, decodedWeights);
+        assertArrayEquals(documents, decodedDocuments);
+        assertArrayEquals(weights, decodedWeights);
+    }
+
+    @Test
+    void rejectsDocumentsOutOfOrder() {
+        PostingList postings = new PostingList();
+        postings.add(5, 1);
+        assertThrows(IllegalArgumentException.class, () -> postings.add(5, 1));
+        assertThrows(IllegalArgumentException.class, () -> postings.add(3, 1));
+    }
+}
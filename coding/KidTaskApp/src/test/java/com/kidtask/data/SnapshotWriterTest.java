@@ -0,0 +1,163 @@
+package com.kidtask.data;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class SnapshotWriterTest {
+    @TempDir
+    File dataDir;
+
+    private SnapshotWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        writer = new SnapshotWriter(dataDir);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.shutdown();
+    }
+
+    @Test
+    void recoverMovesCommittedTempFilesIntoPlace() throws IOException {
+        File users = new File(dataDir, "Users.txt");
+        File tasks = new File(dataDir, "Tasks.txt");
+        commit(users, "users v1", tasks, "tasks v1");
+        commit(users, "users v2", tasks, "tasks v2");
+
+        // Crash after the manifest was written, before the files were moved
+        Files.move(users.toPath(), temp(users).toPath());
+        Files.move(tasks.toPath(), temp(tasks).toPath());
+        write(users, "users v1");
+        write(tasks, "tasks v1");
+
+        recoverAfterRestart();
+
+        assertEquals("users v2", read(users));
+        assertEquals("tasks v2", read(tasks));
+        assertFalse(temp(users).exists());
+        assertFalse(temp(tasks).exists());
+    }
+
+    @Test
+    void recoverDiscardsUncommittedTempFiles() throws IOException {
+        File users = new File(dataDir, "Users.txt");
+        File tasks = new File(dataDir, "Tasks.txt");
+        commit(users, "users v1", tasks, "tasks v1");
+
+        // Crash while the next transaction was still writing its temp files
+        write(temp(users), "users v2");
+        write(temp(tasks), "tasks v");
+
+        recoverAfterRestart();
+
+        assertEquals("users v1", read(users));
+        assertEquals("tasks v1", read(tasks));
+        assertFalse(temp(users).exists());
+        assertFalse(temp(tasks).exists());
+    }
+
+    @Test
+    void recoverDiscardsTempFilesOutsideTheManifest() throws IOException {
+        File users = new File(dataDir, "Users.txt");
+        File tasks = new File(dataDir, "Tasks.txt");
+        commit(users, "users v1", tasks, "tasks v1");
+
+        // Crash while writing a shard that no committed manifest lists yet
+        File shard = new File(dataDir, "children/kid/Tasks.txt");
+        shard.getParentFile().mkdirs();
+        write(temp(shard), "tasks of a new child");
+        write(temp(new File(dataDir, "manifest")), "{\"generation\":");
+
+        recoverAfterRestart();
+
+        assertFalse(temp(shard).exists());
+        assertFalse(shard.exists());
+        assertFalse(temp(new File(dataDir, "manifest")).exists());
+        assertEquals("users v1", read(users));
+    }
+
+    @Test
+    void recoverDiscardsTempFilesWithoutAManifest() throws IOException {
+        File users = new File(dataDir, "Users.txt");
+        write(temp(users), "users v1");
+
+        recoverAfterRestart();
+
+        assertFalse(temp(users).exists());
+        assertFalse(users.exists());
+    }
+
+    @Test
+    void recoverCutsUncommittedAppendsOff() throws IOException {
+        File archive = new File(dataDir, "archive.dat");
+        write(archive, "committed");
+        writer.commit(Collections.emptyMap(), Collections.singletonMap(archive, archive.length()));
+        try (RandomAccessFile file = new RandomAccessFile(archive, "rw")) {
+            file.seek(file.length());
+            file.write(" and more".getBytes(StandardCharsets.UTF_8));
+        }
+
+        recoverAfterRestart();
+
+        assertEquals("committed", read(archive));
+    }
+
+    @Test
+    void committedAppendLengthsCarryIntoLaterTransactions() throws IOException {
+        File archive = new File(dataDir, "archive.dat");
+        File users = new File(dataDir, "Users.txt");
+        write(archive, "committed");
+        writer.commit(Collections.emptyMap(), Collections.singletonMap(archive, archive.length()));
+        commit(users, "users v1", new File(dataDir, "Tasks.txt"), "tasks v1");
+        try (RandomAccessFile file = new RandomAccessFile(archive, "rw")) {
+            file.seek(file.length());
+            file.write(" and more".getBytes(StandardCharsets.UTF_8));
+        }
+
+        recoverAfterRestart();
+
+        assertEquals("committed", read(archive));
+        assertEquals("users v1", read(users));
+    }
+
+    private void commit(File first, String firstContent, File second, String secondContent) throws IOException {
+        Map<File, SnapshotWriter.Content> files = new LinkedHashMap<>();
+        files.put(first, out -> out.write(firstContent.getBytes(StandardCharsets.UTF_8)));
+        files.put(second, out -> out.write(secondContent.getBytes(StandardCharsets.UTF_8)));
+        writer.commit(files);
+    }
+
+    private void recoverAfterRestart() throws IOException {
+        writer.shutdown();
+        writer = new SnapshotWriter(dataDir);
+        writer.recover();
+    }
+
+    private static File temp(File target) {
+        return new File(target.getPath() + ".tmp");
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,57 @@
+package com.kidtask.data;
+
+import com.kidtask.models.EntityId;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TextIndexTest {
+
+    @Test
+    void findsDocumentsAfterDeadOnesAreCompactedAway() {
+        TextIndex<Integer> index = new TextIndex<>();
+        index.build(loaded -> { });
+        List<EntityId> keys = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            keys.add(EntityId.of(0, i));
+            index.put(keys.get(i), i, "kid" + (i % 3), "math homework " + i, "page " + i);
+        }
+        // Rewording two thirds of them twice leaves more dead documents than live ones
+        for (int i = 0; i < 2000; i++) {
+            index.put(keys.get(i), i, "kid" + (i % 3), "writing " + i, "essay " + i);
+        }
+        for (int i = 0; i < 2000; i++) {
+            index.put(keys.get(i), i, "kid" + (i % 3), "reading " + i, "chapter " + i);
+        }
+        index.remove(keys.get(2999));
+
+        assertEquals(2999, index.size());
+        assertEquals(999, index.search("math", null, 5000).size());
+        assertEquals(0, index.search("essay", null, 5000).size());
+        assertEquals(2000, index.search("reading", null, 5000).size());
+        assertEquals(667, index.search("reading", "kid0", 5000).size());
+        List<TextIndex.Hit<Integer>> hits = index.search("chapter 1234", null, 1);
+        assertEquals(Integer.valueOf(1234), hits.get(0).getValue());
+        assertEquals(0, index.search("math 2999", null, 10).size());
+    }
+
+    @Test
+    void unchangedTextIsNotIndexedAgain() {
+        TextIndex<String> index = new TextIndex<>();
+        index.build(loaded -> { });
+        EntityId key = EntityId.of(0, 1);
+        index.put(key, "first", "kid", "Feed the cat", null);
+        index.put(key, "second", "kid", "Feed the cat", null);
+
+        List<TextIndex.Hit<String>> hits = index.search("cat", "kid", 10);
+        assertEquals(1, hits.size());
+        assertEquals("second", hits.get(0).getValue());
+
+        index.put(key, "third", "kid", "Feed the dog", null);
+        assertEquals(0, index.search("cat", null, 10).size());
+        assertEquals(1, index.search("dog", null, 10).size());
+    }
+}
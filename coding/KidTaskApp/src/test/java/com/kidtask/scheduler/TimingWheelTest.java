@@ -0,0 +1,90 @@
+package com.kidtask.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    @Test
+    void timeoutsExpireAtTheirTickAfterCascading() {
+        TimingWheel<Long> wheel = new TimingWheel<>(0);
+        // One deadline for each level, and some on either side of slot boundaries
+        long[] deadlines = {1, 63, 64, 65, 4095, 4096, 4097, 262143, 262144 + 5, 16777216 + 9,
+                            1073741824L + 3, 68719476736L - 1};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+
+        for (long deadline : deadlines) {
+            assertEquals(Collections.emptyList(), wheel.advance(deadline - 1));
+            assertEquals(Collections.singletonList(deadline), wheel.advance(deadline));
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advanceSkipsAheadOverEmptyTicks() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000);
+        wheel.schedule(1000 + 5_000_000_000L, "far");
+
+        assertEquals(Collections.emptyList(), wheel.advance(1000 + 4_999_999_999L));
+        assertEquals(1000 + 5_000_000_000L, wheel.getNextTick());
+        assertEquals(Collections.singletonList("far"), wheel.advance(1000 + 5_000_000_000L));
+
+        // An empty wheel jumps straight to the requested tick
+        assertEquals(Collections.emptyList(), wheel.advance(1L << 50));
+        assertEquals((1L << 50) + 1, wheel.getNextTick());
+    }
+
+    @Test
+    void deadlinesBeyondReachAreFiledAgain() {
+        TimingWheel<String> wheel = new TimingWheel<>(0);
+        long beyond = (1L << 36) * 3 + 17;
+        wheel.schedule(beyond, "beyond");
+
+        assertEquals(Collections.emptyList(), wheel.advance(beyond - 1));
+        assertEquals(Collections.singletonList("beyond"), wheel.advance(beyond));
+    }
+
+    @Test
+    void expiresInDeadlineOrderWithinOneAdvance() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(0);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            int deadline = (i * 7919) % 100_000 + 1;
+            wheel.schedule(deadline, deadline);
+            expected.add(deadline);
+        }
+        Collections.sort(expected);
+
+        assertEquals(expected, wheel.advance(100_000));
+    }
+
+    @Test
+    void cancelledTimeoutsDoNotExpire() {
+        TimingWheel<String> wheel = new TimingWheel<>(0);
+        TimingWheel.Timeout<String> kept = wheel.schedule(5000, "kept");
+        TimingWheel.Timeout<String> cancelled = wheel.schedule(5000, "cancelled");
+
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+        assertEquals(Arrays.asList("kept"), wheel.advance(10_000));
+        assertFalse(kept.isScheduled());
+    }
+
+    @Test
+    void passedDeadlinesExpireWithTheNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(100);
+        wheel.schedule(50, "late");
+
+        assertEquals(Collections.singletonList("late"), wheel.advance(100));
+    }
+}